@@ -20,9 +20,13 @@ public interface EdgeVersionDao extends RichVersionDao<EdgeVersion> {
   @Override
   EdgeVersion create(EdgeVersion nodeVersion, List<Long> parentIds) throws GroundException;
 
+  List<EdgeVersion> create(List<EdgeVersion> edgeVersions, List<List<Long>> parentIds) throws GroundException;
+
   @Override
   EdgeVersion retrieveFromDatabase(long id) throws GroundException;
 
+  List<EdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   @Override
   default Class<EdgeVersion> getType() {
     return EdgeVersion.class;
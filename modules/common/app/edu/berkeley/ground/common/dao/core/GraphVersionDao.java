@@ -13,12 +13,17 @@ package edu.berkeley.ground.common.dao.core;
 
 import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.model.core.GraphVersion;
+import java.util.List;
 
 public interface GraphVersionDao extends RichVersionDao<GraphVersion> {
 
+  List<GraphVersion> create(List<GraphVersion> graphVersions, List<List<Long>> parentIds) throws GroundException;
+
   @Override
   GraphVersion retrieveFromDatabase(long id) throws GroundException;
 
+  List<GraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   @Override
   default Class<GraphVersion> getType() {
     return GraphVersion.class;
@@ -20,9 +20,13 @@ public interface NodeVersionDao extends RichVersionDao<NodeVersion> {
   @Override
   NodeVersion create(NodeVersion nodeVersion, List<Long> parentIds) throws GroundException;
 
+  List<NodeVersion> create(List<NodeVersion> nodeVersions, List<List<Long>> parentIds) throws GroundException;
+
   @Override
   NodeVersion retrieveFromDatabase(long id) throws GroundException;
 
+  List<NodeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   List<Long> retrieveAdjacentLineageEdgeVersion(long startId) throws GroundException;
 
   @Override
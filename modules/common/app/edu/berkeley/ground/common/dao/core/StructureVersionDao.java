@@ -20,9 +20,13 @@ public interface StructureVersionDao extends VersionDao<StructureVersion> {
 
   StructureVersion create(StructureVersion structureVersion, List<Long> parentIds) throws GroundException;
 
+  List<StructureVersion> create(List<StructureVersion> structureVersions, List<List<Long>> parentIds) throws GroundException;
+
   @Override
   StructureVersion retrieveFromDatabase(long id) throws GroundException;
 
+  List<StructureVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   @Override
   default Class<StructureVersion> getType() {
     return StructureVersion.class;
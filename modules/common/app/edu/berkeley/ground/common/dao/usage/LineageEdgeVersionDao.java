@@ -21,9 +21,13 @@ public interface LineageEdgeVersionDao extends RichVersionDao<LineageEdgeVersion
   @Override
   LineageEdgeVersion create(LineageEdgeVersion lineageEdgeVersion, List<Long> parentIds) throws GroundException;
 
+  List<LineageEdgeVersion> create(List<LineageEdgeVersion> lineageEdgeVersions, List<List<Long>> parentIds) throws GroundException;
+
   @Override
   LineageEdgeVersion retrieveFromDatabase(long id) throws GroundException;
 
+  List<LineageEdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   @Override
   default Class<LineageEdgeVersion> getType() {
     return LineageEdgeVersion.class;
@@ -22,9 +22,13 @@ public interface LineageGraphVersionDao extends RichVersionDao<LineageGraphVersi
   LineageGraphVersion create(LineageGraphVersion lineageGraphVersion, List<Long> parentIds)
     throws GroundException;
 
+  List<LineageGraphVersion> create(List<LineageGraphVersion> lineageGraphVersions, List<List<Long>> parentIds) throws GroundException;
+
   @Override
   LineageGraphVersion retrieveFromDatabase(long id) throws GroundException;
 
+  List<LineageGraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException;
+
   @Override
   default Class<LineageGraphVersion> getType() {
     return LineageGraphVersion.class;
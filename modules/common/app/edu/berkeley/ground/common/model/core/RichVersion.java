@@ -15,6 +15,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import edu.berkeley.ground.common.model.version.Tag;
 import edu.berkeley.ground.common.model.version.Version;
+import edu.berkeley.ground.common.util.StringInterner;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -59,7 +60,7 @@ public class RichVersion extends Version {
     if (tags == null) {
       this.tags = new HashMap<>();
     } else {
-      this.tags = tags;
+      this.tags = StringInterner.internKeys(tags);
     }
 
     if (structureVersionId == null || structureVersionId <= 0) {
@@ -15,6 +15,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import edu.berkeley.ground.common.model.version.GroundType;
 import edu.berkeley.ground.common.model.version.Version;
+import edu.berkeley.ground.common.util.StringInterner;
 import java.util.Map;
 
 public class StructureVersion extends Version {
@@ -42,7 +43,7 @@ public class StructureVersion extends Version {
     super(id);
 
     this.structureId = structureId;
-    this.attributes = attributes;
+    this.attributes = attributes == null ? null : StringInterner.internKeys(attributes);
   }
 
   public StructureVersion(long id, StructureVersion other) {
@@ -13,6 +13,7 @@ package edu.berkeley.ground.common.model.version;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.berkeley.ground.common.util.StringInterner;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,7 +32,7 @@ public class Item {
     if (tags == null) {
       this.tags = new HashMap<>();
     } else {
-      this.tags = tags;
+      this.tags = StringInterner.internKeys(tags);
     }
   }
 
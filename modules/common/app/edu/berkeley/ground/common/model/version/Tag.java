@@ -15,6 +15,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
+import edu.berkeley.ground.common.util.StringInterner;
 import java.util.Objects;
 
 public class Tag {
@@ -55,7 +56,7 @@ public class Tag {
     }
 
     this.id = id;
-    this.key = key;
+    this.key = StringInterner.internKey(key);
     this.value = value;
     this.valueType = valueType;
   }
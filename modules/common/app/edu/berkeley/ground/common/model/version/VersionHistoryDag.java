@@ -11,24 +11,31 @@
  */
 package edu.berkeley.ground.common.model.version;
 
+import edu.berkeley.ground.common.util.LongAdjacency;
+import edu.berkeley.ground.common.util.LongHashSet;
+import edu.berkeley.ground.common.util.LongList;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * The version history of an item. Version ids are held in primitive collections rather than boxed
+ * maps and lists, since DAGs of long-lived items are large and may be kept in memory.
+ */
 public class VersionHistoryDag {
 
   // the id of the Version that's at the rootId of this DAG
   private final long itemId;
 
   // list of VersionSuccessors that make up this DAG
-  private final List<Long> edgeIds;
+  private final LongList edgeIds;
 
-  // map of parents to children
-  private final Map<Long, List<Long>> parentChildMap;
+  // the parent-child edges between versions, indexed in both directions
+  private final LongAdjacency adjacency;
+
+  // the versions that are not the parent of any other version, kept up to date by addEdge
+  private final LongHashSet leaves;
 
   /**
    * Create a new version history DAG.
@@ -38,10 +45,14 @@ public class VersionHistoryDag {
    */
   public VersionHistoryDag(long itemId, List<VersionSuccessor> edges) {
     this.itemId = itemId;
-    this.edgeIds = edges.stream().map(VersionSuccessor::getId).collect(Collectors.toList());
-    this.parentChildMap = new HashMap<>();
+    this.edgeIds = new LongList(edges.size());
+    // a history has at most one more version than it has edges
+    this.adjacency = new LongAdjacency(edges.size() + 1, edges.size());
+    this.leaves = new LongHashSet();
 
-    edges.forEach(edge -> this.addToParentChildMap(edge.getFromId(), edge.getToId()));
+    for (VersionSuccessor edge : edges) {
+      this.addEdge(edge.getFromId(), edge.getToId(), edge.getId());
+    }
   }
 
   public long getItemId() {
@@ -59,7 +70,7 @@ public class VersionHistoryDag {
    * @return true if id is in the DAG, false otherwise
    */
   public boolean checkItemInDag(long id) {
-    return this.parentChildMap.keySet().contains(id) || this.getLeaves().contains(id);
+    return this.adjacency.contains(id);
   }
 
   /**
@@ -69,8 +80,14 @@ public class VersionHistoryDag {
    * @param childId the id of the "to" of the edge
    */
   public void addEdge(long parentId, long childId, long successorId) {
-    this.edgeIds.add(successorId);
-    this.addToParentChildMap(parentId, childId);
+    this.edgeIds.addLong(successorId);
+
+    this.adjacency.addEdge(parentId, childId);
+
+    this.leaves.remove(parentId);
+    if (!this.adjacency.hasChildren(childId)) {
+      this.leaves.add(childId);
+    }
   }
 
   /**
@@ -80,21 +97,14 @@ public class VersionHistoryDag {
    * @return the list of parent version(s)
    */
   public List<Long> getParent(long childId) {
-    return this.parentChildMap
-             .entrySet()
-             .stream()
-             .filter(entry -> entry.getValue().contains(childId))
-             .map(Map.Entry::getKey)
-             .collect(Collectors.toList());
+    return toList(this.adjacency.getParents(childId));
   }
 
   public Map<Long, Long> getParentChildPairs() {
     Map<Long, Long> result = new HashMap<>();
 
-    for (Long parent : this.parentChildMap.keySet()) {
-      List<Long> children = this.parentChildMap.get(parent);
-
-      for (Long child : children) {
+    for (long parent : this.adjacency.getParentVertices()) {
+      for (long child : this.adjacency.getChildren(parent)) {
         result.put(parent, child);
       }
     }
@@ -109,15 +119,16 @@ public class VersionHistoryDag {
    * @return the list of the IDs of the leaves of this DAG
    */
   public List<Long> getLeaves() {
-    Set<Long> leaves = new HashSet<>();
-    this.parentChildMap.values().forEach(leaves::addAll);
-    leaves.removeAll(this.parentChildMap.keySet());
-
-    return new ArrayList<>(leaves);
+    return new ArrayList<>(this.leaves.toList());
   }
 
-  private void addToParentChildMap(long parent, long child) {
-    List<Long> childList = this.parentChildMap.computeIfAbsent(parent, key -> new ArrayList<>());
-    childList.add(child);
+  private static List<Long> toList(long[] values) {
+    List<Long> result = new ArrayList<>(values.length);
+
+    for (long value : values) {
+      result.add(value);
+    }
+
+    return result;
   }
 }
@@ -0,0 +1,45 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.common.util;
+
+import edu.berkeley.ground.common.exception.GroundException;
+
+/**
+ * Durable storage for the id counters of an IdGenerator. Ids are leased a block at a time, so a
+ * generator only reaches the store once per block and never hands out an id twice across restarts.
+ */
+public interface IdBlockSource {
+
+  /**
+   * Reserve the next block of ids for a counter.
+   *
+   * @param counter the name of the counter
+   * @param blockSize the number of ids to reserve
+   * @return the first id of the block; the block is [first, first + blockSize)
+   * @throws GroundException the block could not be reserved
+   */
+  long leaseBlock(String counter, long blockSize) throws GroundException;
+
+  /**
+   * Move a counter past the ids already in use, for stores whose counter is missing or behind
+   * them, such as one upgraded from counters kept in memory. A generator calls this once per
+   * counter, before its first lease.
+   *
+   * @param counter the name of the counter
+   * @param firstId the first id this generator hands out, for counter value 0
+   * @param lastId the last id this generator hands out
+   * @throws GroundException the counter could not be moved
+   */
+  void seed(String counter, long firstId, long lastId) throws GroundException;
+}
@@ -13,35 +13,50 @@
  */
 package edu.berkeley.ground.common.util;
 
+import edu.berkeley.ground.common.exception.GroundException;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Singleton;
 
+/**
+ * Generates ids for versions, version successors and items. Each id is the machine prefix OR'd
+ * with a counter value. Counters hand out ids from their current block with a single atomic
+ * increment; when an IdBlockSource is given, a new block is leased from it whenever the current one
+ * runs out, so ids keep increasing across restarts. Without one, the counters start at 1 and live
+ * only in memory.
+ */
 @Singleton
 public class IdGenerator {
 
   private final long prefix;
-  private long versionCounter;
-  private long successorCounter;
-  private long itemCounter;
-
-  // If true, only one counter will be used. If false, all three counters will be used.
-  private final boolean globallyUnique;
+  private final Counter versionCounter;
+  private final Counter successorCounter;
+  private final Counter itemCounter;
 
   public IdGenerator() {
-    this.prefix = 0;
-    this.versionCounter = 1;
-    this.successorCounter = 1;
-    this.itemCounter = 1;
-    this.globallyUnique = true;
+    this(0, 1, true);
   }
 
   /**
-   * Create a unique id generator.
+   * Create a unique id generator whose counters are kept in memory.
    *
    * @param machineId the id of this machine
    * @param numMachines the total number of machines
    * @param globallyUnique if true, only one counter will be used for all version
    */
   public IdGenerator(long machineId, long numMachines, boolean globallyUnique) {
+    this(machineId, numMachines, globallyUnique, null, 0);
+  }
+
+  /**
+   * Create a unique id generator that leases its ids in blocks.
+   *
+   * @param machineId the id of this machine
+   * @param numMachines the total number of machines
+   * @param globallyUnique if true, only one counter will be used for all version
+   * @param blockSource where to lease id blocks from, or null to keep the counters in memory
+   * @param blockSize the number of ids to lease at a time
+   */
+  public IdGenerator(long machineId, long numMachines, boolean globallyUnique, IdBlockSource blockSource, long blockSize) {
     long machineBits = 1;
     long fence = 2;
 
@@ -51,18 +66,40 @@ public class IdGenerator {
     }
 
     this.prefix = machineId << (64 - machineBits);
+    long lastId = this.prefix | ((1L << (64 - machineBits)) - 1);
 
     // NOTE: Do not change this. The version counter is set to start a 1 because 0 is the default
     // empty version.
-    this.versionCounter = 1;
-    this.successorCounter = 1;
-    this.itemCounter = 1;
+    this.versionCounter = new Counter("version", blockSource, blockSize, this.prefix, lastId);
+
+    if (globallyUnique) {
+      this.successorCounter = this.versionCounter;
+      this.itemCounter = this.versionCounter;
+    } else {
+      this.successorCounter = new Counter("successor", blockSource, blockSize, this.prefix, lastId);
+      this.itemCounter = new Counter("item", blockSource, blockSize, this.prefix, lastId);
+    }
+  }
 
-    this.globallyUnique = globallyUnique;
+  public long generateVersionId() throws GroundException {
+    return prefix | this.versionCounter.next();
   }
 
-  public synchronized long generateVersionId() {
-    return prefix | this.versionCounter++;
+  /**
+   * Generate ids for many versions at once. Ids are taken from the current block with a single
+   * atomic add where it has room, so a batch costs about as much as one id.
+   *
+   * @param count the number of ids
+   * @return the new ids, in increasing order
+   */
+  public long[] generateVersionIds(int count) throws GroundException {
+    long[] ids = this.versionCounter.next(count);
+
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = prefix | ids[i];
+    }
+
+    return ids;
   }
 
   /**
@@ -70,12 +107,8 @@ public class IdGenerator {
    *
    * @return a new id
    */
-  public synchronized long generateSuccessorId() {
-    if (this.globallyUnique) {
-      return prefix | this.versionCounter++;
-    } else {
-      return prefix | this.successorCounter++;
-    }
+  public long generateSuccessorId() throws GroundException {
+    return prefix | this.successorCounter.next();
   }
 
   /**
@@ -83,11 +116,90 @@ public class IdGenerator {
    *
    * @return a new id
    */
-  public synchronized long generateItemId() {
-    if (this.globallyUnique) {
-      return prefix | this.versionCounter++;
-    } else {
-      return prefix | this.itemCounter++;
+  public long generateItemId() throws GroundException {
+    return prefix | this.itemCounter.next();
+  }
+
+  private static final class Block {
+
+    private final AtomicLong next;
+    private final long end;
+
+    private Block(long first, long end) {
+      this.next = new AtomicLong(first);
+      this.end = end;
+    }
+  }
+
+  private static final class Counter {
+
+    private final String name;
+    private final IdBlockSource blockSource;
+    private final long blockSize;
+    private final long firstId;
+    private final long lastId;
+    private volatile Block block;
+    private boolean seeded = false;
+
+    private Counter(String name, IdBlockSource blockSource, long blockSize, long firstId, long lastId) {
+      this.name = name;
+      this.blockSource = blockSource;
+      this.blockSize = blockSize;
+      this.firstId = firstId;
+      this.lastId = lastId;
+
+      // without a block source, the whole id space is one block that starts at 1
+      this.block = blockSource == null ? new Block(1, Long.MAX_VALUE) : new Block(0, 0);
+    }
+
+    private long next() throws GroundException {
+      while (true) {
+        Block current = this.block;
+        long id = current.next.getAndIncrement();
+
+        if (id < current.end) {
+          return id;
+        }
+
+        this.renew(current);
+      }
+    }
+
+    private long[] next(int count) throws GroundException {
+      long[] ids = new long[count];
+      int filled = 0;
+
+      while (filled < count) {
+        Block current = this.block;
+        long first = current.next.getAndAdd(count - filled);
+        long end = Math.min(first + count - filled, current.end);
+
+        for (long id = first; id < end; id++) {
+          ids[filled++] = id;
+        }
+
+        // the rest of the batch comes from the next block
+        if (filled < count) {
+          this.renew(current);
+        }
+      }
+
+      return ids;
+    }
+
+    private void renew(Block current) throws GroundException {
+      // only the first thread to find the block exhausted leases a new one; the rest retry on it
+      synchronized (this) {
+        if (this.block == current) {
+          if (!this.seeded) {
+            this.blockSource.seed(this.name, this.firstId, this.lastId);
+            this.seeded = true;
+          }
+
+          long first = this.blockSource.leaseBlock(this.name, this.blockSize);
+          this.block = new Block(first, first + this.blockSize);
+        }
+      }
     }
   }
 }
@@ -0,0 +1,237 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.common.util;
+
+import java.util.Arrays;
+
+/**
+ * The edges of a directed graph over primitive long vertex ids, indexed in both directions.
+ * Vertices are numbered densely in the order they are first seen, and an open-addressing table of
+ * ints maps ids to those numbers. Each edge is a record of four ints: its parent and child
+ * vertices, and links to the next edge with the same parent and the next with the same child, so
+ * every vertex only keeps the first edge of each list however many parents and children it has.
+ */
+public class LongAdjacency {
+
+  private static final long[] NO_VERTICES = new long[0];
+  private static final int NONE = -1;
+
+  // vertex number + 1 for each id hashed to the slot, 0 for an unused slot
+  private int[] slots;
+
+  // per vertex number: its id, and its newest outgoing and incoming edge
+  private long[] vertices;
+  private int[] lastChildEdges;
+  private int[] lastParentEdges;
+  private int vertexCount;
+
+  // per edge: its parent and child vertex numbers, and the previous edge with the same parent and
+  // with the same child
+  private int[] edgeParents;
+  private int[] edgeChildren;
+  private int[] previousSiblingEdges;
+  private int[] previousCoParentEdges;
+  private int edgeCount;
+
+  public LongAdjacency() {
+    this(8);
+  }
+
+  /**
+   * Create an index that can hold the given number of vertices before it has to grow.
+   *
+   * @param expectedVertices the number of vertices expected
+   */
+  public LongAdjacency(int expectedVertices) {
+    this(expectedVertices, expectedVertices);
+  }
+
+  /**
+   * Create an index that can hold the given numbers of vertices and edges before it has to grow.
+   *
+   * @param expectedVertices the number of vertices expected
+   * @param expectedEdges the number of edges expected
+   */
+  public LongAdjacency(int expectedVertices, int expectedEdges) {
+    int vertexCapacity = Math.max(1, expectedVertices);
+    int edgeCapacity = Math.max(1, expectedEdges);
+
+    this.slots = new int[LongHashing.tableSize(vertexCapacity)];
+    this.vertices = new long[vertexCapacity];
+    this.lastChildEdges = new int[vertexCapacity];
+    this.lastParentEdges = new int[vertexCapacity];
+
+    this.edgeParents = new int[edgeCapacity];
+    this.edgeChildren = new int[edgeCapacity];
+    this.previousSiblingEdges = new int[edgeCapacity];
+    this.previousCoParentEdges = new int[edgeCapacity];
+  }
+
+  /**
+   * Add an edge, unless it is already present.
+   *
+   * @param parent the vertex the edge starts at
+   * @param child the vertex the edge ends at
+   * @return true if the edge was added
+   */
+  public boolean addEdge(long parent, long child) {
+    int parentVertex = this.findOrInsert(parent);
+    int childVertex = this.findOrInsert(child);
+
+    for (int edge = this.lastChildEdges[parentVertex]; edge != NONE; edge = this.previousSiblingEdges[edge]) {
+      if (this.edgeChildren[edge] == childVertex) {
+        return false;
+      }
+    }
+
+    if (this.edgeCount == this.edgeParents.length) {
+      int capacity = grow(this.edgeCount);
+      this.edgeParents = Arrays.copyOf(this.edgeParents, capacity);
+      this.edgeChildren = Arrays.copyOf(this.edgeChildren, capacity);
+      this.previousSiblingEdges = Arrays.copyOf(this.previousSiblingEdges, capacity);
+      this.previousCoParentEdges = Arrays.copyOf(this.previousCoParentEdges, capacity);
+    }
+
+    int edge = this.edgeCount++;
+    this.edgeParents[edge] = parentVertex;
+    this.edgeChildren[edge] = childVertex;
+    this.previousSiblingEdges[edge] = this.lastChildEdges[parentVertex];
+    this.previousCoParentEdges[edge] = this.lastParentEdges[childVertex];
+    this.lastChildEdges[parentVertex] = edge;
+    this.lastParentEdges[childVertex] = edge;
+
+    return true;
+  }
+
+  public boolean contains(long vertex) {
+    return this.find(vertex) != NONE;
+  }
+
+  public boolean hasChildren(long vertex) {
+    int number = this.find(vertex);
+    return number != NONE && this.lastChildEdges[number] != NONE;
+  }
+
+  /**
+   * Get the parents of a vertex.
+   *
+   * @param vertex the vertex
+   * @return the parents, in the order their edges were added
+   */
+  public long[] getParents(long vertex) {
+    int number = this.find(vertex);
+    return number == NONE ? NO_VERTICES : this.collect(this.lastParentEdges[number], this.previousCoParentEdges, this.edgeParents);
+  }
+
+  /**
+   * Get the children of a vertex.
+   *
+   * @param vertex the vertex
+   * @return the children, in the order their edges were added
+   */
+  public long[] getChildren(long vertex) {
+    int number = this.find(vertex);
+    return number == NONE ? NO_VERTICES : this.collect(this.lastChildEdges[number], this.previousSiblingEdges, this.edgeChildren);
+  }
+
+  /**
+   * Get every vertex that has at least one child.
+   *
+   * @return the vertices, in no particular order
+   */
+  public long[] getParentVertices() {
+    LongList result = new LongList();
+
+    for (int number = 0; number < this.vertexCount; number++) {
+      if (this.lastChildEdges[number] != NONE) {
+        result.addLong(this.vertices[number]);
+      }
+    }
+
+    return result.toLongArray();
+  }
+
+  // the lists are linked from their newest edge back, so they are filled in from the end
+  private long[] collect(int lastEdge, int[] previousEdges, int[] ends) {
+    int count = 0;
+    for (int edge = lastEdge; edge != NONE; edge = previousEdges[edge]) {
+      count++;
+    }
+
+    if (count == 0) {
+      return NO_VERTICES;
+    }
+
+    long[] result = new long[count];
+    for (int edge = lastEdge; edge != NONE; edge = previousEdges[edge]) {
+      result[--count] = this.vertices[ends[edge]];
+    }
+
+    return result;
+  }
+
+  // the number of a vertex, or NONE if it is not present
+  private int find(long vertex) {
+    int slot = this.slotOf(vertex);
+    return this.slots[slot] - 1;
+  }
+
+  private int slotOf(long vertex) {
+    int slot = LongHashing.index(vertex, this.slots.length);
+
+    while (this.slots[slot] != 0 && this.vertices[this.slots[slot] - 1] != vertex) {
+      slot = LongHashing.next(slot, this.slots.length);
+    }
+
+    return slot;
+  }
+
+  private int findOrInsert(long vertex) {
+    int slot = this.slotOf(vertex);
+
+    if (this.slots[slot] != 0) {
+      return this.slots[slot] - 1;
+    }
+
+    if (LongHashing.isOverloaded(this.vertexCount + 1, this.slots.length)) {
+      this.rehash(LongHashing.grow(this.slots.length));
+      slot = this.slotOf(vertex);
+    }
+
+    if (this.vertexCount == this.vertices.length) {
+      int capacity = grow(this.vertexCount);
+      this.vertices = Arrays.copyOf(this.vertices, capacity);
+      this.lastChildEdges = Arrays.copyOf(this.lastChildEdges, capacity);
+      this.lastParentEdges = Arrays.copyOf(this.lastParentEdges, capacity);
+    }
+
+    int number = this.vertexCount++;
+    this.vertices[number] = vertex;
+    this.lastChildEdges[number] = NONE;
+    this.lastParentEdges[number] = NONE;
+    this.slots[slot] = number + 1;
+
+    return number;
+  }
+
+  private static int grow(int length) {
+    return Math.max(8, LongHashing.grow(length));
+  }
+
+  private void rehash(int capacity) {
+    this.slots = new int[capacity];
+
+    for (int number = 0; number < this.vertexCount; number++) {
+      this.slots[this.slotOf(this.vertices[number])] = number + 1;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.common.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs, stored in a single open-addressing table with linear probing.
+ */
+public class LongHashSet {
+
+  // marks an unused slot; the value itself is tracked separately
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private long[] slots;
+  private int size;
+  private boolean containsEmpty;
+
+  public LongHashSet() {
+    this(8);
+  }
+
+  /**
+   * Create a set that can hold the given number of values before it has to grow.
+   *
+   * @param expectedSize the number of values expected
+   */
+  public LongHashSet(int expectedSize) {
+    this.allocate(LongHashing.tableSize(expectedSize));
+  }
+
+  /**
+   * Add a value to the set.
+   *
+   * @param value the value to add
+   * @return true if the value was not in the set before
+   */
+  public boolean add(long value) {
+    if (value == EMPTY) {
+      boolean added = !this.containsEmpty;
+      this.containsEmpty = true;
+      return added;
+    }
+
+    int slot = this.find(value);
+    if (this.slots[slot] == value) {
+      return false;
+    }
+
+    if (LongHashing.isOverloaded(this.size + 1, this.slots.length)) {
+      this.grow();
+      slot = this.find(value);
+    }
+
+    this.slots[slot] = value;
+    this.size++;
+    return true;
+  }
+
+  /**
+   * Remove a value from the set.
+   *
+   * @param value the value to remove
+   * @return true if the value was in the set
+   */
+  public boolean remove(long value) {
+    if (value == EMPTY) {
+      boolean removed = this.containsEmpty;
+      this.containsEmpty = false;
+      return removed;
+    }
+
+    int gap = this.find(value);
+    if (this.slots[gap] != value) {
+      return false;
+    }
+
+    // shift later members of the probe run back so that lookups never stop early at the hole
+    int slot = gap;
+    while (true) {
+      slot = LongHashing.next(slot, this.slots.length);
+      long candidate = this.slots[slot];
+      if (candidate == EMPTY) {
+        break;
+      }
+
+      int home = LongHashing.index(candidate, this.slots.length);
+      boolean homeBetween = gap <= slot ? (gap < home && home <= slot) : (gap < home || home <= slot);
+      if (!homeBetween) {
+        this.slots[gap] = candidate;
+        gap = slot;
+      }
+    }
+
+    this.slots[gap] = EMPTY;
+    this.size--;
+    return true;
+  }
+
+  public boolean contains(long value) {
+    if (value == EMPTY) {
+      return this.containsEmpty;
+    }
+
+    return this.slots[this.find(value)] == value;
+  }
+
+  public int size() {
+    return this.size + (this.containsEmpty ? 1 : 0);
+  }
+
+  /**
+   * Copy the members of the set into a list, in no particular order.
+   *
+   * @return the members of the set
+   */
+  public LongList toList() {
+    LongList result = new LongList(this.size());
+
+    if (this.containsEmpty) {
+      result.addLong(EMPTY);
+    }
+
+    for (long value : this.slots) {
+      if (value != EMPTY) {
+        result.addLong(value);
+      }
+    }
+
+    return result;
+  }
+
+  private int find(long value) {
+    int slot = LongHashing.index(value, this.slots.length);
+
+    while (this.slots[slot] != EMPTY && this.slots[slot] != value) {
+      slot = LongHashing.next(slot, this.slots.length);
+    }
+
+    return slot;
+  }
+
+  private void allocate(int capacity) {
+    this.slots = new long[capacity];
+    Arrays.fill(this.slots, EMPTY);
+  }
+
+  private void grow() {
+    long[] oldSlots = this.slots;
+    this.allocate(LongHashing.grow(oldSlots.length));
+
+    for (long value : oldSlots) {
+      if (value != EMPTY) {
+        this.slots[this.find(value)] = value;
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.common.util;
+
+/**
+ * Table sizing and hashing shared by the primitive long collections. Tables are not restricted to
+ * powers of two, so that they can grow by half at a time and waste less memory when large.
+ */
+final class LongHashing {
+
+  private static final int MIN_CAPACITY = 4;
+
+  private LongHashing() {
+  }
+
+  /**
+   * The home slot of a value in a table of the given capacity.
+   */
+  static int index(long value, int capacity) {
+    long mixed = value * 0x9E3779B97F4A7C15L;
+    int hash = (int) (mixed ^ (mixed >>> 32));
+
+    // maps the hash onto [0, capacity) without a division
+    return (int) (((hash & 0xFFFFFFFFL) * capacity) >>> 32);
+  }
+
+  static int next(int slot, int capacity) {
+    return slot + 1 == capacity ? 0 : slot + 1;
+  }
+
+  /**
+   * The table size that holds the given number of entries without exceeding the load factor.
+   */
+  static int tableSize(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+
+    while (isOverloaded(expectedSize, capacity)) {
+      capacity = grow(capacity);
+    }
+
+    return capacity;
+  }
+
+  static int grow(int capacity) {
+    return capacity + (capacity >> 1);
+  }
+
+  // tables are kept at most 3/4 full
+  static boolean isOverloaded(int size, int capacity) {
+    return (long) size * 4 > (long) capacity * 3;
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.common.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A growable list of primitive longs. It is exposed as a List of Longs so that it can be handed
+ * out directly, but values are only boxed when they are read through that interface.
+ */
+public class LongList extends AbstractList<Long> implements RandomAccess {
+
+  private long[] values;
+  private int size;
+
+  public LongList() {
+    this(8);
+  }
+
+  public LongList(int initialCapacity) {
+    this.values = new long[Math.max(1, initialCapacity)];
+  }
+
+  /**
+   * Append a value to the end of the list.
+   *
+   * @param value the value to append
+   */
+  public void addLong(long value) {
+    if (this.size == this.values.length) {
+      this.values = Arrays.copyOf(this.values, this.size * 2);
+    }
+
+    this.values[this.size++] = value;
+  }
+
+  public long getLong(int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException(String.format("Index %d, size %d.", index, this.size));
+    }
+
+    return this.values[index];
+  }
+
+  /**
+   * Copy the values into an array.
+   *
+   * @return the values, in list order
+   */
+  public long[] toLongArray() {
+    return Arrays.copyOf(this.values, this.size);
+  }
+
+  @Override
+  public Long get(int index) {
+    return this.getLong(index);
+  }
+
+  @Override
+  public boolean add(Long value) {
+    this.addLong(value);
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+}
@@ -0,0 +1,107 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.common.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded, concurrent string dictionary, so that the few hundred distinct tag keys and attribute
+ * names repeated across many versions share one String each. Once the dictionary is full, new
+ * strings are returned as they are rather than evicting anything, so a flood of one-off keys can
+ * neither grow it without bound nor push out the common ones.
+ */
+public class StringInterner {
+
+  private static final int DEFAULT_MAX_SIZE = 10000;
+
+  // the dictionary for tag keys and structure attribute names, sized by ground.intern.max.size
+  private static final StringInterner KEYS = new StringInterner(Integer.getInteger("ground.intern.max.size", DEFAULT_MAX_SIZE));
+
+  private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+  private final int maxSize;
+
+  public StringInterner(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * The canonical copy of a tag key or attribute name.
+   *
+   * @param key the key
+   * @return the shared copy of the key, or the key itself
+   */
+  public static String internKey(String key) {
+    return KEYS.intern(key);
+  }
+
+  /**
+   * A map with canonical keys, for maps keyed by tag key or attribute name. The map itself is
+   * returned if its keys are canonical already.
+   *
+   * @param map the map
+   * @param <V> the type of the values
+   * @return a map with the same entries and canonical keys
+   */
+  public static <V> Map<String, V> internKeys(Map<String, V> map) {
+    boolean canonical = true;
+    for (String key : map.keySet()) {
+      if (key != null && KEYS.intern(key) != key) {
+        canonical = false;
+        break;
+      }
+    }
+
+    if (canonical) {
+      return map;
+    }
+
+    Map<String, V> interned = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+    map.forEach((key, value) -> interned.put(key == null ? null : KEYS.intern(key), value));
+    return interned;
+  }
+
+  /**
+   * The canonical copy of a string.
+   *
+   * @param string the string
+   * @return the shared copy, or the string itself if it is null or the dictionary is full
+   */
+  public String intern(String string) {
+    if (string == null) {
+      return null;
+    }
+
+    String canonical = this.strings.get(string);
+    if (canonical != null) {
+      return canonical;
+    }
+
+    if (this.strings.size() >= this.maxSize) {
+      return string;
+    }
+
+    canonical = this.strings.putIfAbsent(string, string);
+    return canonical == null ? string : canonical;
+  }
+
+  /**
+   * The number of strings in the dictionary.
+   *
+   * @return the dictionary size
+   */
+  public int size() {
+    return this.strings.size();
+  }
+}
@@ -0,0 +1,74 @@
+package edu.berkeley.ground.common.model.versions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import edu.berkeley.ground.common.model.version.VersionHistoryDag;
+import edu.berkeley.ground.common.model.version.VersionSuccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Test;
+
+public class VersionHistoryDagTest {
+
+  @Test
+  public void testLoadedIndexes() {
+    List<VersionSuccessor> edges = new ArrayList<>();
+    edges.add(new VersionSuccessor(10, 0, 1));
+    edges.add(new VersionSuccessor(11, 1, 2));
+    edges.add(new VersionSuccessor(12, 1, 3));
+    edges.add(new VersionSuccessor(13, 2, 4));
+    edges.add(new VersionSuccessor(14, 3, 4));
+
+    VersionHistoryDag dag = new VersionHistoryDag(100, edges);
+
+    assertEquals(Arrays.asList(4L), dag.getLeaves());
+    assertEquals(new HashSet<>(Arrays.asList(2L, 3L)), new HashSet<>(dag.getParent(4)));
+    assertEquals(Arrays.asList(0L), dag.getParent(1));
+    assertEquals(0, dag.getParent(0).size());
+    assertEquals(0, dag.getParent(5).size());
+
+    assertTrue(dag.checkItemInDag(0));
+    assertTrue(dag.checkItemInDag(4));
+    assertFalse(dag.checkItemInDag(5));
+  }
+
+  @Test
+  public void testAddEdgeUpdatesLeaves() {
+    VersionHistoryDag dag = new VersionHistoryDag(100, new ArrayList<>());
+
+    assertEquals(0, dag.getLeaves().size());
+    assertFalse(dag.checkItemInDag(1));
+
+    dag.addEdge(0, 1, 10);
+    assertEquals(Arrays.asList(1L), dag.getLeaves());
+    assertTrue(dag.checkItemInDag(1));
+
+    dag.addEdge(0, 2, 11);
+    assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(dag.getLeaves()));
+
+    dag.addEdge(1, 3, 12);
+    dag.addEdge(2, 3, 13);
+    assertEquals(Arrays.asList(3L), dag.getLeaves());
+    assertEquals(Arrays.asList(1L, 2L), dag.getParent(3));
+    assertEquals(Arrays.asList(10L, 11L, 12L, 13L), dag.getEdgeIds());
+  }
+
+  @Test
+  public void testManyVersions() {
+    VersionHistoryDag dag = new VersionHistoryDag(100, new ArrayList<>());
+
+    for (long id = 1; id <= 10000; id++) {
+      dag.addEdge(id - 1, id, id + 100000);
+    }
+
+    assertEquals(Arrays.asList(10000L), dag.getLeaves());
+    assertEquals(Arrays.asList(4999L), dag.getParent(5000));
+    assertEquals(10000, dag.getEdgeIds().size());
+    assertEquals(100001L, (long) dag.getEdgeIds().get(0));
+    assertEquals(10000, dag.getParentChildPairs().size());
+  }
+}
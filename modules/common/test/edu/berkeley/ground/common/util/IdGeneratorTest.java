@@ -1,13 +1,25 @@
 package edu.berkeley.ground.common.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import edu.berkeley.ground.common.exception.GroundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 
 public class IdGeneratorTest {
 
   @Test
-  public void testMultipleMachineGenerator() {
+  public void testMultipleMachineGenerator() throws GroundException {
     IdGenerator generator = new IdGenerator(3, 4, false);
     long id = generator.generateItemId();
 
@@ -15,4 +27,125 @@ public class IdGeneratorTest {
 
     assertEquals(expected, id);
   }
+
+  @Test
+  public void testGloballyUniqueSharesCounter() throws GroundException {
+    IdGenerator generator = new IdGenerator(0, 1, true);
+
+    assertEquals(1, generator.generateVersionId());
+    assertEquals(2, generator.generateSuccessorId());
+    assertEquals(3, generator.generateItemId());
+  }
+
+  @Test
+  public void testBlockLeasing() throws GroundException {
+    CountingBlockSource blockSource = new CountingBlockSource();
+    IdGenerator generator = new IdGenerator(1, 2, false, blockSource, 10);
+
+    for (int i = 1; i <= 25; i++) {
+      assertEquals((1L << 63) | i, generator.generateVersionId());
+    }
+    assertEquals((1L << 63) | 1L, generator.generateItemId());
+
+    assertEquals(3, (int) blockSource.leases.get("version"));
+    assertEquals(1, (int) blockSource.leases.get("item"));
+  }
+
+  @Test
+  public void testBulkIdsSpanBlocks() throws GroundException {
+    CountingBlockSource blockSource = new CountingBlockSource();
+    IdGenerator generator = new IdGenerator(0, 1, true, blockSource, 10);
+
+    generator.generateVersionId();
+    long[] ids = generator.generateVersionIds(25);
+
+    assertEquals(25, ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      assertEquals(i + 2, ids[i]);
+    }
+    assertEquals(27, generator.generateVersionId());
+    assertEquals(3, (int) blockSource.leases.get("version"));
+  }
+
+  @Test
+  public void testRestartContinuesAfterLeasedBlocks() throws GroundException {
+    CountingBlockSource blockSource = new CountingBlockSource();
+
+    IdGenerator first = new IdGenerator(0, 1, true, blockSource, 10);
+    first.generateVersionId();
+    first.generateVersionId();
+
+    // a restarted generator skips the rest of the block the old one leased
+    IdGenerator second = new IdGenerator(0, 1, true, blockSource, 10);
+    assertEquals(11, second.generateVersionId());
+  }
+
+  @Test
+  public void testFirstLeaseSkipsIdsInUse() throws GroundException {
+    CountingBlockSource blockSource = new CountingBlockSource();
+    blockSource.usedCounter = 41;
+    IdGenerator generator = new IdGenerator(1, 2, false, blockSource, 10);
+
+    assertEquals((1L << 63) | 42L, generator.generateVersionId());
+    assertEquals((1L << 63) | 42L, generator.generateItemId());
+    for (int i = 0; i < 10; i++) {
+      generator.generateVersionId();
+    }
+
+    // each counter is seeded once, with the range of this machine's ids
+    assertEquals(2, blockSource.seeds.size());
+    assertEquals(1L << 63, blockSource.seeds.get("version")[0]);
+    assertEquals(-1L, blockSource.seeds.get("version")[1]);
+    assertEquals(2, (int) blockSource.leases.get("version"));
+  }
+
+  @Test
+  public void testConcurrentIdsAreUnique() throws Exception {
+    IdGenerator generator = new IdGenerator(0, 1, true, new CountingBlockSource(), 100);
+    Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int thread = 0; thread < 8; thread++) {
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 10000; i++) {
+          ids.add(generator.generateVersionId());
+        }
+        return null;
+      }));
+    }
+
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+
+    assertEquals(80000, ids.size());
+    assertTrue(ids.stream().allMatch(id -> id >= 1 && id <= 80000 + 8 * 100));
+  }
+
+  private static class CountingBlockSource implements IdBlockSource {
+
+    private final Map<String, Long> nextIds = new HashMap<>();
+    private final Map<String, Integer> leases = new HashMap<>();
+    private final Map<String, long[]> seeds = new HashMap<>();
+    // the highest counter value already in use, as if ids had been written before the store
+    private long usedCounter = 0;
+
+    @Override
+    public synchronized void seed(String counter, long firstId, long lastId) {
+      this.seeds.put(counter, new long[] {firstId, lastId});
+      this.nextIds.put(counter, Math.max(this.nextIds.getOrDefault(counter, 1L), this.usedCounter + 1));
+    }
+
+    @Override
+    public synchronized long leaseBlock(String counter, long blockSize) {
+      long first = this.nextIds.getOrDefault(counter, 1L);
+      this.nextIds.put(counter, first + blockSize);
+      this.leases.merge(counter, 1, Integer::sum);
+
+      return first;
+    }
+  }
 }
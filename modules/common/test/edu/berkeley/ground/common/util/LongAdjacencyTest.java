@@ -0,0 +1,52 @@
+package edu.berkeley.ground.common.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class LongAdjacencyTest {
+
+  @Test
+  public void testBothDirections() {
+    LongAdjacency adjacency = new LongAdjacency();
+
+    assertTrue(adjacency.addEdge(0, 1));
+    assertTrue(adjacency.addEdge(0, 2));
+    assertTrue(adjacency.addEdge(1, 3));
+    assertTrue(adjacency.addEdge(2, 3));
+    assertFalse(adjacency.addEdge(0, 2));
+
+    assertArrayEquals(new long[] {1, 2}, adjacency.getChildren(0));
+    assertArrayEquals(new long[] {1, 2}, adjacency.getParents(3));
+    assertArrayEquals(new long[] {0}, adjacency.getParents(2));
+    assertArrayEquals(new long[0], adjacency.getParents(0));
+    assertArrayEquals(new long[0], adjacency.getChildren(3));
+
+    assertTrue(adjacency.contains(3));
+    assertFalse(adjacency.contains(4));
+    assertTrue(adjacency.hasChildren(2));
+    assertFalse(adjacency.hasChildren(3));
+
+    long[] parents = adjacency.getParentVertices();
+    Arrays.sort(parents);
+    assertArrayEquals(new long[] {0, 1, 2}, parents);
+  }
+
+  @Test
+  public void testGrow() {
+    LongAdjacency adjacency = new LongAdjacency(1);
+
+    for (long vertex = 1; vertex <= 10000; vertex++) {
+      adjacency.addEdge(vertex - 1, vertex);
+      adjacency.addEdge(0, vertex + 20000);
+    }
+
+    assertArrayEquals(new long[] {4999}, adjacency.getParents(5000));
+    assertArrayEquals(new long[] {0}, adjacency.getParents(25000));
+    assertEquals(10001, adjacency.getChildren(0).length);
+  }
+}
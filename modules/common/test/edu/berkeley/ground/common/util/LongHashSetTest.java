@@ -0,0 +1,49 @@
+package edu.berkeley.ground.common.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+  @Test
+  public void testAddRemove() {
+    LongHashSet set = new LongHashSet();
+
+    assertTrue(set.add(0));
+    assertTrue(set.add(Long.MIN_VALUE));
+    assertFalse(set.add(0));
+    assertEquals(2, set.size());
+
+    assertTrue(set.contains(Long.MIN_VALUE));
+    assertTrue(set.remove(Long.MIN_VALUE));
+    assertFalse(set.contains(Long.MIN_VALUE));
+    assertFalse(set.remove(5));
+    assertEquals(1, set.size());
+  }
+
+  @Test
+  public void testMatchesHashSet() {
+    LongHashSet set = new LongHashSet();
+    Set<Long> expected = new HashSet<>();
+    Random random = new Random(7);
+
+    for (int i = 0; i < 100000; i++) {
+      long value = random.nextInt(5000);
+
+      if (random.nextBoolean()) {
+        assertEquals(expected.add(value), set.add(value));
+      } else {
+        assertEquals(expected.remove(value), set.remove(value));
+      }
+    }
+
+    assertEquals(expected.size(), set.size());
+    assertEquals(expected, new HashSet<>(set.toList()));
+  }
+}
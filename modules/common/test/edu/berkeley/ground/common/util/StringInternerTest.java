@@ -0,0 +1,46 @@
+package edu.berkeley.ground.common.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class StringInternerTest {
+
+  @Test
+  public void testEqualStringsShareOneCopy() {
+    StringInterner interner = new StringInterner(10);
+    String first = new String("owner");
+    String second = new String("owner");
+
+    assertSame(first, interner.intern(first));
+    assertSame(first, interner.intern(second));
+  }
+
+  @Test
+  public void testFullInternerReturnsNewStrings() {
+    StringInterner interner = new StringInterner(1);
+    interner.intern("owner");
+
+    String schema = new String("schema");
+    assertSame(schema, interner.intern(schema));
+    assertNotSame(schema, interner.intern(new String("schema")));
+    assertEquals(1, interner.size());
+  }
+
+  @Test
+  public void testInternKeys() {
+    Map<String, Integer> map = new HashMap<>();
+    map.put(new String("internKeysTest"), 1);
+
+    Map<String, Integer> interned = StringInterner.internKeys(map);
+    assertEquals(map, interned);
+    assertSame(interned, StringInterner.internKeys(interned));
+
+    String key = interned.keySet().iterator().next();
+    assertSame(key, StringInterner.internKey(new String("internKeysTest")));
+  }
+}
@@ -1,6 +1,14 @@
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.typesafe.config.Config;
+import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.ItemChangeSubscriber;
 import edu.berkeley.ground.postgres.start.ApplicationStart;
+import edu.berkeley.ground.postgres.util.PostgresIdBlockSource;
 import java.time.Clock;
+import javax.inject.Singleton;
+import play.api.Configuration;
+import play.db.Database;
 
 public class Module extends AbstractModule {
 
@@ -8,5 +16,16 @@ public class Module extends AbstractModule {
   public void configure() {
     bind(Clock.class).toInstance(Clock.systemDefaultZone());
     bind(ApplicationStart.class).asEagerSingleton();
+    bind(ItemChangeSubscriber.class).asEagerSingleton();
+  }
+
+  @Provides
+  @Singleton
+  IdGenerator provideIdGenerator(final Configuration configuration, final Database dbSource) {
+    Config config = configuration.underlying();
+    long blockSize = config.getLong("ground.id.block.size");
+
+    return new IdGenerator(config.getLong("ground.id.machine.id"), config.getLong("ground.id.machine.count"),
+      config.getBoolean("ground.id.globally.unique"), blockSize > 0 ? new PostgresIdBlockSource(dbSource) : null, blockSize);
   }
 }
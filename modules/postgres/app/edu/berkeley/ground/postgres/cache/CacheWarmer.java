@@ -0,0 +1,247 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.cache;
+
+import com.google.common.util.concurrent.RateLimiter;
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.dao.SqlConstants;
+import edu.berkeley.ground.postgres.dao.core.PostgresEdgeDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresEdgeVersionDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresGraphDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresGraphVersionDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresNodeDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresNodeVersionDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresStructureDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresStructureVersionDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageEdgeDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageEdgeVersionDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageGraphDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageGraphVersionDao;
+import edu.berkeley.ground.postgres.dao.version.PostgresItemDao;
+import edu.berkeley.ground.postgres.dao.version.PostgresVersionDao;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.Logger;
+import play.api.Configuration;
+import play.db.Database;
+import play.inject.ApplicationLifecycle;
+import play.libs.Json;
+
+/**
+ * Refills the caches in the background after a start, so that the first requests after a deploy
+ * do not all miss. For every Item type it warms the SourceKeyIndex (source keys and item ids),
+ * then loads the leaves of the ground.cache.warmup.leaves most recently updated Items and the
+ * ground.cache.warmup.versions most recent versions into the GroundCache, under the same keys the
+ * controllers use.
+ *
+ * <p>At most ground.cache.warmup.threads loads run at once, and no more than
+ * ground.cache.warmup.rate start per second, so that live traffic keeps most of the connection
+ * pool. Items are ordered by their newest leaf, which follows update order as long as version ids
+ * come from one machine.
+ */
+@Singleton
+public class CacheWarmer {
+
+  private static final int PROGRESS_INTERVAL = 1000;
+
+  private final GroundCache cache;
+  private final Database dbSource;
+  private final List<WarmedType> types;
+  private final boolean warmSourceKeys;
+  private final int leaves;
+  private final int versions;
+  private final int threads;
+  private final double rate;
+
+  private volatile boolean running;
+  private ExecutorService executor;
+  private Thread coordinator;
+
+  @Inject
+  public CacheWarmer(final Configuration configuration, final Database dbSource, final GroundCache cache, final IdGenerator idGenerator,
+                     final ApplicationLifecycle appLifecycle) {
+    this.cache = cache;
+    this.dbSource = dbSource;
+    this.warmSourceKeys = configuration.underlying().getBoolean("ground.cache.source.keys.warm");
+    this.leaves = configuration.underlying().getInt("ground.cache.warmup.leaves");
+    this.versions = configuration.underlying().getInt("ground.cache.warmup.versions");
+    this.threads = Math.max(1, configuration.underlying().getInt("ground.cache.warmup.threads"));
+    this.rate = configuration.underlying().getDouble("ground.cache.warmup.rate");
+
+    this.types = Arrays.asList(
+      new WarmedType("node", new PostgresNodeDao(dbSource, idGenerator), new PostgresNodeVersionDao(dbSource, idGenerator)),
+      new WarmedType("edge", new PostgresEdgeDao(dbSource, idGenerator), new PostgresEdgeVersionDao(dbSource, idGenerator)),
+      new WarmedType("graph", new PostgresGraphDao(dbSource, idGenerator), new PostgresGraphVersionDao(dbSource, idGenerator)),
+      new WarmedType("structure", new PostgresStructureDao(dbSource, idGenerator), new PostgresStructureVersionDao(dbSource, idGenerator)),
+      new WarmedType("lineage_edge", new PostgresLineageEdgeDao(dbSource, idGenerator),
+        new PostgresLineageEdgeVersionDao(dbSource, idGenerator)),
+      new WarmedType("lineage_graph", new PostgresLineageGraphDao(dbSource, idGenerator),
+        new PostgresLineageGraphVersionDao(dbSource, idGenerator)));
+
+    appLifecycle.addStopHook(
+      () -> {
+        this.stop();
+        return CompletableFuture.completedFuture(null);
+      });
+  }
+
+  /**
+   * Start warming in the background, unless there is nothing configured to warm.
+   */
+  public synchronized void start() {
+    if (this.running || (!this.warmSourceKeys && this.leaves <= 0 && this.versions <= 0)) {
+      return;
+    }
+
+    this.running = true;
+    this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+      Thread thread = new Thread(runnable, "ground-cache-warmer");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    this.coordinator = new Thread(this::run, "ground-cache-warmer-coordinator");
+    this.coordinator.setDaemon(true);
+    this.coordinator.start();
+  }
+
+  /**
+   * Abandon any warming still in progress.
+   */
+  public synchronized void stop() {
+    this.running = false;
+
+    if (this.executor != null) {
+      this.executor.shutdownNow();
+    }
+    if (this.coordinator != null && this.coordinator != Thread.currentThread()) {
+      this.coordinator.interrupt();
+    }
+  }
+
+  private void run() {
+    long start = System.nanoTime();
+    RateLimiter limiter = RateLimiter.create(this.rate);
+    Semaphore inFlight = new Semaphore(this.threads);
+    AtomicLong done = new AtomicLong();
+    AtomicLong failed = new AtomicLong();
+
+    Logger.info("Warming caches: source keys {}, {} leaves and {} versions per type, {} loads/s on {} threads.",
+      this.warmSourceKeys, this.leaves, this.versions, this.rate, this.threads);
+
+    try {
+      List<Runnable> loads = new ArrayList<>();
+
+      for (WarmedType type : this.types) {
+        if (!this.running) {
+          return;
+        }
+
+        loads.clear();
+        limiter.acquire();
+        try {
+          this.plan(type, loads);
+        } catch (GroundException e) {
+          // whatever is not warmed is loaded on first use instead
+          Logger.warn("Could not warm the {} caches: {}", type.prefix, e.getMessage());
+          continue;
+        }
+        Logger.info("Warming {} caches: {} entries queued.", type.prefix, loads.size());
+
+        for (Runnable load : loads) {
+          inFlight.acquire();
+          limiter.acquire();
+
+          if (!this.running) {
+            return;
+          }
+
+          CompletableFuture.runAsync(load, this.executor).whenComplete((value, error) -> {
+            inFlight.release();
+
+            if (error != null) {
+              failed.incrementAndGet();
+              Logger.debug("Could not warm a {} cache entry: {}", type.prefix, error.getMessage());
+            }
+            if (done.incrementAndGet() % PROGRESS_INTERVAL == 0) {
+              Logger.info("Warming caches: {} entries done, {} failed.", done.get(), failed.get());
+            }
+          });
+        }
+      }
+
+      // wait for the last loads
+      inFlight.acquire(this.threads);
+    } catch (InterruptedException e) {
+      return;
+    } catch (Exception e) {
+      Logger.error("Cache warm-up stopped early: {}", e.getMessage());
+    } finally {
+      this.stop();
+    }
+
+    Logger.info("Warmed caches in {} ms: {} entries done, {} failed.", (System.nanoTime() - start) / 1000000, done.get(), failed.get());
+  }
+
+  /**
+   * Warm a type's SourceKeyIndex, then list the cache loads to run for it.
+   */
+  private void plan(WarmedType type, List<Runnable> loads) throws GroundException {
+    if (this.warmSourceKeys) {
+      type.itemDao.warmSourceKeyIndex();
+    }
+
+    if (this.leaves > 0) {
+      List<String> sourceKeys = PostgresUtils.executeQuery(this.dbSource, String.format(SqlConstants.SELECT_RECENTLY_UPDATED_SOURCE_KEYS,
+        type.prefix), (resultSet, columns) -> resultSet.getString(columns.of("source_key")), this.leaves);
+
+      for (String sourceKey : sourceKeys) {
+        loads.add(() -> this.cache.getOrElseJsonAsync(type.prefix + "_leaves." + sourceKey,
+          () -> Json.toJson(type.itemDao.getLeaves(type.itemDao.resolveItemId(sourceKey))), Runnable::run).join());
+      }
+    }
+
+    if (this.versions > 0) {
+      List<Long> ids = PostgresUtils.executeQuery(this.dbSource, String.format(SqlConstants.SELECT_RECENT_VERSION_IDS, type.prefix + "_version"),
+        RowMapper.longColumn("id"), this.versions);
+
+      for (long id : ids) {
+        loads.add(() -> this.cache.getVersionJsonAsync(type.prefix + "_versions." + id,
+          () -> Json.toJson(type.versionDao.retrieveFromDatabase(id)), Runnable::run).join());
+      }
+    }
+  }
+
+  private static class WarmedType {
+
+    private final String prefix;
+    private final PostgresItemDao<?> itemDao;
+    private final PostgresVersionDao<?> versionDao;
+
+    private WarmedType(String prefix, PostgresItemDao<?> itemDao, PostgresVersionDao<?> versionDao) {
+      this.prefix = prefix;
+      this.itemDao = itemDao;
+      this.versionDao = versionDao;
+    }
+  }
+}
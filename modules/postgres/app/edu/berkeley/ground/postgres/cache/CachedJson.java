@@ -0,0 +1,191 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.cache;
+
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import play.libs.Json;
+import play.mvc.Http;
+import play.mvc.Http.HeaderNames;
+import play.mvc.Result;
+import play.mvc.Results;
+
+/**
+ * A cached JSON response body. It is either kept as a JsonNode tree and serialized on every hit,
+ * or encoded once into UTF-8 bytes (optionally gzipped) with an ETag, so that a hit writes the
+ * stored bytes as they are and conditional requests can be answered with 304.
+ */
+public final class CachedJson {
+
+  private static final String JSON = "application/json";
+  private static final String GZIP = "gzip";
+  private static final String GZIP_ETAG_SUFFIX = "-gzip\"";
+
+  private final JsonNode tree;
+  private final ByteString bytes;
+  private final boolean gzipped;
+  private final String etag;
+
+  private CachedJson(JsonNode tree, ByteString bytes, boolean gzipped, String etag) {
+    this.tree = tree;
+    this.bytes = bytes;
+    this.gzipped = gzipped;
+    this.etag = etag;
+  }
+
+  /**
+   * Wrap a JSON response for caching.
+   *
+   * @param json the response body
+   * @param encode if true, store the encoded bytes instead of the tree
+   * @param gzip if true (and encoding), gzip the stored bytes
+   * @return the cacheable response
+   */
+  public static CachedJson of(JsonNode json, boolean encode, boolean gzip) {
+    if (!encode) {
+      return new CachedJson(json, null, false, null);
+    }
+
+    byte[] utf8 = Json.stringify(json).getBytes(StandardCharsets.UTF_8);
+    String etag = "\"" + Hashing.murmur3_128().hashBytes(utf8).toString() + "\"";
+    byte[] body = gzip ? gzip(utf8) : utf8;
+
+    return new CachedJson(null, ByteString.fromArray(body), gzip, etag);
+  }
+
+  /**
+   * Serialize an encoded response, for storage outside the heap.
+   *
+   * @return the flags, ETag and body, in that order
+   */
+  public byte[] toBytes() {
+    if (this.bytes == null) {
+      throw new IllegalStateException("Only encoded responses can be serialized.");
+    }
+
+    byte[] etagBytes = this.etag.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + etagBytes.length + this.bytes.length());
+    buffer.put((byte) (this.gzipped ? 1 : 0)).putShort((short) etagBytes.length).put(etagBytes);
+    this.bytes.copyToBuffer(buffer);
+
+    return buffer.array();
+  }
+
+  /**
+   * Read back a response written by {@link #toBytes()}.
+   *
+   * @param serialized the serialized response
+   * @return the response
+   */
+  public static CachedJson fromBytes(byte[] serialized) {
+    ByteBuffer buffer = ByteBuffer.wrap(serialized);
+    boolean gzipped = buffer.get() == 1;
+    byte[] etagBytes = new byte[buffer.getShort()];
+    buffer.get(etagBytes);
+
+    ByteString body = ByteString.fromArray(serialized, buffer.position(), buffer.remaining());
+    return new CachedJson(null, body, gzipped, new String(etagBytes, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * The number of bytes the encoded body takes, or -1 if the tree is kept.
+   *
+   * @return the stored size
+   */
+  public int getEncodedSize() {
+    return this.bytes == null ? -1 : this.bytes.length();
+  }
+
+  /**
+   * Build the 200 (or 304) response for a request. The gzipped and identity bodies are different
+   * representations, so each has its own ETag, and encoded responses carry Vary: Accept-Encoding
+   * so that shared caches keep them apart.
+   *
+   * @param request the request being answered
+   * @return the response
+   */
+  public Result toResult(Http.Request request) {
+    if (this.bytes == null) {
+      return Results.ok(this.tree);
+    }
+
+    String acceptEncoding = request.getHeader(HeaderNames.ACCEPT_ENCODING);
+    boolean sendGzipped = this.gzipped && acceptEncoding != null && acceptEncoding.contains(GZIP);
+    String etag = sendGzipped ? this.etag.substring(0, this.etag.length() - 1) + GZIP_ETAG_SUFFIX : this.etag;
+
+    Result result;
+    if (matchesAny(request.getHeader(HeaderNames.IF_NONE_MATCH), etag)) {
+      result = Results.status(Http.Status.NOT_MODIFIED);
+    } else if (sendGzipped) {
+      result = Results.status(Http.Status.OK, this.bytes).as(JSON).withHeader(HeaderNames.CONTENT_ENCODING, GZIP);
+    } else {
+      ByteString body = this.gzipped ? ByteString.fromArray(gunzip(this.bytes.toArray())) : this.bytes;
+      result = Results.status(Http.Status.OK, body).as(JSON);
+    }
+
+    return result.withHeaders(HeaderNames.ETAG, etag, HeaderNames.VARY, HeaderNames.ACCEPT_ENCODING);
+  }
+
+  /**
+   * Whether an If-None-Match header names an ETag. The header may list several tags, or be "*";
+   * tags are compared weakly, as If-None-Match requires.
+   *
+   * @param ifNoneMatch the header, or null if there is none
+   * @param etag the ETag of the response
+   * @return true if the client already has the response
+   */
+  private static boolean matchesAny(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+
+    for (String tag : ifNoneMatch.split(",")) {
+      String trimmed = tag.trim();
+
+      if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return out.toByteArray();
+  }
+
+  private static byte[] gunzip(byte[] bytes) {
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return ByteStreams.toByteArray(gzip);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
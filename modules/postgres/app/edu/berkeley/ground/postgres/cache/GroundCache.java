@@ -0,0 +1,258 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.CaseFormat;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.api.Configuration;
+
+/**
+ * The controllers' response cache, split in two tiers. Versions never change once they are
+ * created, so the version tier is only bounded by size and never expires. Everything else (items,
+ * leaves, histories, adjacent lineage) changes as new versions are added, so the mutable tier
+ * expires entries after ground.cache.expire.secs and is invalidated as the DAOs report changes.
+ * Misses are loaded through a SingleFlight, so concurrent misses on one key share a single load.
+ * With ground.cache.encode set, JSON responses are cached as encoded bytes (gzipped too with
+ * ground.cache.gzip) and an ETag rather than as trees, so a hit skips serialization entirely.
+ * With ground.cache.versions.offheap.bytes set, version responses are kept encoded in an
+ * OffHeapStore instead of the heap tier, so that caching many versions does not grow the heap.
+ */
+@Singleton
+public class GroundCache implements ItemChangeListener {
+
+  private final Cache<String, Object> versions;
+  private final Cache<String, Object> mutable;
+  private final SingleFlight singleFlight = new SingleFlight();
+  private final boolean encode;
+  private final boolean gzip;
+  private final OffHeapStore offHeapVersions;
+
+  @Inject
+  public GroundCache(final Configuration configuration) {
+    this(configuration.underlying().getLong("ground.cache.versions.max.size"),
+      configuration.underlying().getLong("ground.cache.max.size"),
+      configuration.underlying().getLong("ground.cache.expire.secs"),
+      configuration.underlying().getBoolean("ground.cache.encode"),
+      configuration.underlying().getBoolean("ground.cache.gzip"),
+      createOffHeapStore(configuration));
+  }
+
+  private static OffHeapStore createOffHeapStore(Configuration configuration) {
+    long bytes = configuration.underlying().getBytes("ground.cache.versions.offheap.bytes");
+
+    if (bytes <= 0) {
+      return null;
+    }
+
+    return new OffHeapStore(bytes,
+      configuration.underlying().getBytes("ground.cache.versions.offheap.slab.bytes").intValue(),
+      configuration.underlying().getLong("ground.cache.versions.offheap.entries"));
+  }
+
+  /**
+   * Create a new cache.
+   *
+   * @param versionsMaxSize the most versions to keep
+   * @param mutableMaxSize the most entries to keep in the mutable tier
+   * @param expireSecs how long mutable entries live
+   */
+  public GroundCache(long versionsMaxSize, long mutableMaxSize, long expireSecs) {
+    this(versionsMaxSize, mutableMaxSize, expireSecs, false, false);
+  }
+
+  /**
+   * Create a new cache.
+   *
+   * @param versionsMaxSize the most versions to keep
+   * @param mutableMaxSize the most entries to keep in the mutable tier
+   * @param expireSecs how long mutable entries live
+   * @param encode if true, cache JSON responses as encoded bytes
+   * @param gzip if true (and encoding), gzip the encoded bytes
+   */
+  public GroundCache(long versionsMaxSize, long mutableMaxSize, long expireSecs, boolean encode, boolean gzip) {
+    this(versionsMaxSize, mutableMaxSize, expireSecs, encode, gzip, null);
+  }
+
+  /**
+   * Create a new cache.
+   *
+   * @param versionsMaxSize the most versions to keep on the heap
+   * @param mutableMaxSize the most entries to keep in the mutable tier
+   * @param expireSecs how long mutable entries live
+   * @param encode if true, cache JSON responses as encoded bytes
+   * @param gzip if true (and encoding), gzip the encoded bytes
+   * @param offHeapVersions if not null, where version responses are kept instead of the heap
+   */
+  public GroundCache(long versionsMaxSize, long mutableMaxSize, long expireSecs, boolean encode, boolean gzip,
+                     OffHeapStore offHeapVersions) {
+    this.encode = encode;
+    this.gzip = gzip;
+    this.offHeapVersions = offHeapVersions;
+
+    this.versions = CacheBuilder.newBuilder()
+                      .maximumSize(versionsMaxSize)
+                      .recordStats()
+                      .build();
+
+    this.mutable = CacheBuilder.newBuilder()
+                     .maximumSize(mutableMaxSize)
+                     .expireAfterWrite(expireSecs, TimeUnit.SECONDS)
+                     .recordStats()
+                     .build();
+  }
+
+  /**
+   * Get a version's JSON response without blocking, cached in the form the cache is configured
+   * to keep. Responses kept off the heap are always encoded.
+   *
+   * @param key the cache key
+   * @param loader loads the version's JSON on a miss
+   * @param executor runs the load
+   * @return the cached or loaded response
+   */
+  public CompletableFuture<CachedJson> getVersionJsonAsync(String key, Callable<JsonNode> loader, Executor executor) {
+    if (this.offHeapVersions == null) {
+      return getAsync(this.versions, key, () -> CachedJson.of(loader.call(), this.encode, this.gzip), executor);
+    }
+
+    byte[] stored = this.offHeapVersions.get(key);
+    if (stored != null) {
+      return CompletableFuture.completedFuture(CachedJson.fromBytes(stored));
+    }
+
+    // only encoded responses can leave the heap
+    return this.singleFlight.load(key, () -> CachedJson.of(loader.call(), true, this.gzip),
+      loaded -> this.offHeapVersions.put(key, loaded.toBytes()), executor);
+  }
+
+  /**
+   * Get a mutable entry's JSON response without blocking, cached in the form the cache is
+   * configured to keep.
+   *
+   * @param key the cache key
+   * @param loader loads the entry's JSON on a miss
+   * @param executor runs the load
+   * @return the cached or loaded response
+   */
+  public CompletableFuture<CachedJson> getOrElseJsonAsync(String key, Callable<JsonNode> loader, Executor executor) {
+    return getAsync(this.mutable, key, () -> CachedJson.of(loader.call(), this.encode, this.gzip), executor);
+  }
+
+  /**
+   * Drop mutable entries so that the next read reloads them. Loads of these keys that are already
+   * running are not cached.
+   *
+   * @param keys the keys to drop
+   */
+  public void invalidate(Iterable<String> keys) {
+    // forget first: a load stored before this is then evicted below, and one after it is dropped
+    this.singleFlight.forget(keys);
+    this.mutable.invalidateAll(keys);
+  }
+
+  /**
+   * Drop the leaves and history of a changed Item, keyed the way the controllers cache them, and
+   * the adjacent lineage of the versions its new versions link.
+   *
+   * @param change the committed change
+   */
+  @Override
+  public void onItemChange(ItemChange change) {
+    this.onItemChanges(Collections.singletonList(change));
+  }
+
+  /**
+   * Drop the leaves and history of several changed Items at once.
+   *
+   * @param changes the committed changes
+   */
+  public void onItemChanges(Collection<ItemChange> changes) {
+    List<String> keys = new ArrayList<>();
+
+    for (ItemChange change : changes) {
+      String prefix = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, change.getItemType().getSimpleName());
+      keys.add(prefix + "_leaves." + change.getSourceKey());
+      keys.add(prefix + "_history." + change.getSourceKey());
+
+      for (long versionId : change.getLinkedVersionIds()) {
+        keys.add("node_version_adj_lineage." + versionId);
+      }
+    }
+
+    this.invalidate(keys);
+  }
+
+  /**
+   * Drop every mutable entry, for when changes may have been missed.
+   */
+  public void invalidateAll() {
+    this.singleFlight.forgetAll();
+    this.mutable.invalidateAll();
+  }
+
+  /**
+   * Hit and miss counts of both tiers (and of the off-heap version store, if there is one), and
+   * how many misses were coalesced into another load.
+   *
+   * @return the statistics by name
+   */
+  public Map<String, Long> getStats() {
+    CacheStats versionStats = this.versions.stats();
+    CacheStats mutableStats = this.mutable.stats();
+
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("versionSize", this.versions.size());
+    stats.put("versionHits", versionStats.hitCount());
+    stats.put("versionMisses", versionStats.missCount());
+    stats.put("versionEvictions", versionStats.evictionCount());
+    if (this.offHeapVersions != null) {
+      stats.put("offHeapVersionSize", this.offHeapVersions.getSize());
+      stats.put("offHeapVersionHits", this.offHeapVersions.getHitCount());
+      stats.put("offHeapVersionMisses", this.offHeapVersions.getMissCount());
+      stats.put("offHeapVersionEvictions", this.offHeapVersions.getEvictionCount());
+    }
+    stats.put("mutableSize", this.mutable.size());
+    stats.put("mutableHits", mutableStats.hitCount());
+    stats.put("mutableMisses", mutableStats.missCount());
+    stats.put("mutableEvictions", mutableStats.evictionCount());
+    stats.put("loads", this.singleFlight.getLoadCount());
+    stats.put("coalesced", this.singleFlight.getCoalescedCount());
+    return stats;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> CompletableFuture<T> getAsync(Cache<String, Object> cache, String key, Callable<T> loader,
+                                            Executor executor) {
+    T value = (T) cache.getIfPresent(key);
+
+    if (value != null) {
+      return CompletableFuture.completedFuture(value);
+    }
+
+    return this.singleFlight.load(key, loader, loaded -> cache.put(key, loaded), executor);
+  }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.cache;
+
+import com.google.common.collect.Lists;
+import edu.berkeley.ground.common.model.core.Edge;
+import edu.berkeley.ground.common.model.core.Graph;
+import edu.berkeley.ground.common.model.core.Node;
+import edu.berkeley.ground.common.model.core.Structure;
+import edu.berkeley.ground.common.model.usage.LineageEdge;
+import edu.berkeley.ground.common.model.usage.LineageGraph;
+import edu.berkeley.ground.common.model.version.Item;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A committed change to an Item's version history, such as a new version. Changes are also sent to
+ * other instances over NOTIFY on {@link #CHANNEL}, as "type:itemId" payloads, followed by
+ * ":id,id,..." when the new versions link other versions.
+ */
+public class ItemChange {
+
+  public static final String CHANNEL = "ground_item_changes";
+
+  // keeps a payload of 20-digit ids well under Postgres' 8000 byte limit
+  private static final int MAX_LINKED_IDS_PER_PAYLOAD = 200;
+
+  private static final Map<String, Class<? extends Item>> ITEM_TYPES = Arrays.asList(Node.class, Edge.class, Graph.class, Structure.class,
+    LineageEdge.class, LineageGraph.class).stream().collect(Collectors.toMap(Class::getSimpleName, Function.identity()));
+
+  private final Class<? extends Item> itemType;
+  private final long itemId;
+  private final String sourceKey;
+  private final List<Long> linkedVersionIds;
+
+  /**
+   * Create a new change.
+   *
+   * @param itemType the type of the changed Item
+   * @param itemId the id of the changed Item
+   * @param sourceKey the source key of the changed Item
+   */
+  public ItemChange(Class<? extends Item> itemType, long itemId, String sourceKey) {
+    this(itemType, itemId, sourceKey, Collections.emptyList());
+  }
+
+  /**
+   * Create a new change to an Item whose new versions link other versions, such as the from and
+   * to versions of a lineage edge version.
+   *
+   * @param itemType the type of the changed Item
+   * @param itemId the id of the changed Item
+   * @param sourceKey the source key of the changed Item
+   * @param linkedVersionIds the versions the new versions link
+   */
+  public ItemChange(Class<? extends Item> itemType, long itemId, String sourceKey, List<Long> linkedVersionIds) {
+    this.itemType = itemType;
+    this.itemId = itemId;
+    this.sourceKey = sourceKey;
+    this.linkedVersionIds = linkedVersionIds;
+  }
+
+  public Class<? extends Item> getItemType() {
+    return this.itemType;
+  }
+
+  public long getItemId() {
+    return this.itemId;
+  }
+
+  public String getSourceKey() {
+    return this.sourceKey;
+  }
+
+  public List<Long> getLinkedVersionIds() {
+    return this.linkedVersionIds;
+  }
+
+  /**
+   * The NOTIFY payload for a change. It names the Item by type and id only: a source key has no
+   * length limit, and Postgres rejects payloads of 8000 bytes or more, so receivers look the key
+   * up themselves.
+   *
+   * @param itemType the type of the changed Item
+   * @param itemId the id of the changed Item
+   * @return the payload
+   */
+  public static String toPayload(Class<? extends Item> itemType, long itemId) {
+    return itemType.getSimpleName() + ":" + itemId;
+  }
+
+  /**
+   * The NOTIFY payloads for a change whose new versions link other versions. The linked ids are
+   * split over as many payloads as it takes to keep each one short.
+   *
+   * @param itemType the type of the changed Item
+   * @param itemId the id of the changed Item
+   * @param linkedVersionIds the versions the new versions link
+   * @return the payloads, at least one
+   */
+  public static List<String> toPayloads(Class<? extends Item> itemType, long itemId, List<Long> linkedVersionIds) {
+    String prefix = toPayload(itemType, itemId);
+
+    if (linkedVersionIds.isEmpty()) {
+      return Collections.singletonList(prefix);
+    }
+
+    List<String> payloads = new ArrayList<>();
+    for (List<Long> ids : Lists.partition(linkedVersionIds, MAX_LINKED_IDS_PER_PAYLOAD)) {
+      payloads.add(prefix + ":" + ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    return payloads;
+  }
+
+  /**
+   * Decode a NOTIFY payload. The change has no source key until the receiver looks it up.
+   *
+   * @param payload the payload, as built by {@link #toPayload} or {@link #toPayloads}
+   * @return the change, or null if the payload is not a change to a known Item type
+   */
+  public static ItemChange fromPayload(String payload) {
+    String[] fields = payload.split(":");
+
+    if (fields.length < 2 || fields.length > 3 || !ITEM_TYPES.containsKey(fields[0])) {
+      return null;
+    }
+
+    try {
+      List<Long> linkedVersionIds = new ArrayList<>();
+      if (fields.length == 3) {
+        for (String id : fields[2].split(",")) {
+          linkedVersionIds.add(Long.parseLong(id));
+        }
+      }
+
+      return new ItemChange(ITEM_TYPES.get(fields[0]), Long.parseLong(fields[1]), null, linkedVersionIds);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.itemType.getSimpleName() + " " + this.itemId + " (" + this.sourceKey + ")";
+  }
+}
@@ -0,0 +1,227 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.cache;
+
+import com.google.common.base.CaseFormat;
+import edu.berkeley.ground.common.model.version.Item;
+import edu.berkeley.ground.postgres.dao.SqlConstants;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import play.Logger;
+import play.api.Configuration;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Keeps this instance's cache in step with writes made by other instances. When ground.cache.notify
+ * is set, a background thread holds one connection that LISTENs on {@link ItemChange#CHANNEL} and
+ * polls it every ground.cache.notify.poll.millis; all the changes that arrived since the last poll
+ * are evicted from the GroundCache together, and the source keys of new Items are added to their
+ * type's SourceKeyIndex. Notifications carry only an Item's type and id, so the source keys this
+ * instance does not know yet are read back on the same connection.
+ *
+ * <p>The connection is opened to db.default directly rather than taken from its pool, so it does
+ * not shrink the pool left to requests, and it is closed rather than returned once the thread is
+ * done with it, so no pooled connection is ever left listening.
+ */
+@Singleton
+public class ItemChangeSubscriber {
+
+  private final String url;
+  private final Properties properties = new Properties();
+  private final GroundCache cache;
+  private final long pollMillis;
+
+  private volatile boolean running;
+  private Thread thread;
+
+  @Inject
+  public ItemChangeSubscriber(final Configuration configuration, final GroundCache cache, final ApplicationLifecycle appLifecycle) {
+    this.url = configuration.underlying().getString("db.default.url");
+    this.properties.setProperty("user", configuration.underlying().getString("db.default.username"));
+    this.properties.setProperty("password", configuration.underlying().getString("db.default.password"));
+    this.cache = cache;
+    this.pollMillis = configuration.underlying().getLong("ground.cache.notify.poll.millis");
+
+    if (!configuration.underlying().getBoolean("ground.cache.notify")) {
+      return;
+    }
+
+    this.running = true;
+    this.thread = new Thread(this::run, "ground-item-change-subscriber");
+    this.thread.setDaemon(true);
+    this.thread.start();
+
+    appLifecycle.addStopHook(
+      () -> {
+        this.running = false;
+        this.thread.interrupt();
+        return CompletableFuture.completedFuture(null);
+      });
+  }
+
+  private void run() {
+    while (this.running) {
+      try (Connection connection = this.connect()) {
+        this.listen(connection);
+      } catch (SQLException e) {
+        if (this.running) {
+          Logger.error("Lost the item change listener connection, reconnecting: {}", e.getMessage());
+        }
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      try {
+        Thread.sleep(this.pollMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private Connection connect() throws SQLException {
+    Connection connection = new Driver().connect(this.url, this.properties);
+
+    if (connection == null) {
+      throw new SQLException("Not a PostgreSQL URL: " + this.url);
+    }
+
+    return connection;
+  }
+
+  private void listen(Connection connection) throws SQLException, InterruptedException {
+    PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(String.format(SqlConstants.LISTEN, ItemChange.CHANNEL));
+
+      // anything written while we were not listening was missed
+      this.cache.invalidateAll();
+      Logger.info("Listening for item changes on {}.", ItemChange.CHANNEL);
+
+      while (this.running) {
+        // notifications are delivered along with the response to any query
+        statement.execute(SqlConstants.POLL_NOTIFICATIONS);
+        this.evict(connection, pgConnection.getNotifications());
+
+        Thread.sleep(this.pollMillis);
+      }
+    }
+  }
+
+  private void evict(Connection connection, PGNotification[] notifications) throws SQLException {
+    if (notifications == null || notifications.length == 0) {
+      return;
+    }
+
+    List<ItemChange> received = new ArrayList<>(notifications.length);
+    Map<Class<? extends Item>, Set<Long>> itemIds = new HashMap<>();
+    for (PGNotification notification : notifications) {
+      ItemChange change = ItemChange.fromPayload(notification.getParameter());
+
+      if (change == null) {
+        Logger.warn("Ignoring malformed item change notification: {}", notification.getParameter());
+      } else {
+        received.add(change);
+        itemIds.computeIfAbsent(change.getItemType(), type -> new LinkedHashSet<>()).add(change.getItemId());
+      }
+    }
+
+    Map<Class<? extends Item>, Map<Long, String>> sourceKeys = new HashMap<>();
+    for (Map.Entry<Class<? extends Item>, Set<Long>> entry : itemIds.entrySet()) {
+      sourceKeys.put(entry.getKey(), this.resolveSourceKeys(connection, entry.getKey(), entry.getValue()));
+    }
+
+    List<ItemChange> changes = new ArrayList<>(received.size());
+    boolean unresolved = false;
+    for (ItemChange change : received) {
+      String sourceKey = sourceKeys.get(change.getItemType()).get(change.getItemId());
+
+      if (sourceKey == null) {
+        unresolved = true;
+        continue;
+      }
+
+      // Item creates on other instances are only known to this one's existence filters from here
+      SourceKeyIndex index = SourceKeyIndex.of(change.getItemType());
+      index.add(sourceKey);
+      index.putItemId(sourceKey, change.getItemId());
+
+      changes.add(new ItemChange(change.getItemType(), change.getItemId(), sourceKey, change.getLinkedVersionIds()));
+    }
+
+    if (unresolved) {
+      Logger.warn("Could not find the source key of a changed item, evicting everything.");
+      this.cache.invalidateAll();
+      return;
+    }
+
+    Logger.debug("Evicting {} item changes.", changes.size());
+    this.cache.onItemChanges(changes);
+  }
+
+  /**
+   * The source keys of changed Items, which are not sent with their notifications. Keys this
+   * instance already knows come from the SourceKeyIndex; the rest are read in one query on the
+   * listening connection.
+   */
+  private Map<Long, String> resolveSourceKeys(Connection connection, Class<? extends Item> itemType, Set<Long> itemIds)
+    throws SQLException {
+
+    SourceKeyIndex index = SourceKeyIndex.of(itemType);
+    Map<Long, String> sourceKeys = new HashMap<>();
+    List<Long> missing = new ArrayList<>();
+
+    for (long itemId : itemIds) {
+      String sourceKey = index.getSourceKey(itemId);
+
+      if (sourceKey == null) {
+        missing.add(itemId);
+      } else {
+        sourceKeys.put(itemId, sourceKey);
+      }
+    }
+
+    if (missing.isEmpty()) {
+      return sourceKeys;
+    }
+
+    String table = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, itemType.getSimpleName());
+    try (PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SELECT_SOURCE_KEYS_BY_ITEM_IDS, table))) {
+      statement.setArray(1, connection.createArrayOf("bigint", missing.toArray()));
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          sourceKeys.put(resultSet.getLong(1), resultSet.getString(2));
+        }
+      }
+    }
+
+    return sourceKeys;
+  }
+}
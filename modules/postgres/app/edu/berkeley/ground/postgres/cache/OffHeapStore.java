@@ -0,0 +1,339 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.cache;
+
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A byte cache kept outside the Java heap, so that its size does not add to GC work. Entries are
+ * appended to a ring of direct ByteBuffer slabs; when the ring is full, the oldest slab is reused
+ * and everything in it is evicted at once. The index from key hashes to entry addresses lives in
+ * direct buffers as well, and each entry stores its full key, so a hash collision reads as a miss.
+ *
+ * <p>Puts are serialized. Gets do not block: they copy an entry out under an optimistic read of
+ * its slab's lock, and treat the copy as a miss if the slab was reused meanwhile.
+ */
+public class OffHeapStore {
+
+  private static final int HEADER_BYTES = 8;
+  private static final int SEGMENTS = 64;
+
+  private final int slabBytes;
+  private final ByteBuffer[] slabs;
+  private final StampedLock[] slabLocks;
+  // the sequence number of the slab each buffer currently holds
+  private final AtomicLongArray generations;
+  private final int[] slabEntries;
+  private final Segment[] segments;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder entries = new LongAdder();
+
+  // guarded by this
+  private long sequence = -1;
+  private int writeOffset;
+
+  /**
+   * Allocate a new store.
+   *
+   * @param totalBytes the bytes to allocate for entries, rounded down to whole slabs
+   * @param slabBytes the size of each slab, and so the largest entry that can be stored
+   * @param maxEntries the most entries the index can hold
+   */
+  public OffHeapStore(long totalBytes, int slabBytes, long maxEntries) {
+    int slabCount = (int) Math.max(2, totalBytes / slabBytes);
+
+    this.slabBytes = slabBytes;
+    this.slabs = new ByteBuffer[slabCount];
+    this.slabLocks = new StampedLock[slabCount];
+    this.generations = new AtomicLongArray(slabCount);
+    this.slabEntries = new int[slabCount];
+
+    for (int i = 0; i < slabCount; i++) {
+      this.slabs[i] = ByteBuffer.allocateDirect(slabBytes);
+      this.slabLocks[i] = new StampedLock();
+      this.generations.set(i, -1);
+    }
+
+    // twice the slots needed, so that probes stay short
+    int segmentSlots = Integer.highestOneBit((int) Math.max(16, Math.min(Integer.MAX_VALUE / 32, 2 * maxEntries / SEGMENTS)) * 2 - 1);
+    this.segments = new Segment[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; i++) {
+      this.segments[i] = new Segment(segmentSlots);
+    }
+
+    this.writeOffset = slabBytes;
+  }
+
+  /**
+   * Look up an entry.
+   *
+   * @param key the key
+   * @return a copy of the stored value, or null if there is none
+   */
+  public byte[] get(String key) {
+    long hash = hash(key);
+    long address = this.segmentFor(hash).get(hash);
+
+    byte[] value = address < 0 ? null : this.read(address, key.getBytes(StandardCharsets.UTF_8));
+    if (value == null) {
+      this.misses.increment();
+    } else {
+      this.hits.increment();
+    }
+
+    return value;
+  }
+
+  /**
+   * Store an entry, evicting the oldest slab if there is no room.
+   *
+   * @param key the key
+   * @param value the bytes to store
+   * @return false if the entry is larger than a slab, or the index is full
+   */
+  public boolean put(String key, byte[] value) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int length = HEADER_BYTES + keyBytes.length + value.length;
+
+    if (length > this.slabBytes) {
+      return false;
+    }
+
+    long address;
+    synchronized (this) {
+      if (this.writeOffset + length > this.slabBytes) {
+        this.nextSlab();
+      }
+
+      int slab = this.slabOf(this.sequence);
+      ByteBuffer buffer = this.slabs[slab].duplicate();
+      buffer.position(this.writeOffset);
+      buffer.putInt(length).putInt(keyBytes.length).put(keyBytes).put(value);
+
+      address = (this.sequence << 32) | this.writeOffset;
+      this.writeOffset += length;
+      this.slabEntries[slab]++;
+      this.entries.increment();
+    }
+
+    long hash = hash(key);
+    return this.segmentFor(hash).put(hash, address);
+  }
+
+  /**
+   * The number of entries written to slabs that have not been reused since.
+   *
+   * @return the entry count
+   */
+  public long getSize() {
+    return this.entries.sum() - this.evictions.sum();
+  }
+
+  public long getHitCount() {
+    return this.hits.sum();
+  }
+
+  public long getMissCount() {
+    return this.misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return this.evictions.sum();
+  }
+
+  private void nextSlab() {
+    this.sequence++;
+    int slab = this.slabOf(this.sequence);
+
+    // readers still copying from this slab will fail validation and miss
+    StampedLock lock = this.slabLocks[slab];
+    long stamp = lock.writeLock();
+    try {
+      this.generations.set(slab, this.sequence);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+
+    this.evictions.add(this.slabEntries[slab]);
+    this.slabEntries[slab] = 0;
+    this.writeOffset = 0;
+  }
+
+  private byte[] read(long address, byte[] keyBytes) {
+    long sequence = address >>> 32;
+    int offset = (int) address;
+    int slab = this.slabOf(sequence);
+    StampedLock lock = this.slabLocks[slab];
+
+    long stamp = lock.tryOptimisticRead();
+    if (stamp == 0 || this.generations.get(slab) != sequence) {
+      return null;
+    }
+
+    ByteBuffer buffer = this.slabs[slab].duplicate();
+    int length = buffer.getInt(offset);
+    int keyLength = buffer.getInt(offset + 4);
+
+    // a slab being reused can hold anything; check the header before trusting it
+    if (keyLength != keyBytes.length || length < HEADER_BYTES + keyLength || offset + length > this.slabBytes) {
+      return null;
+    }
+
+    byte[] entry = new byte[length - HEADER_BYTES];
+    buffer.position(offset + HEADER_BYTES);
+    buffer.get(entry);
+
+    if (!lock.validate(stamp)) {
+      return null;
+    }
+
+    for (int i = 0; i < keyLength; i++) {
+      if (entry[i] != keyBytes[i]) {
+        return null;
+      }
+    }
+
+    return Arrays.copyOfRange(entry, keyLength, entry.length);
+  }
+
+  private boolean isLive(long address) {
+    long sequence = address >>> 32;
+    return this.generations.get(this.slabOf(sequence)) == sequence;
+  }
+
+  private int slabOf(long sequence) {
+    return (int) (sequence % this.slabs.length);
+  }
+
+  private Segment segmentFor(long hash) {
+    return this.segments[(int) (hash >>> 58)];
+  }
+
+  private static long hash(String key) {
+    long hash = Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asLong();
+
+    // 0 marks an empty slot
+    return hash == 0 ? 1 : hash;
+  }
+
+  /**
+   * An open-addressing table from key hashes to entry addresses, held in a direct buffer. Slots
+   * whose entry has been evicted are reused by later puts, and dropped when the table is rebuilt.
+   */
+  private class Segment {
+
+    private final LongBuffer table;
+    private final int slots;
+    private int used;
+
+    private Segment(int slots) {
+      this.slots = slots;
+      this.table = ByteBuffer.allocateDirect(slots * 16).asLongBuffer();
+    }
+
+    private synchronized long get(long hash) {
+      for (int probe = 0, slot = this.slotOf(hash); probe < this.slots; probe++, slot = (slot + 1) & (this.slots - 1)) {
+        long stored = this.table.get(2 * slot);
+
+        if (stored == 0) {
+          return -1;
+        }
+        if (stored == hash) {
+          return this.table.get(2 * slot + 1);
+        }
+      }
+
+      return -1;
+    }
+
+    private synchronized boolean put(long hash, long address) {
+      if (this.used >= this.slots * 3 / 4) {
+        this.rebuild();
+
+        if (this.used >= this.slots * 3 / 4) {
+          return false;
+        }
+      }
+
+      int reusable = -1;
+      for (int probe = 0, slot = this.slotOf(hash); probe < this.slots; probe++, slot = (slot + 1) & (this.slots - 1)) {
+        long stored = this.table.get(2 * slot);
+
+        if (stored == hash) {
+          this.table.put(2 * slot + 1, address);
+          return true;
+        }
+        if (stored == 0) {
+          if (reusable < 0) {
+            reusable = slot;
+            this.used++;
+          }
+          break;
+        }
+        if (reusable < 0 && !OffHeapStore.this.isLive(this.table.get(2 * slot + 1))) {
+          reusable = slot;
+        }
+      }
+
+      if (reusable < 0) {
+        return false;
+      }
+
+      this.table.put(2 * reusable, hash);
+      this.table.put(2 * reusable + 1, address);
+      return true;
+    }
+
+    private void rebuild() {
+      long[] live = new long[2 * this.used];
+      int count = 0;
+
+      for (int slot = 0; slot < this.slots; slot++) {
+        long stored = this.table.get(2 * slot);
+        long address = this.table.get(2 * slot + 1);
+
+        if (stored != 0 && OffHeapStore.this.isLive(address)) {
+          live[2 * count] = stored;
+          live[2 * count + 1] = address;
+          count++;
+        }
+        this.table.put(2 * slot, 0);
+      }
+
+      this.used = 0;
+      for (int i = 0; i < count; i++) {
+        int slot = this.slotOf(live[2 * i]);
+        while (this.table.get(2 * slot) != 0) {
+          slot = (slot + 1) & (this.slots - 1);
+        }
+
+        this.table.put(2 * slot, live[2 * i]);
+        this.table.put(2 * slot + 1, live[2 * i + 1]);
+        this.used++;
+      }
+    }
+
+    private int slotOf(long hash) {
+      return (int) (hash ^ (hash >>> 32)) & (this.slots - 1);
+    }
+  }
+}
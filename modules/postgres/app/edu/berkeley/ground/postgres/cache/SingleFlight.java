@@ -0,0 +1,122 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load is running, later callers for that key
+ * share its result instead of starting their own, so a burst of misses on a hot key costs one
+ * database call.
+ */
+public class SingleFlight {
+
+  private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  /**
+   * Load a key, or join the load of it that is already running.
+   *
+   * @param key the key to load
+   * @param loader loads the value
+   * @param store called with the loaded value, unless the key was forgotten while it loaded
+   * @param executor runs the load, and completes the future handed to callers that joined it
+   * @param <T> the type of the value
+   * @return the loaded value
+   */
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<T> load(String key, Callable<T> loader, Consumer<T> store, Executor executor) {
+    CompletableFuture<Object> created = new CompletableFuture<>();
+    CompletableFuture<Object> existing = this.inFlight.putIfAbsent(key, created);
+
+    if (existing != null) {
+      this.coalesced.increment();
+
+      // finish on the caller's executor rather than on the thread of whoever started the load
+      return (CompletableFuture<T>) existing.whenCompleteAsync((value, error) -> { }, executor);
+    }
+
+    this.loads.increment();
+
+    try {
+      executor.execute(() -> {
+        try {
+          T value = loader.call();
+
+          // store under the map's lock on the key, so a forget() either runs first and the value is
+          // dropped, or waits until it is stored and then lets the caller evict it
+          this.inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != created) {
+              return current;
+            }
+
+            store.accept(value);
+            return null;
+          });
+          created.complete(value);
+        } catch (Throwable e) {
+          this.inFlight.remove(key, created);
+          created.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      this.inFlight.remove(key, created);
+      created.completeExceptionally(e);
+    }
+
+    return (CompletableFuture<T>) created;
+  }
+
+  /**
+   * Detach running loads from their keys, so that their results are not stored and the next
+   * caller starts a fresh load. A load whose result is being stored at the time is waited for, so
+   * once this returns, evicting the keys also evicts anything loaded before the call.
+   *
+   * @param keys the keys to forget
+   */
+  public void forget(Iterable<String> keys) {
+    keys.forEach(this.inFlight::remove);
+  }
+
+  /**
+   * Detach every running load from its key.
+   */
+  public void forgetAll() {
+    this.inFlight.clear();
+  }
+
+  /**
+   * The number of loads that were started.
+   *
+   * @return the load count
+   */
+  public long getLoadCount() {
+    return this.loads.sum();
+  }
+
+  /**
+   * The number of calls that joined a load already running instead of starting one.
+   *
+   * @return the coalesced call count
+   */
+  public long getCoalescedCount() {
+    return this.coalesced.sum();
+  }
+}
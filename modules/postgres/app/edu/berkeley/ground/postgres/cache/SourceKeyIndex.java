@@ -0,0 +1,212 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of the source keys of one Item type, so that most existence checks before a
+ * create and source key lookups are answered without a query. A Bloom filter holds every known
+ * source key; once it has been warmed with the keys already in the database, a key it does not
+ * contain has not been seen by this instance. Keys it might contain but the database did not are
+ * remembered as absent for ground.cache.negative.secs. Resolved item ids are kept without expiry,
+ * since an Item's source key never changes.
+ *
+ * <p>Keys are added before the statements creating them run, so a concurrent check never misses a
+ * key being created. Keys created by other instances are added as their NOTIFY arrives, when
+ * ground.cache.notify is set; until then, or without it, the filter can rule out a key that
+ * another instance has created. A key being absent from the filter is therefore only trusted
+ * before a create, where the source_key unique constraint still rejects such a duplicate.
+ */
+public class SourceKeyIndex {
+
+  private static final ConcurrentMap<Class<?>, SourceKeyIndex> INDEXES = new ConcurrentHashMap<>();
+  private static final long NEGATIVE_MAX_SIZE = 10000;
+
+  private final BloomFilter<CharSequence> filter;
+  private final Cache<String, Boolean> absent;
+  private final Cache<String, Long> itemIds;
+  private final Cache<Long, String> sourceKeys;
+  // Guava's BloomFilter is not safe for concurrent writes
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private volatile boolean warmed = false;
+
+  /**
+   * Create a new index.
+   *
+   * @param expectedKeys the number of keys the filter is sized for, and the most item ids kept
+   * @param negativeSecs how long a key found absent is remembered
+   */
+  public SourceKeyIndex(long expectedKeys, long negativeSecs) {
+    this.filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedKeys, 0.01);
+    this.absent = CacheBuilder.newBuilder()
+                    .maximumSize(NEGATIVE_MAX_SIZE)
+                    .expireAfterWrite(negativeSecs, TimeUnit.SECONDS)
+                    .build();
+    this.itemIds = CacheBuilder.newBuilder()
+                     .maximumSize(expectedKeys)
+                     .build();
+    this.sourceKeys = CacheBuilder.newBuilder()
+                        .maximumSize(expectedKeys)
+                        .build();
+  }
+
+  /**
+   * The index shared by every DAO of an Item type.
+   *
+   * @param itemType the Item type
+   * @return the type's index
+   */
+  public static SourceKeyIndex of(Class<?> itemType) {
+    return INDEXES.computeIfAbsent(itemType,
+      type -> new SourceKeyIndex(PostgresUtils.getSourceKeyFilterSize(), PostgresUtils.getNegativeCacheSecs()));
+  }
+
+  /**
+   * Drop every index, for when the database they describe has been reset.
+   */
+  public static void resetAll() {
+    INDEXES.clear();
+  }
+
+  /**
+   * Whether a source key might exist. False means this instance has not seen it; another
+   * instance may have created it since.
+   *
+   * @param sourceKey the source key to check
+   * @return false if the key is not known to this instance
+   */
+  public boolean mightContain(String sourceKey) {
+    if (this.absent.getIfPresent(sourceKey) != null) {
+      return false;
+    }
+
+    if (!this.warmed || this.itemIds.getIfPresent(sourceKey) != null) {
+      return true;
+    }
+
+    this.lock.readLock().lock();
+    try {
+      return this.filter.mightContain(sourceKey);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Whether the database was recently found not to have a source key. Unlike mightContain, this
+   * does not depend on having seen every key created by other instances, only on the last
+   * ground.cache.negative.secs.
+   *
+   * @param sourceKey the source key to check
+   * @return true if the key was recorded absent and has not been added since
+   */
+  public boolean isAbsent(String sourceKey) {
+    return this.absent.getIfPresent(sourceKey) != null;
+  }
+
+  /**
+   * Record a source key that is about to be created.
+   *
+   * @param sourceKey the new key
+   */
+  public void add(String sourceKey) {
+    this.lock.writeLock().lock();
+    try {
+      this.filter.put(sourceKey);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+
+    this.absent.invalidate(sourceKey);
+  }
+
+  /**
+   * The id of the Item with a source key, if it is known.
+   *
+   * @param sourceKey the source key
+   * @return the item id, or null if it has not been resolved yet
+   */
+  public Long getItemId(String sourceKey) {
+    return this.itemIds.getIfPresent(sourceKey);
+  }
+
+  /**
+   * The source key of the Item with an id, if it is known.
+   *
+   * @param itemId the item id
+   * @return the source key, or null if it has not been resolved yet
+   */
+  public String getSourceKey(long itemId) {
+    return this.sourceKeys.getIfPresent(itemId);
+  }
+
+  /**
+   * Record the id of the Item with a source key, once it is known to exist.
+   *
+   * @param sourceKey the source key
+   * @param itemId the Item's id
+   */
+  public void putItemId(String sourceKey, long itemId) {
+    this.itemIds.put(sourceKey, itemId);
+    this.sourceKeys.put(itemId, sourceKey);
+  }
+
+  /**
+   * Record that the database does not have a source key.
+   *
+   * @param sourceKey the missing key
+   */
+  public void recordAbsent(String sourceKey) {
+    this.absent.put(sourceKey, Boolean.TRUE);
+  }
+
+  /**
+   * Add the keys already in the database, with their item ids. From then on, keys the filter does
+   * not contain are ruled out by mightContain without a query.
+   *
+   * @param itemIds the id of every existing Item of the type, by source key
+   */
+  public void warm(Map<String, Long> itemIds) {
+    this.lock.writeLock().lock();
+    try {
+      itemIds.keySet().forEach(this.filter::put);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+
+    this.itemIds.putAll(itemIds);
+    itemIds.forEach((sourceKey, itemId) -> this.sourceKeys.put(itemId, sourceKey));
+
+    this.warmed = true;
+  }
+
+  /**
+   * Whether the index has been warmed, and so can rule keys out on its own.
+   *
+   * @return true once warm has run
+   */
+  public boolean isWarmed() {
+    return this.warmed;
+  }
+}
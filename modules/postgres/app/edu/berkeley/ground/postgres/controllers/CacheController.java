@@ -0,0 +1,21 @@
+package edu.berkeley.ground.postgres.controllers;
+
+import edu.berkeley.ground.postgres.cache.GroundCache;
+import javax.inject.Inject;
+import play.libs.Json;
+import play.mvc.Controller;
+import play.mvc.Result;
+
+public class CacheController extends Controller {
+
+  private GroundCache cache;
+
+  @Inject
+  final void injectUtils(final GroundCache cache) {
+    this.cache = cache;
+  }
+
+  public final Result getStats() {
+    return ok(Json.toJson(this.cache.getStats()));
+  }
+}
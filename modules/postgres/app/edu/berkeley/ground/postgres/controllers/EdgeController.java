@@ -7,16 +7,18 @@ import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.model.core.Edge;
 import edu.berkeley.ground.common.model.core.EdgeVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.GroundCache;
 import edu.berkeley.ground.postgres.dao.core.PostgresEdgeDao;
 import edu.berkeley.ground.postgres.dao.core.PostgresEdgeVersionDao;
+import edu.berkeley.ground.postgres.util.BatchJsonBodyParser;
 import edu.berkeley.ground.postgres.util.GroundUtils;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
-import play.cache.CacheApi;
 import play.db.Database;
 import play.libs.Json;
 import play.mvc.BodyParser;
@@ -26,35 +28,28 @@ import play.mvc.Results;
 
 public class EdgeController extends Controller {
 
-  private CacheApi cache;
+  private GroundCache cache;
   private ActorSystem actorSystem;
 
   private PostgresEdgeDao postgresEdgeDao;
   private PostgresEdgeVersionDao postgresEdgeVersionDao;
 
   @Inject
-  final void injectUtils(final CacheApi cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
+  final void injectUtils(final GroundCache cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
     this.actorSystem = actorSystem;
     this.cache = cache;
 
     this.postgresEdgeDao = new PostgresEdgeDao(dbSource, idGenerator);
     this.postgresEdgeVersionDao = new PostgresEdgeVersionDao(dbSource, idGenerator);
+    this.postgresEdgeVersionDao.addItemChangeListener(cache);
   }
 
   public final CompletionStage<Result> getEdge(final String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "edges." + sourceKey,
-            () -> Json.toJson(this.postgresEdgeDao.retrieveFromDatabase(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "edges." + sourceKey,
+      () -> Json.toJson(this.postgresEdgeDao.retrieveFromDatabase(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(this.actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
@@ -79,18 +74,25 @@ public class EdgeController extends Controller {
   }
 
   public final CompletionStage<Result> getEdgeVersion(Long id) {
+    return this.cache.getVersionJsonAsync(
+      "edge_versions." + id,
+      () -> Json.toJson(this.postgresEdgeVersionDao.retrieveFromDatabase(id)),
+      PostgresUtils.getDbSourceHttpContext(actorSystem))
+             .thenApply(json -> json.toResult(request()))
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getEdgeVersions(String ids) {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "edge_versions." + id,
-            () -> Json.toJson(this.postgresEdgeVersionDao.retrieveFromDatabase(id)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<Long> versionIds = GroundUtils.parseIds(ids);
+          return GroundUtils.getBulkVersionJson(versionIds, this.postgresEdgeVersionDao.retrieveFromDatabase(versionIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
-      PostgresUtils.getDbSourceHttpContext(actorSystem))
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
              .thenApply(Results::ok)
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
@@ -118,37 +120,39 @@ public class EdgeController extends Controller {
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
-  public final CompletionStage<Result> getLatest(String sourceKey) {
+  @BodyParser.Of(BatchJsonBodyParser.class)
+  public final CompletionStage<Result> addEdgeVersions() {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "edge_leaves." + sourceKey,
-            () -> Json.toJson(this.postgresEdgeDao.getLeaves(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<List<Long>> parentIds = new ArrayList<>();
+          List<EdgeVersion> versions = GroundUtils.getVersionsFromJson(request().body().asJson(), EdgeVersion.class, parentIds);
+
+          return Json.toJson(this.postgresEdgeVersionDao.create(versions, parentIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(Results::created)
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getLatest(String sourceKey) {
+    return this.cache.getOrElseJsonAsync(
+      "edge_leaves." + sourceKey,
+      () -> Json.toJson(this.postgresEdgeDao.getLeaves(sourceKey)),
+      PostgresUtils.getDbSourceHttpContext(actorSystem))
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getHistory(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "edge_history." + sourceKey,
-            () -> Json.toJson(this.postgresEdgeDao.getHistory(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "edge_history." + sourceKey,
+      () -> Json.toJson(this.postgresEdgeDao.getHistory(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 }
@@ -0,0 +1,120 @@
+package edu.berkeley.ground.postgres.controllers;
+
+import akka.actor.ActorSystem;
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
+import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.dao.core.PostgresEdgeDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresEdgeVersionDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresGraphDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresGraphVersionDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresNodeDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresNodeVersionDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresStructureDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresStructureVersionDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageEdgeDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageEdgeVersionDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageGraphDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageGraphVersionDao;
+import edu.berkeley.ground.postgres.dao.version.PostgresItemDao;
+import edu.berkeley.ground.postgres.util.ExportSource;
+import edu.berkeley.ground.postgres.util.GroundUtils;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import javax.inject.Inject;
+import play.api.Configuration;
+import play.db.Database;
+import play.mvc.Controller;
+import play.mvc.Result;
+
+public class ExportController extends Controller {
+
+  private static final String NDJSON = "application/x-ndjson";
+
+  private ActorSystem actorSystem;
+  private Database dbSource;
+  private int fetchSize;
+
+  // in the order they are exported, so that every type comes after the types it refers to
+  private Map<String, ExportedType> types;
+
+  @Inject
+  final void injectUtils(final Configuration configuration, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
+    this.actorSystem = actorSystem;
+    this.dbSource = dbSource;
+    this.fetchSize = configuration.underlying().getInt("ground.export.fetch.size");
+
+    PostgresStructureVersionDao structureVersionDao = new PostgresStructureVersionDao(dbSource, idGenerator);
+    PostgresNodeVersionDao nodeVersionDao = new PostgresNodeVersionDao(dbSource, idGenerator);
+    PostgresEdgeVersionDao edgeVersionDao = new PostgresEdgeVersionDao(dbSource, idGenerator);
+    PostgresGraphVersionDao graphVersionDao = new PostgresGraphVersionDao(dbSource, idGenerator);
+    PostgresLineageEdgeVersionDao lineageEdgeVersionDao = new PostgresLineageEdgeVersionDao(dbSource, idGenerator);
+    PostgresLineageGraphVersionDao lineageGraphVersionDao = new PostgresLineageGraphVersionDao(dbSource, idGenerator);
+
+    this.types = new LinkedHashMap<>();
+    this.types.put("structures", new ExportedType(new PostgresStructureDao(dbSource, idGenerator), structureVersionDao::getExportQuery));
+    this.types.put("nodes", new ExportedType(new PostgresNodeDao(dbSource, idGenerator), nodeVersionDao::getExportQuery));
+    this.types.put("edges", new ExportedType(new PostgresEdgeDao(dbSource, idGenerator), edgeVersionDao::getExportQuery));
+    this.types.put("graphs", new ExportedType(new PostgresGraphDao(dbSource, idGenerator), graphVersionDao::getExportQuery));
+    this.types.put("lineage_edges", new ExportedType(new PostgresLineageEdgeDao(dbSource, idGenerator), lineageEdgeVersionDao::getExportQuery));
+    this.types.put("lineage_graphs", new ExportedType(new PostgresLineageGraphDao(dbSource, idGenerator), lineageGraphVersionDao::getExportQuery));
+  }
+
+  public final CompletionStage<Result> exportItem(String type, String sourceKey) {
+    return CompletableFuture.supplyAsync(
+      () -> {
+        ExportedType exportedType = this.types.get(type);
+
+        try {
+          if (exportedType == null) {
+            throw new GroundException(ExceptionType.OTHER, String.format("Unknown type: %s.", type));
+          }
+
+          // fail before the response starts, rather than stream nothing
+          exportedType.itemDao.resolveItemId(sourceKey);
+        } catch (GroundException e) {
+          throw new CompletionException(e);
+        }
+
+        return exportedType.getQueries(sourceKey);
+      },
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
+             .thenApply(this::export)
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final Result exportAll() {
+    List<PostgresExportQuery> queries = new ArrayList<>();
+    this.types.values().forEach(type -> queries.addAll(type.getQueries(null)));
+
+    return this.export(queries);
+  }
+
+  private Result export(List<PostgresExportQuery> queries) {
+    return ok().chunked(ExportSource.of(this.dbSource, queries, this.fetchSize)).as(NDJSON);
+  }
+
+  private static class ExportedType {
+
+    private final PostgresItemDao<?> itemDao;
+    private final Function<String, PostgresExportQuery> versions;
+
+    private ExportedType(PostgresItemDao<?> itemDao, Function<String, PostgresExportQuery> versions) {
+      this.itemDao = itemDao;
+      this.versions = versions;
+    }
+
+    private List<PostgresExportQuery> getQueries(String sourceKey) {
+      return Arrays.asList(this.itemDao.getExportQuery(sourceKey), this.itemDao.getHistoryExportQuery(sourceKey), this.versions.apply(sourceKey));
+    }
+  }
+}
@@ -18,16 +18,18 @@ import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.model.core.Graph;
 import edu.berkeley.ground.common.model.core.GraphVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.GroundCache;
 import edu.berkeley.ground.postgres.dao.core.PostgresGraphDao;
 import edu.berkeley.ground.postgres.dao.core.PostgresGraphVersionDao;
+import edu.berkeley.ground.postgres.util.BatchJsonBodyParser;
 import edu.berkeley.ground.postgres.util.GroundUtils;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
-import play.cache.CacheApi;
 import play.db.Database;
 import play.libs.Json;
 import play.mvc.BodyParser;
@@ -37,47 +39,48 @@ import play.mvc.Results;
 
 public class GraphController extends Controller {
 
-  private CacheApi cache;
+  private GroundCache cache;
   private ActorSystem actorSystem;
 
   private PostgresGraphDao postgresGraphDao;
   private PostgresGraphVersionDao postgresGraphVersionDao;
 
   @Inject
-  final void injectUtils(final CacheApi cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
+  final void injectUtils(final GroundCache cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
     this.actorSystem = actorSystem;
     this.cache = cache;
 
     this.postgresGraphDao = new PostgresGraphDao(dbSource, idGenerator);
 
     this.postgresGraphVersionDao = new PostgresGraphVersionDao(dbSource, idGenerator);
+    this.postgresGraphVersionDao.addItemChangeListener(cache);
   }
 
   public final CompletionStage<Result> getGraph(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "graphs." + sourceKey,
-            () -> Json.toJson(this.postgresGraphDao.retrieveFromDatabase(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "graphs." + sourceKey,
+      () -> Json.toJson(this.postgresGraphDao.retrieveFromDatabase(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(this.actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getGraphVersion(Long id) {
+    return this.cache.getVersionJsonAsync(
+      "graph_versions." + id,
+      () -> Json.toJson(this.postgresGraphVersionDao.retrieveFromDatabase(id)),
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
+             .thenApply(json -> json.toResult(request()))
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getGraphVersions(String ids) {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse("graph_versions." + id,
-            () -> Json.toJson(this.postgresGraphVersionDao.retrieveFromDatabase(id)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<Long> versionIds = GroundUtils.parseIds(ids);
+          return GroundUtils.getBulkVersionJson(versionIds, this.postgresGraphVersionDao.retrieveFromDatabase(versionIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
@@ -127,37 +130,39 @@ public class GraphController extends Controller {
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
-  public final CompletionStage<Result> getLatest(String sourceKey) {
+  @BodyParser.Of(BatchJsonBodyParser.class)
+  public final CompletionStage<Result> addGraphVersions() {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "graph_leaves." + sourceKey,
-            () -> Json.toJson(this.postgresGraphDao.getLeaves(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<List<Long>> parentIds = new ArrayList<>();
+          List<GraphVersion> versions = GroundUtils.getVersionsFromJson(request().body().asJson(), GraphVersion.class, parentIds);
+
+          return Json.toJson(this.postgresGraphVersionDao.create(versions, parentIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(Results::created)
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getLatest(String sourceKey) {
+    return this.cache.getOrElseJsonAsync(
+      "graph_leaves." + sourceKey,
+      () -> Json.toJson(this.postgresGraphDao.getLeaves(sourceKey)),
+      PostgresUtils.getDbSourceHttpContext(actorSystem))
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getHistory(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "graph_history." + sourceKey,
-            () -> Json.toJson(this.postgresGraphDao.getHistory(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "graph_history." + sourceKey,
+      () -> Json.toJson(this.postgresGraphDao.getHistory(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 }
@@ -0,0 +1,16 @@
+package edu.berkeley.ground.postgres.controllers;
+
+import edu.berkeley.ground.postgres.util.IngestBodyParser;
+import edu.berkeley.ground.postgres.util.IngestSummary;
+import play.libs.Json;
+import play.mvc.BodyParser;
+import play.mvc.Controller;
+import play.mvc.Result;
+
+public class IngestController extends Controller {
+
+  @BodyParser.Of(IngestBodyParser.class)
+  public final Result ingest() {
+    return ok(Json.toJson(request().body().as(IngestSummary.class)));
+  }
+}
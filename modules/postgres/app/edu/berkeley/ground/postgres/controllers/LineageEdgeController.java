@@ -7,16 +7,18 @@ import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.model.usage.LineageEdge;
 import edu.berkeley.ground.common.model.usage.LineageEdgeVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.GroundCache;
 import edu.berkeley.ground.postgres.dao.usage.PostgresLineageEdgeDao;
 import edu.berkeley.ground.postgres.dao.usage.PostgresLineageEdgeVersionDao;
+import edu.berkeley.ground.postgres.util.BatchJsonBodyParser;
 import edu.berkeley.ground.postgres.util.GroundUtils;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
-import play.cache.CacheApi;
 import play.db.Database;
 import play.libs.Json;
 import play.mvc.BodyParser;
@@ -26,51 +28,51 @@ import play.mvc.Results;
 
 public class LineageEdgeController extends Controller {
 
-  private CacheApi cache;
+  private GroundCache cache;
   private ActorSystem actorSystem;
 
   private PostgresLineageEdgeDao postgresLineageEdgeDao;
   private PostgresLineageEdgeVersionDao postgresLineageEdgeVersionDao;
 
   @Inject
-  final void injectUtils(final CacheApi cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
+  final void injectUtils(final GroundCache cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
     this.actorSystem = actorSystem;
     this.cache = cache;
 
     this.postgresLineageEdgeDao = new PostgresLineageEdgeDao(dbSource, idGenerator);
     this.postgresLineageEdgeVersionDao = new PostgresLineageEdgeVersionDao(dbSource, idGenerator);
+    this.postgresLineageEdgeVersionDao.addItemChangeListener(cache);
   }
 
   public final CompletionStage<Result> getLineageEdge(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "lineage_edges." + sourceKey,
-            () -> Json.toJson(this.postgresLineageEdgeDao.retrieveFromDatabase(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "lineage_edges." + sourceKey,
+      () -> Json.toJson(this.postgresLineageEdgeDao.retrieveFromDatabase(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getLineageEdgeVersion(Long id) {
+    return this.cache.getVersionJsonAsync(
+      "lineage_edge_versions." + id,
+      () -> Json.toJson(this.postgresLineageEdgeVersionDao.retrieveFromDatabase(id)),
+      PostgresUtils.getDbSourceHttpContext(actorSystem))
+             .thenApply(json -> json.toResult(request()))
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getLineageEdgeVersions(String ids) {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "lineage_edge_versions." + id,
-            () -> Json.toJson(this.postgresLineageEdgeVersionDao.retrieveFromDatabase(id)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<Long> versionIds = GroundUtils.parseIds(ids);
+          return GroundUtils.getBulkVersionJson(versionIds, this.postgresLineageEdgeVersionDao.retrieveFromDatabase(versionIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
-      PostgresUtils.getDbSourceHttpContext(actorSystem))
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
              .thenApply(Results::ok)
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
@@ -115,37 +117,39 @@ public class LineageEdgeController extends Controller {
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
-  public final CompletionStage<Result> getLatest(String sourceKey) {
+  @BodyParser.Of(BatchJsonBodyParser.class)
+  public final CompletionStage<Result> createLineageEdgeVersions() {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "lineage_edge_leaves." + sourceKey,
-            () -> Json.toJson(this.postgresLineageEdgeDao.getLeaves(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<List<Long>> parentIds = new ArrayList<>();
+          List<LineageEdgeVersion> versions = GroundUtils.getVersionsFromJson(request().body().asJson(), LineageEdgeVersion.class, parentIds);
+
+          return Json.toJson(this.postgresLineageEdgeVersionDao.create(versions, parentIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(Results::created)
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getLatest(String sourceKey) {
+    return this.cache.getOrElseJsonAsync(
+      "lineage_edge_leaves." + sourceKey,
+      () -> Json.toJson(this.postgresLineageEdgeDao.getLeaves(sourceKey)),
+      PostgresUtils.getDbSourceHttpContext(actorSystem))
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getHistory(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "lineage_edge_history." + sourceKey,
-            () -> Json.toJson(this.postgresLineageEdgeDao.getHistory(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "lineage_edge_history." + sourceKey,
+      () -> Json.toJson(this.postgresLineageEdgeDao.getHistory(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 }
@@ -7,16 +7,18 @@ import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.model.usage.LineageGraph;
 import edu.berkeley.ground.common.model.usage.LineageGraphVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.GroundCache;
 import edu.berkeley.ground.postgres.dao.usage.PostgresLineageGraphDao;
 import edu.berkeley.ground.postgres.dao.usage.PostgresLineageGraphVersionDao;
+import edu.berkeley.ground.postgres.util.BatchJsonBodyParser;
 import edu.berkeley.ground.postgres.util.GroundUtils;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
-import play.cache.CacheApi;
 import play.db.Database;
 import play.libs.Json;
 import play.mvc.BodyParser;
@@ -26,52 +28,52 @@ import play.mvc.Results;
 
 public class LineageGraphController extends Controller {
 
-  private CacheApi cache;
+  private GroundCache cache;
   private ActorSystem actorSystem;
 
   private PostgresLineageGraphDao postgresLineageGraphDao;
   private PostgresLineageGraphVersionDao postgresLineageGraphVersionDao;
 
   @Inject
-  final void injectUtils(final CacheApi cache, final Database dbSource,
+  final void injectUtils(final GroundCache cache, final Database dbSource,
                           final ActorSystem actorSystem, final IdGenerator idGenerator) {
     this.actorSystem = actorSystem;
     this.cache = cache;
 
     this.postgresLineageGraphDao = new PostgresLineageGraphDao(dbSource, idGenerator);
     this.postgresLineageGraphVersionDao = new PostgresLineageGraphVersionDao(dbSource, idGenerator);
+    this.postgresLineageGraphVersionDao.addItemChangeListener(cache);
   }
 
   public final CompletionStage<Result> getLineageGraph(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "lineage_graphs." + sourceKey,
-            () -> Json.toJson(this.postgresLineageGraphDao.retrieveFromDatabase(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "lineage_graphs." + sourceKey,
+      () -> Json.toJson(this.postgresLineageGraphDao.retrieveFromDatabase(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getLineageGraphVersion(Long id) {
+    return this.cache.getVersionJsonAsync(
+      "lineage_graph_versions." + id,
+      () -> Json.toJson(this.postgresLineageGraphVersionDao.retrieveFromDatabase(id)),
+      PostgresUtils.getDbSourceHttpContext(actorSystem))
+             .thenApply(json -> json.toResult(request()))
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getLineageGraphVersions(String ids) {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "lineage_graph_versions." + id,
-            () -> Json.toJson(this.postgresLineageGraphVersionDao.retrieveFromDatabase(id)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<Long> versionIds = GroundUtils.parseIds(ids);
+          return GroundUtils.getBulkVersionJson(versionIds, this.postgresLineageGraphVersionDao.retrieveFromDatabase(versionIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
-      PostgresUtils.getDbSourceHttpContext(actorSystem))
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
              .thenApply(Results::ok)
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
@@ -116,37 +118,39 @@ public class LineageGraphController extends Controller {
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
-  public final CompletionStage<Result> getLatest(String sourceKey) {
+  @BodyParser.Of(BatchJsonBodyParser.class)
+  public final CompletionStage<Result> createLineageGraphVersions() {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "lineage_graph_leaves." + sourceKey,
-            () -> Json.toJson(this.postgresLineageGraphDao.getLeaves(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<List<Long>> parentIds = new ArrayList<>();
+          List<LineageGraphVersion> versions = GroundUtils.getVersionsFromJson(request().body().asJson(), LineageGraphVersion.class, parentIds);
+
+          return Json.toJson(this.postgresLineageGraphVersionDao.create(versions, parentIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(Results::created)
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getLatest(String sourceKey) {
+    return this.cache.getOrElseJsonAsync(
+      "lineage_graph_leaves." + sourceKey,
+      () -> Json.toJson(this.postgresLineageGraphDao.getLeaves(sourceKey)),
+      PostgresUtils.getDbSourceHttpContext(actorSystem))
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getHistory(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "lineage_graph_history." + sourceKey,
-            () -> Json.toJson(this.postgresLineageGraphDao.getHistory(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "lineage_graph_history." + sourceKey,
+      () -> Json.toJson(this.postgresLineageGraphDao.getHistory(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 }
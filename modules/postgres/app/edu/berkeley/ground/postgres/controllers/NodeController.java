@@ -7,16 +7,18 @@ import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.model.core.Node;
 import edu.berkeley.ground.common.model.core.NodeVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.GroundCache;
 import edu.berkeley.ground.postgres.dao.core.PostgresNodeDao;
 import edu.berkeley.ground.postgres.dao.core.PostgresNodeVersionDao;
+import edu.berkeley.ground.postgres.util.BatchJsonBodyParser;
 import edu.berkeley.ground.postgres.util.GroundUtils;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
-import play.cache.CacheApi;
 import play.db.Database;
 import play.libs.Json;
 import play.mvc.BodyParser;
@@ -26,35 +28,28 @@ import play.mvc.Results;
 
 public class NodeController extends Controller {
 
-  private CacheApi cache;
+  private GroundCache cache;
   private ActorSystem actorSystem;
 
   private PostgresNodeDao postgresNodeDao;
   private PostgresNodeVersionDao postgresNodeVersionDao;
 
   @Inject
-  final void injectUtils(final CacheApi cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
+  final void injectUtils(final GroundCache cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
     this.actorSystem = actorSystem;
     this.cache = cache;
 
     this.postgresNodeDao = new PostgresNodeDao(dbSource, idGenerator);
     this.postgresNodeVersionDao = new PostgresNodeVersionDao(dbSource, idGenerator);
+    this.postgresNodeVersionDao.addItemChangeListener(cache);
   }
 
   public final CompletionStage<Result> getNode(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "nodes." + sourceKey,
-            () -> Json.toJson(this.postgresNodeDao.retrieveFromDatabase(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "nodes." + sourceKey,
+      () -> Json.toJson(this.postgresNodeDao.retrieveFromDatabase(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(this.actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
@@ -77,14 +72,21 @@ public class NodeController extends Controller {
   }
 
   public final CompletionStage<Result> getNodeVersion(Long id) {
+    return this.cache.getVersionJsonAsync(
+      "node_versions." + id,
+      () -> Json.toJson(this.postgresNodeVersionDao.retrieveFromDatabase(id)),
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
+             .thenApply(json -> json.toResult(request()))
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getNodeVersions(String ids) {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "node_versions." + id,
-            () -> Json.toJson(this.postgresNodeVersionDao.retrieveFromDatabase(id)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<Long> versionIds = GroundUtils.parseIds(ids);
+          return GroundUtils.getBulkVersionJson(versionIds, this.postgresNodeVersionDao.retrieveFromDatabase(versionIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
@@ -116,54 +118,48 @@ public class NodeController extends Controller {
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
-  public final CompletionStage<Result> getLatest(String sourceKey) {
+  @BodyParser.Of(BatchJsonBodyParser.class)
+  public final CompletionStage<Result> addNodeVersions() {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "node_leaves." + sourceKey,
-            () -> Json.toJson(this.postgresNodeDao.getLeaves(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<List<Long>> parentIds = new ArrayList<>();
+          List<NodeVersion> versions = GroundUtils.getVersionsFromJson(request().body().asJson(), NodeVersion.class, parentIds);
+
+          return Json.toJson(this.postgresNodeVersionDao.create(versions, parentIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
+             .thenApply(Results::created)
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getLatest(String sourceKey) {
+    return this.cache.getOrElseJsonAsync(
+      "node_leaves." + sourceKey,
+      () -> Json.toJson(this.postgresNodeDao.getLeaves(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getHistory(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "node_history." + sourceKey,
-            () -> Json.toJson(this.postgresNodeDao.getHistory(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "node_history." + sourceKey,
+      () -> Json.toJson(this.postgresNodeDao.getHistory(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getAdjacentLineage(Long id) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "node_version_adj_lineage." + id,
-            () -> Json.toJson(this.postgresNodeVersionDao.retrieveAdjacentLineageEdgeVersion(id)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "node_version_adj_lineage." + id,
+      () -> Json.toJson(this.postgresNodeVersionDao.retrieveAdjacentLineageEdgeVersion(id)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
@@ -18,16 +18,18 @@ import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.model.core.Structure;
 import edu.berkeley.ground.common.model.core.StructureVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.GroundCache;
 import edu.berkeley.ground.postgres.dao.core.PostgresStructureDao;
 import edu.berkeley.ground.postgres.dao.core.PostgresStructureVersionDao;
+import edu.berkeley.ground.postgres.util.BatchJsonBodyParser;
 import edu.berkeley.ground.postgres.util.GroundUtils;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
-import play.cache.CacheApi;
 import play.db.Database;
 import play.libs.Json;
 import play.mvc.BodyParser;
@@ -37,49 +39,51 @@ import play.mvc.Results;
 
 public class StructureController extends Controller {
 
-  private CacheApi cache;
+  private GroundCache cache;
   private ActorSystem actorSystem;
 
   private PostgresStructureDao postgresStructureDao;
   private PostgresStructureVersionDao postgresStructureVersionDao;
 
   @Inject
-  final void injectUtils(final CacheApi cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
+  final void injectUtils(final GroundCache cache, final Database dbSource, final ActorSystem actorSystem, final IdGenerator idGenerator) {
     this.actorSystem = actorSystem;
     this.cache = cache;
 
     this.postgresStructureDao = new PostgresStructureDao(dbSource, idGenerator);
     this.postgresStructureVersionDao = new PostgresStructureVersionDao(dbSource, idGenerator);
+    this.postgresStructureVersionDao.addItemChangeListener(cache);
   }
 
   public final CompletionStage<Result> getStructure(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "structures." + sourceKey,
-            () -> Json.toJson(this.postgresStructureDao.retrieveFromDatabase(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      }, PostgresUtils.getDbSourceHttpContext(this.actorSystem))
-             .thenApply(Results::ok)
+    return this.cache.getOrElseJsonAsync(
+      "structures." + sourceKey,
+      () -> Json.toJson(this.postgresStructureDao.retrieveFromDatabase(sourceKey)),
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getStructureVersion(Long id) {
+    return this.cache.getVersionJsonAsync(
+      "structure_versions." + id,
+      () -> Json.toJson(this.postgresStructureVersionDao.retrieveFromDatabase(id)),
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
+             .thenApply(json -> json.toResult(request()))
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getStructureVersions(String ids) {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "structure_versions." + id,
-            () -> Json.toJson(this.postgresStructureVersionDao.retrieveFromDatabase(id)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<Long> versionIds = GroundUtils.parseIds(ids);
+          return GroundUtils.getBulkVersionJson(versionIds, this.postgresStructureVersionDao.retrieveFromDatabase(versionIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
-      }, PostgresUtils.getDbSourceHttpContext(this.actorSystem))
+      },
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
              .thenApply(Results::ok)
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
@@ -127,37 +131,39 @@ public class StructureController extends Controller {
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
-  public final CompletionStage<Result> getLatest(String sourceKey) {
+  @BodyParser.Of(BatchJsonBodyParser.class)
+  public final CompletionStage<Result> addStructureVersions() {
     return CompletableFuture.supplyAsync(
       () -> {
         try {
-          return this.cache.getOrElse(
-            "structure_leaves." + sourceKey,
-            () -> Json.toJson(this.postgresStructureDao.getLeaves(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
+          List<List<Long>> parentIds = new ArrayList<>();
+          List<StructureVersion> versions = GroundUtils.getVersionsFromJson(request().body().asJson(), StructureVersion.class, parentIds);
+
+          return Json.toJson(this.postgresStructureVersionDao.create(versions, parentIds));
+        } catch (GroundException e) {
           throw new CompletionException(e);
         }
       },
+      PostgresUtils.getDbSourceHttpContext(this.actorSystem))
+             .thenApply(Results::created)
+             .exceptionally(e -> GroundUtils.handleException(e, request()));
+  }
+
+  public final CompletionStage<Result> getLatest(String sourceKey) {
+    return this.cache.getOrElseJsonAsync(
+      "structure_leaves." + sourceKey,
+      () -> Json.toJson(this.postgresStructureDao.getLeaves(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 
   public final CompletionStage<Result> getHistory(String sourceKey) {
-    return CompletableFuture.supplyAsync(
-      () -> {
-        try {
-          return this.cache.getOrElse(
-            "structure_history." + sourceKey,
-            () -> Json.toJson(this.postgresStructureDao.getHistory(sourceKey)),
-            Integer.parseInt(System.getProperty("ground.cache.expire.secs")));
-        } catch (Exception e) {
-          throw new CompletionException(e);
-        }
-      },
+    return this.cache.getOrElseJsonAsync(
+      "structure_history." + sourceKey,
+      () -> Json.toJson(this.postgresStructureDao.getHistory(sourceKey)),
       PostgresUtils.getDbSourceHttpContext(actorSystem))
-             .thenApply(Results::ok)
+             .thenApply(json -> json.toResult(request()))
              .exceptionally(e -> GroundUtils.handleException(e, request()));
   }
 }
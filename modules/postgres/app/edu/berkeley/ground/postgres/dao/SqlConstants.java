@@ -1,90 +1,184 @@
 package edu.berkeley.ground.postgres.dao;
 
+/**
+ * SQL templates used by the Postgres DAOs. Every value is bound through a ? placeholder; the only
+ * %s placeholders left are table and column names, which must be formatted in before preparing.
+ */
 public class SqlConstants {
 
   /* General insert statements */
-  public static final String INSERT_GENERIC_ITEM_WITH_NAME = "INSERT INTO %s (item_id, source_key, name) VALUES (%d, \'%s\', \'%s\');";
-  public static final String INSERT_GENERIC_ITEM_WITHOUT_NAME = "INSERT INTO %s (item_id, source_key, name) VALUES (%d, \'%s\', null);";
+  public static final String INSERT_GENERIC_ITEM_WITH_NAME = "INSERT INTO %s (item_id, source_key, name) VALUES (?, ?, ?);";
+  public static final String INSERT_GENERIC_ITEM_WITHOUT_NAME = "INSERT INTO %s (item_id, source_key, name) VALUES (?, ?, null);";
 
   /* General select statements */
-  public static final String SELECT_STAR_BY_SOURCE_KEY = "SELECT * FROM %s WHERE source_key = \'%s\'";
-  public static final String SELECT_STAR_ITEM_BY_ID = "SELECT * FROM %s WHERE item_id = %d;";
-  public static final String SELECT_STAR_BY_ID = "SELECT * FROM %s WHERE id = %d;";
-  public static final String DELETE_BY_ID = "DELETE FROM %s WHERE id = %d";
+  public static final String SELECT_STAR_BY_SOURCE_KEY = "SELECT * FROM %s WHERE source_key = ?;";
+  public static final String SELECT_STAR_ITEM_BY_ID = "SELECT * FROM %s WHERE item_id = ?;";
+  public static final String SELECT_STAR_BY_ID = "SELECT * FROM %s WHERE id = ?;";
+  public static final String SELECT_STAR_BY_IDS = "SELECT * FROM %s WHERE id = ANY(?);";
+  public static final String SELECT_SOURCE_KEYS_BY_ITEM_IDS = "SELECT item_id, source_key FROM %s WHERE item_id = ANY(?);";
+  public static final String SELECT_ITEM_ID_BY_SOURCE_KEY = "SELECT item_id FROM %s WHERE source_key = ?;";
+  public static final String SELECT_SOURCE_KEYS = "SELECT item_id, source_key FROM %s;";
+  public static final String SELECT_RECENTLY_UPDATED_SOURCE_KEYS = "SELECT t.source_key FROM %s t JOIN item_leaf l ON l.item_id = t.item_id "
+                                                                     + "GROUP BY t.source_key ORDER BY max(l.version_id) DESC LIMIT ?;";
+  public static final String SELECT_RECENT_VERSION_IDS = "SELECT id FROM %s ORDER BY id DESC LIMIT ?;";
+  public static final String DELETE_BY_IDS = "DELETE FROM %s WHERE id = ANY(?);";
+
+  /* Cache invalidation statements */
+  public static final String NOTIFY_ITEM_CHANGE = "SELECT pg_notify(?, ?);";
+  public static final String LISTEN = "LISTEN %s;";
+  public static final String POLL_NOTIFICATIONS = "SELECT 1;";
+
+  /* Export statements */
+  public static final String EXPORT_ITEMS = "SELECT t.*, (SELECT json_agg(json_build_array(g.key, g.value, g.type)) FROM item_tag g WHERE "
+                                              + "g.item_id = t.item_id) AS item_tags FROM %s t%s ORDER BY t.item_id;";
+  public static final String EXPORT_VERSION_HISTORY_DAGS = "SELECT d.item_id, s.id, s.from_version_id, s.to_version_id FROM %s t JOIN "
+                                                             + "version_history_dag d ON d.item_id = t.item_id JOIN version_successor s ON "
+                                                             + "s.id = d.version_successor_id%s ORDER BY d.item_id, d.version_successor_id;";
+  public static final String EXPORT_RICH_VERSIONS = "SELECT v.*, r.structure_version_id AS rich_structure_version_id, r.reference AS "
+                                                      + "rich_reference, (SELECT json_agg(json_build_array(t.key, t.value, t.type)) FROM "
+                                                      + "rich_version_tag t WHERE t.rich_version_id = r.id) AS rich_tags, (SELECT "
+                                                      + "json_agg(json_build_array(p.key, p.value)) FROM rich_version_external_parameter p "
+                                                      + "WHERE p.rich_version_id = r.id) AS rich_parameters%s FROM %s v JOIN rich_version r "
+                                                      + "ON r.id = v.id%s ORDER BY v.id;";
+  public static final String EXPORT_STRUCTURE_VERSIONS = "SELECT v.*, (SELECT json_agg(json_build_array(a.key, a.type)) FROM "
+                                                           + "structure_version_attribute a WHERE a.structure_version_id = v.id) AS attributes "
+                                                           + "FROM structure_version v%s ORDER BY v.id;";
+  public static final String EXPORT_ITEMS_WHERE_SOURCE_KEY = " WHERE t.source_key = ?";
+  public static final String EXPORT_VERSIONS_WHERE_SOURCE_KEY = " WHERE v.%s_id = (SELECT item_id FROM %s WHERE source_key = ?)";
+
+  /* Bulk load statements */
+  public static final String COPY_BINARY_FROM_STDIN = "COPY %s (%s) FROM STDIN BINARY";
 
   /* Version-specific statements */
-  public static final String INSERT_VERSION = "INSERT INTO version (id) VALUES (%d);";
+  public static final String INSERT_VERSION = "INSERT INTO version (id) VALUES (?);";
 
   /* Version Successor-specific statements */
-  public static final String INSERT_VERSION_SUCCESSOR = "INSERT INTO version_successor (id, from_version_id, to_version_id) VALUES (%d, %d, %d);";
-  public static final String SELECT_VERSION_SUCCESSOR = "SELECT * FROM version_successor where id = %d;";
-  public static final String SELECT_VERSION_SUCCESSOR_BY_ENDPOINT = "SELECT * FROM version_successor WHERE to_version_id = %d;";
-  public static final String DELETE_VERSION_SUCCESSOR = "DELETE FROM version_successor WHERE id = %d;";
+  public static final String INSERT_VERSION_SUCCESSOR = "INSERT INTO version_successor (id, from_version_id, to_version_id) VALUES (?, ?, ?);";
+  public static final String SELECT_VERSION_SUCCESSOR = "SELECT * FROM version_successor where id = ?;";
+  public static final String SELECT_VERSION_SUCCESSOR_BY_ENDPOINT = "SELECT * FROM version_successor WHERE to_version_id = ?;";
+  public static final String DELETE_VERSION_SUCCESSOR = "DELETE FROM version_successor WHERE id = ?;";
 
   /* Version History DAG-specific statements */
-  public static final String INSERT_VERSION_HISTORY_DAG_EDGE = "INSERT INTO version_history_dag (item_id, version_successor_id) VALUES (%d, %d);";
-  public static final String SELECT_VERSION_HISTORY_DAG = "SELECT * FROM version_history_dag WHERE item_id = %d;";
-  public static final String DELETE_SUCCESSOR_FROM_DAG = "DELETE FROM version_history_dag WHERE version_successor_id = %d;";
+  public static final String INSERT_VERSION_HISTORY_DAG_EDGE = "INSERT INTO version_history_dag (item_id, version_successor_id) VALUES (?, ?);";
+  public static final String SELECT_VERSION_HISTORY_DAG = "SELECT vs.id, vs.from_version_id, vs.to_version_id FROM version_history_dag vhd "
+                                                             + "JOIN version_successor vs ON vs.id = vhd.version_successor_id WHERE vhd.item_id = ? "
+                                                             + "ORDER BY vs.id;";
+  public static final String DELETE_SUCCESSOR_FROM_DAG = "DELETE FROM version_history_dag WHERE version_successor_id = ?;";
+  public static final String DELETE_SUCCESSORS_FROM_DAG_BY_VERSIONS = "DELETE FROM version_history_dag WHERE item_id = ? AND "
+                                                                        + "version_successor_id IN (SELECT id FROM version_successor WHERE "
+                                                                        + "from_version_id = ANY(?) OR to_version_id = ANY(?));";
+  public static final String DELETE_VERSION_SUCCESSORS_BY_VERSIONS = "DELETE FROM version_successor WHERE from_version_id = ANY(?) OR "
+                                                                       + "to_version_id = ANY(?);";
+  // the versions more than ? levels above the given leaves, and all of their ancestors, except those that are also within ? levels
+  public static final String SELECT_TRUNCATED_VERSIONS = "WITH RECURSIVE dag AS (SELECT vs.from_version_id, vs.to_version_id FROM "
+                                                           + "version_history_dag vhd JOIN version_successor vs ON vs.id = vhd.version_successor_id "
+                                                           + "WHERE vhd.item_id = ?), "
+                                                           + "levels (version_id, level) AS (SELECT unnest(?), 1 UNION SELECT dag.from_version_id, "
+                                                           + "levels.level + 1 FROM levels JOIN dag ON dag.to_version_id = levels.version_id "
+                                                           + "WHERE levels.level <= ?), "
+                                                           + "removed (version_id) AS (SELECT version_id FROM levels WHERE level = ? + 1 UNION "
+                                                           + "SELECT dag.from_version_id FROM removed JOIN dag ON dag.to_version_id = removed.version_id) "
+                                                           + "SELECT version_id FROM removed WHERE version_id <> 0 AND version_id NOT IN "
+                                                           + "(SELECT version_id FROM levels WHERE level <= ?);";
+  // the given versions that rows of other versions still point to, and so cannot be deleted
+  public static final String SELECT_REFERENCED_VERSIONS = "SELECT v.id AS version_id FROM unnest(?) AS v (id) WHERE "
+                                                            + "EXISTS (SELECT 1 FROM edge_version e WHERE v.id IN (e.from_node_version_start_id, "
+                                                            + "e.from_node_version_end_id, e.to_node_version_start_id, e.to_node_version_end_id)) "
+                                                            + "OR EXISTS (SELECT 1 FROM graph_version_edge g WHERE g.edge_version_id = v.id) "
+                                                            + "OR EXISTS (SELECT 1 FROM lineage_edge_version l WHERE v.id IN (l.from_rich_version_id, "
+                                                            + "l.to_rich_version_id, l.principal_id)) "
+                                                            + "OR EXISTS (SELECT 1 FROM lineage_graph_version_edge lg WHERE lg.lineage_edge_version_id = v.id) "
+                                                            + "OR EXISTS (SELECT 1 FROM rich_version r WHERE r.structure_version_id = v.id);";
+  public static final String SELECT_DAG_CHILDREN_OF_VERSIONS = "SELECT DISTINCT vs.to_version_id FROM version_history_dag vhd JOIN "
+                                                                 + "version_successor vs ON vs.id = vhd.version_successor_id WHERE vhd.item_id = ? "
+                                                                 + "AND vs.from_version_id = ANY(?) AND NOT vs.to_version_id = ANY(?);";
 
   /* Item-specific statements */
-  public static final String INSERT_ITEM = "INSERT INTO ITEM (id) VALUES (%d);";
-  public static final String INSERT_ITEM_TAG_WITH_VALUE =
-    "INSERT INTO item_tag (item_id, key, value, type) VALUES (%d, " + "\'%s\', \'%s\', \'%s\');";
-  public static final String INSERT_ITEM_TAG_NO_VALUE = "INSERT INTO item_tag (item_id, key, value, type) VALUES (%d, \'%s\', null, null);";
-  public static final String SELECT_ITEM_TAGS = "SELECT * FROM item_tag WHERE item_id = %d;";
-  public static final String SELECT_ITEM_TAGS_BY_KEY = "SELECT * FROM item_tag WHERE key = \'%s\';";
+  public static final String INSERT_ITEM = "INSERT INTO ITEM (id) VALUES (?);";
+  public static final String INSERT_ITEM_TAG_WITH_VALUE = "INSERT INTO item_tag (item_id, key, value, type) VALUES (?, ?, ?, ?::data_type);";
+  public static final String INSERT_ITEM_TAG_NO_VALUE = "INSERT INTO item_tag (item_id, key, value, type) VALUES (?, ?, null, null);";
+  public static final String SELECT_ITEM_TAGS = "SELECT * FROM item_tag WHERE item_id = ?;";
+  public static final String SELECT_ITEM_TAGS_BY_KEY = "SELECT * FROM item_tag WHERE key = ?;";
+  public static final String INSERT_ITEM_LEAF = "INSERT INTO item_leaf (item_id, version_id) VALUES (?, ?);";
+  public static final String DELETE_ITEM_LEAF = "DELETE FROM item_leaf WHERE item_id = ? AND version_id = ?;";
+  public static final String SELECT_ITEM_LEAVES = "SELECT version_id FROM item_leaf WHERE item_id = ? ORDER BY version_id;";
+
+  /* Id block-specific statements */
+  public static final String LEASE_ID_BLOCK = "INSERT INTO id_block (name, next_id) VALUES (?, 1 + ?) ON CONFLICT (name) DO UPDATE SET "
+                                                + "next_id = id_block.next_id + EXCLUDED.next_id - 1 RETURNING next_id - ? AS first_id;";
+  public static final String SEED_ID_BLOCK = "WITH r (first_id, last_id) AS (VALUES (?::bigint, ?::bigint)) "
+                                               + "INSERT INTO id_block (name, next_id) SELECT ?, GREATEST("
+                                               + "(SELECT MAX(id) FROM version, r WHERE id BETWEEN first_id AND last_id), "
+                                               + "(SELECT MAX(id) FROM version_successor, r WHERE id BETWEEN first_id AND last_id), "
+                                               + "(SELECT MAX(id) FROM item, r WHERE id BETWEEN first_id AND last_id), first_id) - first_id + 1 "
+                                               + "FROM r ON CONFLICT (name) DO UPDATE SET next_id = GREATEST(id_block.next_id, EXCLUDED.next_id);";
 
   /* Edge-specific statements */
-  public static final String INSERT_EDGE_WITH_NAME =
-    "INSERT INTO edge (item_id, source_key, from_node_id, to_node_id, name) VALUES (%d, \'%s\', %d, %d, \'%s\');";
+  public static final String INSERT_EDGE_WITH_NAME = "INSERT INTO edge (item_id, source_key, from_node_id, to_node_id, name) VALUES (?, ?, ?, ?, ?);";
   public static final String INSERT_EDGE_WITHOUT_NAME =
-    "INSERT INTO edge (item_id, source_key, from_node_id, to_node_id, name) VALUES (%d, \'%s\', %d, %d, null);";
+    "INSERT INTO edge (item_id, source_key, from_node_id, to_node_id, name) VALUES (?, ?, ?, ?, null);";
   public static final String INSERT_EDGE_VERSION = "INSERT INTO edge_version (id, edge_id, from_node_version_start_id, from_node_version_end_id, "
-                                                     + "to_node_version_start_id, to_node_version_end_id) VALUES (%d, %d, %d, %d, %d, %d);";
-  public static final String UPDATE_EDGE_VERSION = "UPDATE edge_version SET from_node_version_end_id = %d, to_node_version_end_id = %d WHERE id = "
-                                                     + "%d;";
+                                                     + "to_node_version_start_id, to_node_version_end_id) VALUES (?, ?, ?, ?, ?, ?);";
+  public static final String UPDATE_EDGE_VERSION = "UPDATE edge_version SET from_node_version_end_id = ?, to_node_version_end_id = ? WHERE id = ?;";
 
   /* Graph-specific statements */
-  public static final String INSERT_GRAPH_VERSION = "INSERT INTO graph_version (id, graph_id) VALUES (%d, %d);";
-  public static final String INSERT_GRAPH_VERSION_EDGE = "INSERT INTO graph_version_edge (graph_version_id, edge_version_id) VALUES (%d, %d);";
-  public static final String SELECT_GRAPH_VERSION_EDGES = "SELECT * FROM graph_version_edge WHERE graph_version_id = %d;";
-  public static final String DELETE_ALL_GRAPH_VERSION_EDGES = "DELETE FROM %s WHERE %s_version_id = %d";
+  public static final String INSERT_GRAPH_VERSION = "INSERT INTO graph_version (id, graph_id) VALUES (?, ?);";
+  public static final String INSERT_GRAPH_VERSION_EDGE = "INSERT INTO graph_version_edge (graph_version_id, edge_version_id) VALUES (?, ?);";
+  public static final String SELECT_GRAPH_VERSION_EDGES = "SELECT * FROM graph_version_edge WHERE graph_version_id = ?;";
+  public static final String GRAPH_VERSION_EDGE_IDS_COLUMN = ", ARRAY(SELECT edge_version_id FROM graph_version_edge WHERE graph_version_id = "
+                                                              + "v.id) AS edge_version_ids";
+  public static final String DELETE_ALL_GRAPH_VERSION_EDGES = "DELETE FROM %s WHERE %s = ANY(?);";
 
   /* Node-specific statements */
-  public static final String INSERT_NODE_VERSION = "INSERT INTO node_version (id, node_id) VALUES (%d, %d);";
-  public static final String SELECT_NODE_VERSION_ADJACENT_LINEAGE = "SELECT * FROM lineage_edge_version WHERE from_rich_version_id = %d;";
+  public static final String INSERT_NODE_VERSION = "INSERT INTO node_version (id, node_id) VALUES (?, ?);";
+  public static final String SELECT_NODE_VERSION_ADJACENT_LINEAGE = "SELECT * FROM lineage_edge_version WHERE from_rich_version_id = ?;";
 
   /* Rich Version-specific statements */
-  public static final String INSERT_RICH_VERSION_WITH_REFERENCE = "INSERT INTO rich_version (id, structure_version_id, reference) VALUES (%d, %d, "
-                                                                    + "\'%s\');";
-  public static final String INSERT_RICH_VERSION_WITHOUT_REFERENCE = "INSERT INTO rich_version (id, structure_version_id, reference) VALUES (%d, %d, "
+  public static final String INSERT_RICH_VERSION_WITH_REFERENCE = "INSERT INTO rich_version (id, structure_version_id, reference) VALUES (?, ?, ?);";
+  public static final String INSERT_RICH_VERSION_WITHOUT_REFERENCE = "INSERT INTO rich_version (id, structure_version_id, reference) VALUES (?, ?, "
                                                                        + "null);";
-  public static final String INSERT_RICH_VERSION_TAG_WITH_VALUE = "INSERT INTO rich_version_tag (rich_version_id, key, value, type) VALUES (%d, "
-                                                                    + "\'%s\', \'%s\', \'%s\');";
-  public static final String INSERT_RICH_VERSION_TAG_NO_VALUE = "INSERT INTO rich_version_tag (rich_version_id, key, value, type) VALUES (%d, "
-                                                                  + "\'%s\', null, null);";
+  public static final String INSERT_RICH_VERSION_TAG_WITH_VALUE = "INSERT INTO rich_version_tag (rich_version_id, key, value, type) VALUES (?, ?, ?, "
+                                                                    + "?::data_type);";
+  public static final String INSERT_RICH_VERSION_TAG_NO_VALUE = "INSERT INTO rich_version_tag (rich_version_id, key, value, type) VALUES (?, ?, "
+                                                                  + "null, null);";
   public static final String INSERT_RICH_VERSION_EXTERNAL_PARAMETER = "INSERT INTO rich_version_external_parameter (rich_version_id, key, value) "
-                                                                        + "VALUES (%d, \'%s\', \'%s\');";
-  public static final String SELECT_RICH_VERSION_EXTERNAL_PARAMETERS = "SELECT * FROM rich_version_external_parameter WHERE rich_version_id = %d;";
-  public static final String SELECT_RICH_VERSION_TAGS = "SELECT * FROM rich_version_tag WHERE rich_version_id = %d;";
-  public static final String SELECT_RICH_VERSION_TAGS_BY_KEY = "SELECT * FROM rich_version_tag WHERE key = \'%s\';";
-  public static final String DELETE_RICH_VERSION_TAGS = "DELETE FROM rich_version_tag WHERE rich_version_id = %d";
-  public static final String DELETE_RICH_EXTERNAL_PARAMETERS = "DELETE FROM rich_version_external_parameter WHERE rich_version_id = %d";
+                                                                        + "VALUES (?, ?, ?);";
+  public static final String SELECT_RICH_VERSION_EXTERNAL_PARAMETERS = "SELECT * FROM rich_version_external_parameter WHERE rich_version_id = ?;";
+  public static final String SELECT_RICH_VERSION_TAGS = "SELECT * FROM rich_version_tag WHERE rich_version_id = ?;";
+  public static final String SELECT_RICH_VERSION_TAGS_BY_KEY = "SELECT * FROM rich_version_tag WHERE key = ?;";
+  public static final String DELETE_RICH_VERSION_TAGS = "DELETE FROM rich_version_tag WHERE rich_version_id = ANY(?);";
+  public static final String DELETE_RICH_EXTERNAL_PARAMETERS = "DELETE FROM rich_version_external_parameter WHERE rich_version_id = ANY(?);";
+  public static final String SELECT_RICH_VERSION_JOINED = "SELECT v.*, r.structure_version_id AS rich_structure_version_id, r.reference AS "
+                                                           + "rich_reference, (SELECT json_agg(json_build_array(t.key, t.value, t.type)) FROM "
+                                                           + "rich_version_tag t WHERE t.rich_version_id = r.id) AS rich_tags, (SELECT "
+                                                           + "json_agg(json_build_array(p.key, p.value)) FROM rich_version_external_parameter p "
+                                                           + "WHERE p.rich_version_id = r.id) AS rich_parameters%s FROM %s v JOIN rich_version r "
+                                                           + "ON r.id = v.id WHERE v.id = ?;";
+  public static final String SELECT_RICH_VERSIONS_JOINED = "SELECT v.*, r.structure_version_id AS rich_structure_version_id, r.reference AS "
+                                                            + "rich_reference, (SELECT json_agg(json_build_array(t.key, t.value, t.type)) FROM "
+                                                            + "rich_version_tag t WHERE t.rich_version_id = r.id) AS rich_tags, (SELECT "
+                                                            + "json_agg(json_build_array(p.key, p.value)) FROM rich_version_external_parameter p "
+                                                            + "WHERE p.rich_version_id = r.id) AS rich_parameters%s FROM %s v JOIN rich_version r "
+                                                            + "ON r.id = v.id WHERE v.id = ANY(?);";
 
   /* Structure-specific statements */
-  public static final String INSERT_STRUCTURE_VERSION = "INSERT INTO structure_version (id, structure_id) VALUES (%d, %d);";
+  public static final String INSERT_STRUCTURE_VERSION = "INSERT INTO structure_version (id, structure_id) VALUES (?, ?);";
   public static final String INSERT_STRUCTURE_VERSION_ATTRIBUTE = "INSERT INTO structure_version_attribute (structure_version_id, key, type) "
-                                                                    + "VALUES (%d, \'%s\', \'%s\');";
-  public static final String SELECT_STRUCTURE_VERSION_ATTRIBUTES = "SELECT * FROM structure_version_attribute WHERE structure_version_id = %d;";
-  public static final String DELETE_STRUCTURE_VERSION_ATTRIBUTES = "DELETE FROM structure_version_attribute WHERE structure_version_id = %d";
+                                                                    + "VALUES (?, ?, ?);";
+  public static final String SELECT_STRUCTURE_VERSION_ATTRIBUTES = "SELECT * FROM structure_version_attribute WHERE structure_version_id = ?;";
+  public static final String SELECT_STRUCTURE_VERSIONS_ATTRIBUTES = "SELECT * FROM structure_version_attribute WHERE structure_version_id = "
+                                                                     + "ANY(?);";
+  public static final String DELETE_STRUCTURE_VERSION_ATTRIBUTES = "DELETE FROM structure_version_attribute WHERE structure_version_id = ANY(?);";
 
   /* Lineage Edge-specific statements */
   public static final String INSERT_LINEAGE_EDGE_VERSION = "INSERT INTO lineage_edge_version (id, lineage_edge_id, from_rich_version_id, "
-                                                             + "to_rich_version_id, principal_id) VALUES (%d, %d, %d, %d, %d);";
+                                                             + "to_rich_version_id, principal_id) VALUES (?, ?, ?, ?, ?);";
 
   /* Lineage Graph-specific statements */
-  public static final String INSERT_LINEAGE_GRAPH_VERSION = "INSERT INTO lineage_graph_version (id, lineage_graph_id) VALUES (%d, %d);";
+  public static final String INSERT_LINEAGE_GRAPH_VERSION = "INSERT INTO lineage_graph_version (id, lineage_graph_id) VALUES (?, ?);";
   public static final String INSERT_LINEAGE_GRAPH_VERSION_EDGE = "INSERT INTO lineage_graph_version_edge (lineage_graph_version_id, "
-                                                                   + "lineage_edge_version_id) VALUES (%d, %d);";
-  public static final String SELECT_LINEAGE_GRAPH_VERSION_EDGES = "SELECT * FROM lineage_graph_version_edge WHERE lineage_graph_version_id = %d;";
+                                                                   + "lineage_edge_version_id) VALUES (?, ?);";
+  public static final String SELECT_LINEAGE_GRAPH_VERSION_EDGES = "SELECT * FROM lineage_graph_version_edge WHERE lineage_graph_version_id = ?;";
+  public static final String LINEAGE_GRAPH_VERSION_EDGE_IDS_COLUMN = ", ARRAY(SELECT lineage_edge_version_id FROM lineage_graph_version_edge "
+                                                                      + "WHERE lineage_graph_version_id = v.id) AS lineage_edge_version_ids";
 }
@@ -11,24 +11,31 @@
  */
 package edu.berkeley.ground.postgres.dao.core;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.dao.core.EdgeDao;
 import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
 import edu.berkeley.ground.common.model.core.Edge;
+import edu.berkeley.ground.common.model.version.Tag;
 import edu.berkeley.ground.common.util.IdGenerator;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
 import edu.berkeley.ground.postgres.dao.version.PostgresItemDao;
+import edu.berkeley.ground.postgres.util.ColumnIndex;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import play.db.Database;
-import play.libs.Json;
 
 
 public class PostgresEdgeDao extends PostgresItemDao<Edge> implements EdgeDao {
 
+  private static final RowMapper<Edge> EDGE_MAPPER = (resultSet, columns) ->
+    new Edge(resultSet.getLong(columns.of("item_id")), resultSet.getString(columns.of("name")), resultSet.getString(columns.of("source_key")),
+              resultSet.getLong(columns.of("from_node_id")), resultSet.getLong(columns.of("to_node_id")), null);
+
   public PostgresEdgeDao(Database dbSource, IdGenerator idGenerator) {
     super(dbSource, idGenerator);
   }
@@ -52,29 +59,36 @@ public class PostgresEdgeDao extends PostgresItemDao<Edge> implements EdgeDao {
       String name = edge.getName();
 
       if (name != null) {
-        postgresStatements.append(String.format(SqlConstants.INSERT_EDGE_WITH_NAME, uniqueId, edge.getSourceKey(), edge.getFromNodeId(),
-          edge.getToNodeId(), name));
+        postgresStatements.append(SqlConstants.INSERT_EDGE_WITH_NAME, uniqueId, edge.getSourceKey(), edge.getFromNodeId(), edge.getToNodeId(), name);
       } else {
-        postgresStatements.append(String.format(SqlConstants.INSERT_EDGE_WITHOUT_NAME, uniqueId, edge.getSourceKey(), edge.getFromNodeId(),
-          edge.getToNodeId()));
+        postgresStatements.append(SqlConstants.INSERT_EDGE_WITHOUT_NAME, uniqueId, edge.getSourceKey(), edge.getFromNodeId(), edge.getToNodeId());
       }
 
     } catch (Exception e) {
       throw new GroundException(e);
     }
+    this.appendItemCreateNotification(postgresStatements, newEdge.getId());
+    this.getSourceKeyIndex().add(edge.getSourceKey());
     PostgresUtils.executeSqlList(dbSource, postgresStatements);
+    this.getSourceKeyIndex().putItemId(edge.getSourceKey(), newEdge.getId());
     return newEdge;
   }
 
+  @Override
+  protected Edge mapItem(ResultSet resultSet, ColumnIndex columns, Map<String, Tag> tags) throws SQLException {
+    Edge edge = EDGE_MAPPER.mapRow(resultSet, columns);
+    return new Edge(edge.getId(), edge.getName(), edge.getSourceKey(), edge.getFromNodeId(), edge.getToNodeId(), tags);
+  }
+
   @Override
   protected Edge retrieve(String sql, Object field) throws GroundException {
-    JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
+    List<Edge> edges = PostgresUtils.executeQuery(dbSource, sql, EDGE_MAPPER, field);
 
-    if (json.size() == 0) {
+    if (edges.isEmpty()) {
       throw new GroundException(ExceptionType.ITEM_NOT_FOUND, this.getType().getSimpleName(), field.toString());
     }
 
-    Edge edge = Json.fromJson(json.get(0), Edge.class);
+    Edge edge = edges.get(0);
     long id = edge.getId();
     return new Edge(id, edge.getName(), edge.getSourceKey(), edge.getFromNodeId(), edge.getToNodeId(),
                      super.postgresTagDao.retrieveFromDatabaseByItemId(id));
@@ -82,14 +96,12 @@ public class PostgresEdgeDao extends PostgresItemDao<Edge> implements EdgeDao {
 
   @Override
   public List<Long> getLeaves(String sourceKey) throws GroundException {
-    Edge edge = retrieveFromDatabase(sourceKey);
-    return super.getLeaves(edge.getId());
+    return super.getLeaves(this.resolveItemId(sourceKey));
   }
 
   @Override
   public Map<Long, Long> getHistory(String sourceKey) throws GroundException {
-    Edge edge = retrieveFromDatabase(sourceKey);
-    return super.getHistory(edge.getId());
+    return super.getHistory(this.resolveItemId(sourceKey));
   }
 
   @Override
@@ -1,24 +1,36 @@
 package edu.berkeley.ground.postgres.dao.core;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.dao.core.EdgeVersionDao;
 import edu.berkeley.ground.common.exception.GroundException;
-import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
 import edu.berkeley.ground.common.model.core.Edge;
 import edu.berkeley.ground.common.model.core.EdgeVersion;
-import edu.berkeley.ground.common.model.core.RichVersion;
 import edu.berkeley.ground.common.model.version.VersionHistoryDag;
 import edu.berkeley.ground.common.util.IdGenerator;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
 import edu.berkeley.ground.postgres.dao.version.PostgresVersionHistoryDagDao;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
-import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import play.db.Database;
-import play.libs.Json;
 
 public class PostgresEdgeVersionDao extends PostgresRichVersionDao<EdgeVersion> implements EdgeVersionDao {
 
+  // null end ids read as 0, which EdgeVersion stores as -1
+  private static final RowMapper<EdgeVersion> EDGE_VERSION_MAPPER = (resultSet, columns) ->
+    new EdgeVersion(resultSet.getLong(columns.of("id")), null, -1, null, null, resultSet.getLong(columns.of("edge_id")),
+                     resultSet.getLong(columns.of("from_node_version_start_id")), resultSet.getLong(columns.of("from_node_version_end_id")),
+                     resultSet.getLong(columns.of("to_node_version_start_id")), resultSet.getLong(columns.of("to_node_version_end_id")));
+
+  private static final RowMapper<EdgeVersion> JOINED_EDGE_VERSION_MAPPER = (resultSet, columns) ->
+    new EdgeVersion(resultSet.getLong(columns.of("id")), mapRichVersion(resultSet, columns), EDGE_VERSION_MAPPER.mapRow(resultSet, columns));
+
   private PostgresEdgeDao postgresEdgeDao;
 
   public PostgresEdgeVersionDao(Database dbSource, IdGenerator idGenerator) {
@@ -28,51 +40,66 @@ public class PostgresEdgeVersionDao extends PostgresRichVersionDao<EdgeVersion>
 
   @Override
   public EdgeVersion create(final EdgeVersion edgeVersion, List<Long> parentIds) throws GroundException {
-    final long uniqueId = this.idGenerator.generateVersionId();
-    EdgeVersion newEdgeVersion = new EdgeVersion(uniqueId, edgeVersion);
+    return this.create(Collections.singletonList(edgeVersion), Collections.singletonList(parentIds)).get(0);
+  }
 
-    PostgresStatements updateVersionList = this.postgresEdgeDao.update(newEdgeVersion.getEdgeId(), newEdgeVersion.getId(), parentIds);
+  @Override
+  public List<EdgeVersion> create(final List<EdgeVersion> edgeVersions, List<List<Long>> parentIds) throws GroundException {
+    long[] uniqueIds = this.idGenerator.generateVersionIds(edgeVersions.size());
 
-    for (long parentId : parentIds) {
-      if (parentId != 0) {
-        updateVersionList.merge(this.updatePreviousVersion(newEdgeVersion, newEdgeVersion.getEdgeId(), parentId));
-      }
+    List<EdgeVersion> newEdgeVersions = new ArrayList<>(uniqueIds.length);
+    Map<Long, EdgeVersion> batch = new HashMap<>();
+    for (int i = 0; i < uniqueIds.length; i++) {
+      EdgeVersion newEdgeVersion = new EdgeVersion(uniqueIds[i], edgeVersions.get(i));
+
+      newEdgeVersions.add(newEdgeVersion);
+      batch.put(newEdgeVersion.getId(), newEdgeVersion);
     }
 
-    try {
-      PostgresStatements statements = super.insert(newEdgeVersion);
-      Long fromEndId = edgeVersion.getFromNodeVersionEndId();
-      Long toEndId = edgeVersion.getToNodeVersionEndId();
+    // a parent's end ids are set by the first of its children only, as they would be one create at a time
+    PostgresStatements previousVersionUpdates = new PostgresStatements();
+    Set<Long> updatedParents = new HashSet<>();
+    for (int i = 0; i < newEdgeVersions.size() && i < parentIds.size(); i++) {
+      EdgeVersion newEdgeVersion = newEdgeVersions.get(i);
 
-      if (fromEndId == -1) {
-        fromEndId = null;
+      for (long parentId : parentIds.get(i)) {
+        if (parentId != 0 && updatedParents.add(parentId)) {
+          previousVersionUpdates.merge(this.updatePreviousVersion(newEdgeVersion, newEdgeVersion.getEdgeId(), parentId, batch));
+        }
       }
+    }
 
-      if (toEndId == -1) {
-        toEndId = null;
-      }
+    return this.createAll(newEdgeVersions, parentIds, this.postgresEdgeDao, EdgeVersion::getEdgeId, previousVersionUpdates);
+  }
 
-      statements.append(String.format(SqlConstants.INSERT_EDGE_VERSION, uniqueId, edgeVersion.getEdgeId(), edgeVersion.getFromNodeVersionStartId(),
-        fromEndId, edgeVersion.getToNodeVersionStartId(), toEndId));
+  @Override
+  public PostgresStatements insert(final EdgeVersion edgeVersion) throws GroundException {
+    PostgresStatements statements = super.insert(edgeVersion);
+    Long fromEndId = edgeVersion.getFromNodeVersionEndId();
+    Long toEndId = edgeVersion.getToNodeVersionEndId();
 
-      statements.merge(updateVersionList);
+    if (fromEndId == -1) {
+      fromEndId = null;
+    }
 
-      PostgresUtils.executeSqlList(dbSource, statements);
-    } catch (Exception e) {
-      throw new GroundException(e);
+    if (toEndId == -1) {
+      toEndId = null;
     }
 
-    return newEdgeVersion;
+    statements.append(SqlConstants.INSERT_EDGE_VERSION, edgeVersion.getId(), edgeVersion.getEdgeId(), edgeVersion.getFromNodeVersionStartId(),
+      fromEndId, edgeVersion.getToNodeVersionStartId(), toEndId);
+
+    return statements;
   }
 
+
   @Override
-  public PostgresStatements delete(long id) {
+  public PostgresStatements delete(long[] ids) {
     PostgresStatements statements = new PostgresStatements();
-    statements.append(String.format(SqlConstants.DELETE_BY_ID, "edge_version", id));
+    statements.append(String.format(SqlConstants.DELETE_BY_IDS, "edge_version"), ids);
 
-    PostgresStatements superStatements = super.delete(id);
-    superStatements.merge(statements);
-    return superStatements;
+    statements.merge(super.delete(ids));
+    return statements;
   }
 
   /**
@@ -83,13 +110,15 @@ public class PostgresEdgeVersionDao extends PostgresRichVersionDao<EdgeVersion>
    * @param parentId the id of the parent we're updating
    * @return a set of statements to set the end versions
    */
-  private PostgresStatements updatePreviousVersion(EdgeVersion currentVersion, long edgeId, long parentId) throws GroundException {
+  private PostgresStatements updatePreviousVersion(EdgeVersion currentVersion, long edgeId, long parentId, Map<Long, EdgeVersion> batch)
+    throws GroundException {
+
     PostgresStatements statements = new PostgresStatements();
 
     PostgresVersionHistoryDagDao versionHistoryDagDao =
       new PostgresVersionHistoryDagDao(this.dbSource, this.idGenerator);
 
-    EdgeVersion parentVersion = this.retrieveFromDatabase(parentId);
+    EdgeVersion parentVersion = batch.containsKey(parentId) ? batch.get(parentId) : this.retrieveFromDatabase(parentId);
     Edge edge = this.postgresEdgeDao.retrieveFromDatabase(edgeId);
 
     long fromNodeId = edge.getFromNodeId();
@@ -111,7 +140,7 @@ public class PostgresEdgeVersionDao extends PostgresRichVersionDao<EdgeVersion>
     }
 
     if (fromEndId != -1 || toEndId != -1) {
-      statements.append(String.format(SqlConstants.UPDATE_EDGE_VERSION, fromEndId, toEndId, parentId));
+      statements.append(SqlConstants.UPDATE_EDGE_VERSION, fromEndId, toEndId, parentId);
     }
 
     return statements;
@@ -119,17 +148,21 @@ public class PostgresEdgeVersionDao extends PostgresRichVersionDao<EdgeVersion>
 
   @Override
   public EdgeVersion retrieveFromDatabase(long id) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_STAR_BY_ID, "edge_version", id);
-    JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
-
-    if (json.size() == 0) {
-      throw new GroundException(ExceptionType.VERSION_NOT_FOUND, this.getType().getSimpleName(), String.format("%d", id));
-    }
+    return this.retrieveWithRichVersion(id, "edge_version", "", this.getType(), JOINED_EDGE_VERSION_MAPPER);
+  }
 
-    json = json.get(0);
-    EdgeVersion edgeVersion = Json.fromJson(json, EdgeVersion.class);
-    RichVersion richVersion = super.retrieveFromDatabase(id);
+  @Override
+  public List<EdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.retrieveAllWithRichVersion(ids, "edge_version", "", JOINED_EDGE_VERSION_MAPPER);
+  }
 
-    return new EdgeVersion(id, richVersion, edgeVersion);
+  /**
+   * The query that exports EdgeVersions, with their tags and external parameters.
+   *
+   * @param sourceKey the source key of the one Item whose versions to export, or null for all
+   * @return the query
+   */
+  public PostgresExportQuery getExportQuery(String sourceKey) {
+    return this.exportWithRichVersion("edge", "", sourceKey, JOINED_EDGE_VERSION_MAPPER);
   }
 }
@@ -48,28 +48,29 @@ public class PostgresGraphDao extends PostgresItemDao<Graph> implements GraphDao
 
       String name = graph.getName();
       if (name != null) {
-        postgresStatements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "graph", uniqueId, graph.getSourceKey(), name));
+        postgresStatements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "graph"), uniqueId, graph.getSourceKey(), name);
       } else {
-        postgresStatements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "graph", uniqueId, graph.getSourceKey()));
+        postgresStatements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "graph"), uniqueId, graph.getSourceKey());
       }
     } catch (Exception e) {
       throw new GroundException(e);
     }
 
+    this.appendItemCreateNotification(postgresStatements, newGraph.getId());
+    this.getSourceKeyIndex().add(graph.getSourceKey());
     PostgresUtils.executeSqlList(dbSource, postgresStatements);
+    this.getSourceKeyIndex().putItemId(graph.getSourceKey(), newGraph.getId());
     return newGraph;
   }
 
   @Override
   public List<Long> getLeaves(String sourceKey) throws GroundException {
-    Graph graph = retrieveFromDatabase(sourceKey);
-    return super.getLeaves(graph.getId());
+    return super.getLeaves(this.resolveItemId(sourceKey));
   }
 
   @Override
   public Map<Long, Long> getHistory(String sourceKey) throws GroundException {
-    Graph graph = retrieveFromDatabase(sourceKey);
-    return super.getHistory(graph.getId());
+    return super.getHistory(this.resolveItemId(sourceKey));
   }
 
   @Override
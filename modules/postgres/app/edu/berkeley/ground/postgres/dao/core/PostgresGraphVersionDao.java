@@ -1,22 +1,30 @@
 package edu.berkeley.ground.postgres.dao.core;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.dao.core.GraphVersionDao;
 import edu.berkeley.ground.common.exception.GroundException;
-import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
 import edu.berkeley.ground.common.model.core.GraphVersion;
 import edu.berkeley.ground.common.model.core.RichVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
+import edu.berkeley.ground.postgres.util.PostgresCopyStatement;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import play.db.Database;
-import play.libs.Json;
 
 public class PostgresGraphVersionDao extends PostgresRichVersionDao<GraphVersion> implements GraphVersionDao {
 
+  private static final RowMapper<GraphVersion> JOINED_GRAPH_VERSION_MAPPER = (resultSet, columns) -> {
+    RichVersion richVersion = mapRichVersion(resultSet, columns);
+    return new GraphVersion(richVersion.getId(), richVersion.getTags(), richVersion.getStructureVersionId(), richVersion.getReference(),
+                             richVersion.getParameters(), resultSet.getLong(columns.of("graph_id")),
+                             getLongList(resultSet, columns.of("edge_version_ids")));
+  };
+
   private PostgresGraphDao postgresGraphDao;
 
   public PostgresGraphVersionDao(Database dbSource, IdGenerator idGenerator) {
@@ -28,59 +36,69 @@ public class PostgresGraphVersionDao extends PostgresRichVersionDao<GraphVersion
   public GraphVersion create(final GraphVersion graphVersion, List<Long> parentIds)
     throws GroundException {
 
-    final long uniqueId = idGenerator.generateVersionId();
-    GraphVersion newGraphVersion = new GraphVersion(uniqueId, graphVersion);
+    return this.create(Collections.singletonList(graphVersion), Collections.singletonList(parentIds)).get(0);
+  }
 
-    PostgresStatements updateVersionList = this.postgresGraphDao.update(newGraphVersion.getGraphId(), newGraphVersion.getId(), parentIds);
+  @Override
+  public List<GraphVersion> create(final List<GraphVersion> graphVersions, List<List<Long>> parentIds) throws GroundException {
+    long[] uniqueIds = idGenerator.generateVersionIds(graphVersions.size());
 
-    try {
-      PostgresStatements statements = super.insert(newGraphVersion);
-      statements.append(String.format(SqlConstants.INSERT_GRAPH_VERSION, uniqueId, graphVersion.getGraphId()));
-      statements.merge(updateVersionList);
+    List<GraphVersion> newGraphVersions = new ArrayList<>(uniqueIds.length);
+    for (int i = 0; i < uniqueIds.length; i++) {
+      newGraphVersions.add(new GraphVersion(uniqueIds[i], graphVersions.get(i)));
+    }
 
-      for (Long id : newGraphVersion.getEdgeVersionIds()) {
-        statements.append(String.format(SqlConstants.INSERT_GRAPH_VERSION_EDGE, newGraphVersion.getId(), id));
-      }
+    return this.createAll(newGraphVersions, parentIds, this.postgresGraphDao, GraphVersion::getGraphId, new PostgresStatements());
+  }
 
-      PostgresUtils.executeSqlList(dbSource, statements);
-    } catch (Exception e) {
-      throw new GroundException(e);
+  @Override
+  public PostgresStatements insert(final GraphVersion graphVersion) throws GroundException {
+    PostgresStatements statements = super.insert(graphVersion);
+    statements.append(SqlConstants.INSERT_GRAPH_VERSION, graphVersion.getId(), graphVersion.getGraphId());
+
+    List<Long> edgeVersionIds = graphVersion.getEdgeVersionIds();
+    if (edgeVersionIds.size() > PostgresUtils.getCopyThreshold()) {
+      statements.append(PostgresCopyStatement.ofMembers("graph_version_edge", "graph_version_id", "edge_version_id", graphVersion.getId(),
+        edgeVersionIds));
+    } else {
+      for (Long id : edgeVersionIds) {
+        statements.append(SqlConstants.INSERT_GRAPH_VERSION_EDGE, graphVersion.getId(), id);
+      }
     }
-    return newGraphVersion;
+
+    return statements;
   }
 
+
   @Override
-  public PostgresStatements delete(long id) {
+  public PostgresStatements delete(long[] ids) {
     PostgresStatements statements = new PostgresStatements();
-    statements.append(String.format(SqlConstants.DELETE_ALL_GRAPH_VERSION_EDGES, "graph_version_edge", "graph_version_id", id));
-    statements.append(String.format(SqlConstants.DELETE_BY_ID, "graph_version", id));
+    statements.append(String.format(SqlConstants.DELETE_ALL_GRAPH_VERSION_EDGES, "graph_version_edge", "graph_version_id"), ids);
+    statements.append(String.format(SqlConstants.DELETE_BY_IDS, "graph_version"), ids);
 
-    PostgresStatements superStatements = super.delete(id);
-    superStatements.merge(statements);
-    return superStatements;
+    statements.merge(super.delete(ids));
+    return statements;
   }
 
   @Override
   public GraphVersion retrieveFromDatabase(long id) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_STAR_BY_ID, "graph_version", id);
-    JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
-
-    if (json.size() == 0) {
-      throw new GroundException(ExceptionType.VERSION_NOT_FOUND, this.getType().getSimpleName(), String.format("%d", id));
-    }
-
-    GraphVersion graphVersion = Json.fromJson(json.get(0), GraphVersion.class);
-    List<Long> edgeIds = new ArrayList<>();
-    sql = String.format(SqlConstants.SELECT_GRAPH_VERSION_EDGES, id);
+    return this.retrieveWithRichVersion(id, "graph_version", SqlConstants.GRAPH_VERSION_EDGE_IDS_COLUMN, this.getType(), JOINED_GRAPH_VERSION_MAPPER);
+  }
 
-    JsonNode edgeJson = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
-    for (JsonNode edge : edgeJson) {
-      edgeIds.add(edge.get("edgeVersionId").asLong());
-    }
+  @Override
+  public List<GraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.retrieveAllWithRichVersion(ids, "graph_version", SqlConstants.GRAPH_VERSION_EDGE_IDS_COLUMN, JOINED_GRAPH_VERSION_MAPPER);
+  }
 
-    RichVersion richVersion = super.retrieveFromDatabase(id);
-    return new GraphVersion(id, richVersion.getTags(), richVersion.getStructureVersionId(), richVersion.getReference(), richVersion.getParameters(),
-                             graphVersion.getGraphId(), edgeIds);
+  /**
+   * The query that exports GraphVersions, with their tags, external parameters and edge version ids.
+   *
+   * @param sourceKey the source key of the one Item whose versions to export, or null for all
+   * @return the query
+   */
+  public PostgresExportQuery getExportQuery(String sourceKey) {
+    return this.exportWithRichVersion("graph", SqlConstants.GRAPH_VERSION_EDGE_IDS_COLUMN, sourceKey, JOINED_GRAPH_VERSION_MAPPER);
   }
+
 }
 
@@ -38,28 +38,29 @@ public class PostgresNodeDao extends PostgresItemDao<Node> implements NodeDao {
       String name = node.getName();
 
       if (name != null) {
-        statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "node", uniqueId, node.getSourceKey(), name));
+        statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "node"), uniqueId, node.getSourceKey(), name);
       } else {
-        statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "node", uniqueId, node.getSourceKey()));
+        statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "node"), uniqueId, node.getSourceKey());
       }
     } catch (Exception e) {
       throw new GroundException(e);
     }
 
+    this.appendItemCreateNotification(statements, newNode.getId());
+    this.getSourceKeyIndex().add(node.getSourceKey());
     PostgresUtils.executeSqlList(dbSource, statements);
+    this.getSourceKeyIndex().putItemId(node.getSourceKey(), newNode.getId());
     return newNode;
   }
 
   @Override
   public List<Long> getLeaves(String sourceKey) throws GroundException {
-    Node node = this.retrieveFromDatabase(sourceKey);
-    return super.getLeaves(node.getId());
+    return super.getLeaves(this.resolveItemId(sourceKey));
   }
 
   @Override
   public Map<Long, Long> getHistory(String sourceKey) throws GroundException {
-    Node node = retrieveFromDatabase(sourceKey);
-    return super.getHistory(node.getId());
+    return super.getHistory(this.resolveItemId(sourceKey));
   }
 
   @Override
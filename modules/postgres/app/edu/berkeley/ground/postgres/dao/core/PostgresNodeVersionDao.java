@@ -1,22 +1,27 @@
 package edu.berkeley.ground.postgres.dao.core;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.dao.core.NodeVersionDao;
 import edu.berkeley.ground.common.exception.GroundException;
-import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
 import edu.berkeley.ground.common.model.core.NodeVersion;
-import edu.berkeley.ground.common.model.core.RichVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import play.db.Database;
-import play.libs.Json;
 
 public class PostgresNodeVersionDao extends PostgresRichVersionDao<NodeVersion> implements NodeVersionDao {
 
+  private static final RowMapper<NodeVersion> NODE_VERSION_MAPPER = (resultSet, columns) ->
+    new NodeVersion(resultSet.getLong(columns.of("id")), null, -1, null, null, resultSet.getLong(columns.of("node_id")));
+
+  private static final RowMapper<NodeVersion> JOINED_NODE_VERSION_MAPPER = (resultSet, columns) ->
+    new NodeVersion(resultSet.getLong(columns.of("id")), mapRichVersion(resultSet, columns), NODE_VERSION_MAPPER.mapRow(resultSet, columns));
+
   private PostgresNodeDao postgresNodeDao;
 
   public PostgresNodeVersionDao(Database dbSource, IdGenerator idGenerator) {
@@ -28,57 +33,61 @@ public class PostgresNodeVersionDao extends PostgresRichVersionDao<NodeVersion>
   public NodeVersion create(final NodeVersion nodeVersion, List<Long> parentIds)
     throws GroundException {
 
-    final long uniqueId = idGenerator.generateVersionId();
-    NodeVersion newNodeVersion = new NodeVersion(uniqueId, nodeVersion);
-
-    PostgresStatements updateVersionList = this.postgresNodeDao.update(newNodeVersion.getNodeId(), newNodeVersion.getId(), parentIds);
+    return this.create(Collections.singletonList(nodeVersion), Collections.singletonList(parentIds)).get(0);
+  }
 
-    try {
-      PostgresStatements statements = super.insert(newNodeVersion);
-      statements.append(String.format(SqlConstants.INSERT_NODE_VERSION, uniqueId, nodeVersion.getNodeId()));
-      statements.merge(updateVersionList);
+  @Override
+  public List<NodeVersion> create(final List<NodeVersion> nodeVersions, List<List<Long>> parentIds) throws GroundException {
+    long[] uniqueIds = idGenerator.generateVersionIds(nodeVersions.size());
 
-      PostgresUtils.executeSqlList(dbSource, statements);
-    } catch (Exception e) {
-      e.printStackTrace();
-      throw new GroundException(e);
+    List<NodeVersion> newNodeVersions = new ArrayList<>(uniqueIds.length);
+    for (int i = 0; i < uniqueIds.length; i++) {
+      newNodeVersions.add(new NodeVersion(uniqueIds[i], nodeVersions.get(i)));
     }
-    return newNodeVersion;
+
+    return this.createAll(newNodeVersions, parentIds, this.postgresNodeDao, NodeVersion::getNodeId, new PostgresStatements());
+  }
+
+  @Override
+  public PostgresStatements insert(final NodeVersion nodeVersion) throws GroundException {
+    PostgresStatements statements = super.insert(nodeVersion);
+    statements.append(SqlConstants.INSERT_NODE_VERSION, nodeVersion.getId(), nodeVersion.getNodeId());
+
+    return statements;
   }
 
+
   @Override
-  public PostgresStatements delete(long id) {
+  public PostgresStatements delete(long[] ids) {
     PostgresStatements statements = new PostgresStatements();
-    statements.append(String.format(SqlConstants.DELETE_BY_ID, "node_version", id));
+    statements.append(String.format(SqlConstants.DELETE_BY_IDS, "node_version"), ids);
 
-    PostgresStatements superStatements = super.delete(id);
-    superStatements.merge(statements);
-    return superStatements;
+    statements.merge(super.delete(ids));
+    return statements;
   }
 
   @Override
   public NodeVersion retrieveFromDatabase(long id) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_STAR_BY_ID, "node_version", id);
-    JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(this.dbSource, sql));
-
-    if (json.size() == 0) {
-      throw new GroundException(ExceptionType.VERSION_NOT_FOUND, this.getType().getSimpleName(), String.format("%d", id));
-    }
+    return this.retrieveWithRichVersion(id, "node_version", "", this.getType(), JOINED_NODE_VERSION_MAPPER);
+  }
 
-    NodeVersion nodeVersion = Json.fromJson(json.get(0), NodeVersion.class);
-    RichVersion richVersion = super.retrieveFromDatabase(id);
+  @Override
+  public List<NodeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.retrieveAllWithRichVersion(ids, "node_version", "", JOINED_NODE_VERSION_MAPPER);
+  }
 
-    return new NodeVersion(id, richVersion, nodeVersion);
+  /**
+   * The query that exports NodeVersions, with their tags and external parameters.
+   *
+   * @param sourceKey the source key of the one Item whose versions to export, or null for all
+   * @return the query
+   */
+  public PostgresExportQuery getExportQuery(String sourceKey) {
+    return this.exportWithRichVersion("node", "", sourceKey, JOINED_NODE_VERSION_MAPPER);
   }
 
   @Override
   public List<Long> retrieveAdjacentLineageEdgeVersion(long startId) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_NODE_VERSION_ADJACENT_LINEAGE, startId);
-    JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(this.dbSource, sql));
-
-    List<Long> result = new ArrayList<>();
-    json.forEach(x -> result.add(x.get("id").asLong()));
-
-    return result;
+    return PostgresUtils.executeQuery(this.dbSource, SqlConstants.SELECT_NODE_VERSION_ADJACENT_LINEAGE, RowMapper.longColumn("id"), startId);
   }
 }
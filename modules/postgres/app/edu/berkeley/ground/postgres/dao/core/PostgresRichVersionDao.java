@@ -11,6 +11,7 @@
  */
 package edu.berkeley.ground.postgres.dao.core;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.dao.core.RichVersionDao;
 import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
@@ -22,12 +23,18 @@ import edu.berkeley.ground.common.util.IdGenerator;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
 import edu.berkeley.ground.postgres.dao.version.PostgresTagDao;
 import edu.berkeley.ground.postgres.dao.version.PostgresVersionDao;
+import edu.berkeley.ground.postgres.util.ColumnIndex;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
-import java.sql.Connection;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
+import java.sql.Array;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import play.db.Database;
 
@@ -58,9 +65,9 @@ public abstract class PostgresRichVersionDao<T extends RichVersion> extends Post
 
     String reference = richVersion.getReference();
     if (reference != null) {
-      statements.append(String.format(SqlConstants.INSERT_RICH_VERSION_WITH_REFERENCE, id, structureVersionId, reference));
+      statements.append(SqlConstants.INSERT_RICH_VERSION_WITH_REFERENCE, id, structureVersionId, reference);
     } else {
-      statements.append(String.format(SqlConstants.INSERT_RICH_VERSION_WITHOUT_REFERENCE, id, structureVersionId));
+      statements.append(SqlConstants.INSERT_RICH_VERSION_WITHOUT_REFERENCE, id, structureVersionId);
     }
 
     final Map<String, Tag> tags = richVersion.getTags();
@@ -73,7 +80,7 @@ public abstract class PostgresRichVersionDao<T extends RichVersion> extends Post
     Map<String, String> parameters = richVersion.getParameters();
     if (!parameters.isEmpty()) {
       for (String key : parameters.keySet()) {
-        statements.append(String.format(SqlConstants.INSERT_RICH_VERSION_EXTERNAL_PARAMETER, richVersion.getId(), key, parameters.get(key)));
+        statements.append(SqlConstants.INSERT_RICH_VERSION_EXTERNAL_PARAMETER, richVersion.getId(), key, parameters.get(key));
       }
     }
 
@@ -81,72 +88,134 @@ public abstract class PostgresRichVersionDao<T extends RichVersion> extends Post
   }
 
   @Override
-  public PostgresStatements delete(long id) {
+  public PostgresStatements delete(long[] ids) {
     PostgresStatements statements = new PostgresStatements();
 
-    statements.append(String.format(SqlConstants.DELETE_RICH_VERSION_TAGS, id));
-    statements.append(String.format(SqlConstants.DELETE_RICH_EXTERNAL_PARAMETERS, id));
-    statements.append(String.format(SqlConstants.DELETE_BY_ID, "rich_version", id));
+    statements.append(SqlConstants.DELETE_RICH_VERSION_TAGS, ids);
+    statements.append(SqlConstants.DELETE_RICH_EXTERNAL_PARAMETERS, ids);
+    statements.append(String.format(SqlConstants.DELETE_BY_IDS, "rich_version"), ids);
 
-    PostgresStatements superStatements = super.delete(id);
-    superStatements.merge(statements);
-    return superStatements;
+    statements.merge(super.delete(ids));
+    return statements;
   }
 
 
   @Override
   public RichVersion retrieveFromDatabase(long id) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_STAR_BY_ID, "rich_version", id);
+    return this.retrieveWithRichVersion(id, "rich_version", "", RichVersion.class, PostgresRichVersionDao::mapRichVersion);
+  }
+
+  /**
+   * Retrieve a version's subtype row together with its rich_version row, tags and external
+   * parameters, in one query on one connection. The tags and parameters are aggregated into JSON
+   * columns of the same row, so that mapRichVersion can read them back.
+   *
+   * @param id the id of the version
+   * @param table the subtype table, aliased v in the query
+   * @param extraColumns further select list entries, each starting with a comma, or ""
+   * @param type the type reported if there is no such version
+   * @param mapper builds the version from the joined row
+   * @param <V> the type of version retrieved
+   * @return the version
+   * @throws GroundException the version does not exist, or could not be read
+   */
+  protected <V> V retrieveWithRichVersion(long id, String table, String extraColumns, Class<?> type, RowMapper<V> mapper)
+    throws GroundException {
 
-    ResultSet resultSet;
-    String reference;
-    long structureVersionId;
+    String sql = String.format(SqlConstants.SELECT_RICH_VERSION_JOINED, extraColumns, table);
+    List<V> versions = PostgresUtils.executeQuery(dbSource, sql, mapper, id);
 
-    try (Connection con = dbSource.getConnection()) {
-      Statement stmt = con.createStatement();
-      resultSet = stmt.executeQuery(sql);
+    if (versions.isEmpty()) {
+      throw new GroundException(ExceptionType.VERSION_NOT_FOUND, type.getSimpleName(), String.format("%d", id));
+    }
 
-      if (!resultSet.next()) {
-        throw new GroundException(ExceptionType.VERSION_NOT_FOUND, RichVersion.class.getSimpleName(), String.format("%d", id));
-      }
+    return versions.get(0);
+  }
 
-      reference = resultSet.getString(3);
-      structureVersionId = resultSet.getLong(2);
-      stmt.close();
-      con.close();
-    } catch (SQLException e) {
-      throw new GroundException(e);
+  /**
+   * Retrieve many versions the way retrieveWithRichVersion retrieves one, in a single WHERE id =
+   * ANY(?) query.
+   *
+   * @param ids the ids of the versions
+   * @param table the subtype table, aliased v in the query
+   * @param extraColumns further select list entries, each starting with a comma, or ""
+   * @param mapper builds a version from a joined row
+   * @param <V> the type of version retrieved
+   * @return the versions found, in the order of ids
+   * @throws GroundException the versions could not be read
+   */
+  protected <V extends RichVersion> List<V> retrieveAllWithRichVersion(List<Long> ids, String table, String extraColumns, RowMapper<V> mapper)
+    throws GroundException {
+
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
     }
 
-    Map<String, Tag> tags = this.postgresTagDao.retrieveFromDatabaseByVersionId(id);
-    Map<String, String> referenceParams = getReferenceParameters(id);
-    structureVersionId = structureVersionId == 0 ? -1 : structureVersionId;
+    String sql = String.format(SqlConstants.SELECT_RICH_VERSIONS_JOINED, extraColumns, table);
+    return inRequestOrder(ids, PostgresUtils.executeQuery(dbSource, sql, mapper, toIdArray(ids)));
+  }
 
-    return new RichVersion(id, tags, structureVersionId, reference, referenceParams);
+  /**
+   * The query that exports versions the way retrieveWithRichVersion retrieves one, in id order.
+   *
+   * @param itemTable the table of the versions' Item type; the versions are in its _version table
+   * @param extraColumns further select list entries, each starting with a comma, or ""
+   * @param sourceKey the source key of the one Item whose versions to export, or null for all
+   * @param mapper builds a version from a joined row
+   * @return the query
+   */
+  protected PostgresExportQuery exportWithRichVersion(String itemTable, String extraColumns, String sourceKey, RowMapper<?> mapper) {
+    String table = itemTable + "_version";
+
+    if (sourceKey == null) {
+      return new PostgresExportQuery(table, String.format(SqlConstants.EXPORT_RICH_VERSIONS, extraColumns, table, ""), mapper);
+    }
+
+    String where = String.format(SqlConstants.EXPORT_VERSIONS_WHERE_SOURCE_KEY, itemTable, itemTable);
+    return new PostgresExportQuery(table, String.format(SqlConstants.EXPORT_RICH_VERSIONS, extraColumns, table, where), mapper, sourceKey);
   }
 
-  private Map<String, String> getReferenceParameters(long id) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_RICH_VERSION_EXTERNAL_PARAMETERS, id);
-    Map<String, String> referenceParameters = new HashMap<>();
+  /**
+   * Build the RichVersion part of a row read with SELECT_RICH_VERSION_JOINED.
+   *
+   * @param resultSet the result set, positioned on the row
+   * @param columns the positions of the result set's columns
+   * @return the RichVersion
+   * @throws SQLException the row could not be read
+   */
+  protected static RichVersion mapRichVersion(ResultSet resultSet, ColumnIndex columns) throws SQLException {
+    long id = resultSet.getLong(columns.of("id"));
+    long structureVersionId = resultSet.getLong(columns.of("rich_structure_version_id"));
+    String reference = resultSet.getString(columns.of("rich_reference"));
+
+    Map<String, Tag> tags = PostgresTagDao.parseTags(id, PostgresUtils.readJsonArray(resultSet, columns.of("rich_tags")));
+    Map<String, String> referenceParams = new HashMap<>();
 
-    try (Connection con = dbSource.getConnection()) {
-      Statement stmt = con.createStatement();
-      ResultSet parameterSet = stmt.executeQuery(sql);
-      if (!parameterSet.next()) {
-        return referenceParameters;
-      }
-      do {
-        referenceParameters.put(parameterSet.getString(2), parameterSet.getString(3));
-      } while (parameterSet.next());
-
-      stmt.close();
-      con.close();
-    } catch (Exception e) {
-      throw new GroundException(e);
+    for (JsonNode row : PostgresUtils.readJsonArray(resultSet, columns.of("rich_parameters"))) {
+      referenceParams.put(row.get(0).asText(), PostgresTagDao.textOf(row.get(1)));
     }
-    return referenceParameters;
+
+    structureVersionId = structureVersionId == 0 ? -1 : structureVersionId;
+    return new RichVersion(id, tags, structureVersionId, reference, referenceParams);
   }
 
+  /**
+   * Read a bigint array column, such as one built with ARRAY(SELECT ...).
+   *
+   * @param resultSet the result set, positioned on the row
+   * @param column the position of the column
+   * @return the ids in the array, empty if it is null
+   * @throws SQLException the column could not be read
+   */
+  protected static List<Long> getLongList(ResultSet resultSet, int column) throws SQLException {
+    Array array = resultSet.getArray(column);
+
+    if (array == null) {
+      return new ArrayList<>();
+    }
+
+    return new ArrayList<>(Arrays.asList((Long[]) array.getArray()));
+  }
 
   /**
    * Validate that the given Tags satisfy the StructureVersion's requirements.
@@ -50,9 +50,9 @@ public class PostgresStructureDao extends PostgresItemDao<Structure> implements
       String name = structure.getName();
 
       if (name != null) {
-        postgresStatements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "structure", uniqueId, structure.getSourceKey(), name));
+        postgresStatements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "structure"), uniqueId, structure.getSourceKey(), name);
       } else {
-        postgresStatements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "structure", uniqueId, structure.getSourceKey()));
+        postgresStatements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "structure"), uniqueId, structure.getSourceKey());
       }
     } catch (GroundException e) {
       throw e;
@@ -60,20 +60,21 @@ public class PostgresStructureDao extends PostgresItemDao<Structure> implements
       throw new GroundException(e);
     }
 
+    this.appendItemCreateNotification(postgresStatements, newStructure.getId());
+    this.getSourceKeyIndex().add(structure.getSourceKey());
     PostgresUtils.executeSqlList(dbSource, postgresStatements);
+    this.getSourceKeyIndex().putItemId(structure.getSourceKey(), newStructure.getId());
     return newStructure;
   }
 
   @Override
   public List<Long> getLeaves(String sourceKey) throws GroundException {
-    Structure structure = retrieveFromDatabase(sourceKey);
-    return super.getLeaves(structure.getId());
+    return super.getLeaves(this.resolveItemId(sourceKey));
   }
 
   @Override
   public Map<Long, Long> getHistory(String sourceKey) throws GroundException {
-    Structure structure = retrieveFromDatabase(sourceKey);
-    return super.getHistory(structure.getId());
+    return super.getHistory(this.resolveItemId(sourceKey));
   }
 
   @Override
@@ -18,18 +18,47 @@ import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
 import edu.berkeley.ground.common.model.core.StructureVersion;
 import edu.berkeley.ground.common.model.version.GroundType;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.common.util.StringInterner;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
 import edu.berkeley.ground.postgres.dao.version.PostgresVersionDao;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
+import java.sql.SQLException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import play.db.Database;
-import play.libs.Json;
 
 public class PostgresStructureVersionDao extends PostgresVersionDao<StructureVersion> implements StructureVersionDao {
 
+  private static final RowMapper<StructureVersion> STRUCTURE_VERSION_MAPPER = (resultSet, columns) ->
+    new StructureVersion(resultSet.getLong(columns.of("id")), resultSet.getLong(columns.of("structure_id")), null);
+
+  private static final RowMapper<Map.Entry<String, String>> ATTRIBUTE_MAPPER = (resultSet, columns) ->
+    new SimpleImmutableEntry<>(StringInterner.internKey(resultSet.getString(columns.of("key"))), resultSet.getString(columns.of("type")));
+
+  private static final RowMapper<Map.Entry<Long, Map.Entry<String, String>>> VERSION_ATTRIBUTE_MAPPER = (resultSet, columns) ->
+    new SimpleImmutableEntry<>(resultSet.getLong(columns.of("structure_version_id")), ATTRIBUTE_MAPPER.mapRow(resultSet, columns));
+
+  private static final RowMapper<StructureVersion> EXPORTED_STRUCTURE_VERSION_MAPPER = (resultSet, columns) -> {
+    Map<String, GroundType> attributes = new HashMap<>();
+
+    try {
+      for (JsonNode attribute : PostgresUtils.readJsonArray(resultSet, columns.of("attributes"))) {
+        attributes.put(StringInterner.internKey(attribute.get(0).asText()), GroundType.fromString(attribute.get(1).asText()));
+      }
+    } catch (GroundException e) {
+      throw new SQLException(e.getMessage(), e);
+    }
+
+    return new StructureVersion(resultSet.getLong(columns.of("id")), resultSet.getLong(columns.of("structure_id")), attributes);
+  };
+
   private PostgresStructureDao postgresStructureDao;
 
   public PostgresStructureVersionDao(Database dbSource, IdGenerator idGenerator) {
@@ -39,62 +68,62 @@ public class PostgresStructureVersionDao extends PostgresVersionDao<StructureVer
 
   @Override
   public final StructureVersion create(final StructureVersion structureVersion, List<Long> parentIds) throws GroundException {
+    return this.create(Collections.singletonList(structureVersion), Collections.singletonList(parentIds)).get(0);
+  }
 
-    long uniqueId = idGenerator.generateItemId();
-    StructureVersion newStructureVersion = new StructureVersion(uniqueId, structureVersion);
-    PostgresStatements updateVersionList = this.postgresStructureDao
-                                             .update(newStructureVersion.getStructureId(), newStructureVersion.getId(), parentIds);
+  @Override
+  public final List<StructureVersion> create(final List<StructureVersion> structureVersions, List<List<Long>> parentIds) throws GroundException {
+    long[] uniqueIds = idGenerator.generateVersionIds(structureVersions.size());
 
-    try {
-      PostgresStatements statements = super.insert(newStructureVersion);
-      statements.append(String.format(SqlConstants.INSERT_STRUCTURE_VERSION, uniqueId, structureVersion.getStructureId()));
+    List<StructureVersion> newStructureVersions = new ArrayList<>(uniqueIds.length);
+    for (int i = 0; i < uniqueIds.length; i++) {
+      newStructureVersions.add(new StructureVersion(uniqueIds[i], structureVersions.get(i)));
+    }
 
-      for (Map.Entry<String, GroundType> attribute : structureVersion.getAttributes().entrySet()) {
-        statements.append(String.format(SqlConstants.INSERT_STRUCTURE_VERSION_ATTRIBUTE, uniqueId, attribute.getKey(), attribute.getValue()));
-      }
+    return this.createAll(newStructureVersions, parentIds, this.postgresStructureDao, StructureVersion::getStructureId, new PostgresStatements());
+  }
 
-      statements.merge(updateVersionList);
+  @Override
+  public PostgresStatements insert(final StructureVersion structureVersion) throws GroundException {
+    PostgresStatements statements = super.insert(structureVersion);
+    statements.append(SqlConstants.INSERT_STRUCTURE_VERSION, structureVersion.getId(), structureVersion.getStructureId());
 
-      PostgresUtils.executeSqlList(dbSource, statements);
-    } catch (Exception e) {
-      throw new GroundException(e);
+    for (Map.Entry<String, GroundType> attribute : structureVersion.getAttributes().entrySet()) {
+      statements.append(SqlConstants.INSERT_STRUCTURE_VERSION_ATTRIBUTE, structureVersion.getId(), attribute.getKey(),
+        attribute.getValue().toString());
     }
 
-    return newStructureVersion;
+    return statements;
   }
 
+
   @Override
-  public PostgresStatements delete(long id) {
+  public PostgresStatements delete(long[] ids) {
     PostgresStatements statements = new PostgresStatements();
-    statements.append(String.format(SqlConstants.DELETE_STRUCTURE_VERSION_ATTRIBUTES, id));
-    statements.append(String.format(SqlConstants.DELETE_BY_ID, "structure_version", id));
+    statements.append(SqlConstants.DELETE_STRUCTURE_VERSION_ATTRIBUTES, ids);
+    statements.append(String.format(SqlConstants.DELETE_BY_IDS, "structure_version"), ids);
 
-    PostgresStatements superStatements = super.delete(id);
-    superStatements.merge(statements);
-    return superStatements;
+    statements.merge(super.delete(ids));
+    return statements;
   }
 
   @Override
   public StructureVersion retrieveFromDatabase(final long id) throws GroundException {
     HashMap<String, GroundType> attributes;
     try {
-      String resultQuery = String.format(SqlConstants.SELECT_STAR_BY_ID, "structure_version", id);
-      JsonNode resultJson = Json.parse(PostgresUtils.executeQueryToJson(dbSource, resultQuery));
+      String resultQuery = String.format(SqlConstants.SELECT_STAR_BY_ID, "structure_version");
+      List<StructureVersion> structureVersions = PostgresUtils.executeQuery(dbSource, resultQuery, STRUCTURE_VERSION_MAPPER, id);
 
-      if (resultJson.size() == 0) {
+      if (structureVersions.isEmpty()) {
         throw new GroundException(ExceptionType.VERSION_NOT_FOUND, this.getType().getSimpleName(), String.format("%d", id));
       }
 
-      StructureVersion structureVersion = Json.fromJson(resultJson.get(0), StructureVersion.class);
-
-      String attributeQuery = String.format(SqlConstants.SELECT_STRUCTURE_VERSION_ATTRIBUTES, id);
-      JsonNode attributeJson = Json.parse(PostgresUtils.executeQueryToJson(dbSource, attributeQuery));
+      StructureVersion structureVersion = structureVersions.get(0);
 
       attributes = new HashMap<>();
-
-      for (JsonNode attribute : attributeJson) {
-        GroundType type = GroundType.fromString(attribute.get("type").asText());
-        attributes.put(attribute.get("key").asText(), type);
+      for (Map.Entry<String, String> attribute
+             : PostgresUtils.executeQuery(dbSource, SqlConstants.SELECT_STRUCTURE_VERSION_ATTRIBUTES, ATTRIBUTE_MAPPER, id)) {
+        attributes.put(attribute.getKey(), GroundType.fromString(attribute.getValue()));
       }
 
       structureVersion = new StructureVersion(structureVersion.getId(), structureVersion.getStructureId(), attributes);
@@ -103,4 +132,47 @@ public class PostgresStructureVersionDao extends PostgresVersionDao<StructureVer
       throw new GroundException(e);
     }
   }
+
+  @Override
+  public List<StructureVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    long[] idArray = toIdArray(ids);
+    String resultQuery = String.format(SqlConstants.SELECT_STAR_BY_IDS, "structure_version");
+    List<StructureVersion> structureVersions = PostgresUtils.executeQuery(dbSource, resultQuery, STRUCTURE_VERSION_MAPPER, idArray);
+
+    Map<Long, Map<String, GroundType>> attributes = new HashMap<>();
+    for (Map.Entry<Long, Map.Entry<String, String>> attribute
+           : PostgresUtils.executeQuery(dbSource, SqlConstants.SELECT_STRUCTURE_VERSIONS_ATTRIBUTES, VERSION_ATTRIBUTE_MAPPER, idArray)) {
+      attributes.computeIfAbsent(attribute.getKey(), id -> new HashMap<>())
+        .put(attribute.getValue().getKey(), GroundType.fromString(attribute.getValue().getValue()));
+    }
+
+    List<StructureVersion> results = new ArrayList<>(structureVersions.size());
+    for (StructureVersion structureVersion : structureVersions) {
+      results.add(new StructureVersion(structureVersion.getId(), structureVersion.getStructureId(),
+        attributes.getOrDefault(structureVersion.getId(), new HashMap<>())));
+    }
+
+    return inRequestOrder(ids, results);
+  }
+
+  /**
+   * The query that exports StructureVersions, with their attributes, in id order.
+   *
+   * @param sourceKey the source key of the one Structure whose versions to export, or null for all
+   * @return the query
+   */
+  public PostgresExportQuery getExportQuery(String sourceKey) {
+    if (sourceKey == null) {
+      return new PostgresExportQuery("structure_version", String.format(SqlConstants.EXPORT_STRUCTURE_VERSIONS, ""),
+        EXPORTED_STRUCTURE_VERSION_MAPPER);
+    }
+
+    String where = String.format(SqlConstants.EXPORT_VERSIONS_WHERE_SOURCE_KEY, "structure", "structure");
+    return new PostgresExportQuery("structure_version", String.format(SqlConstants.EXPORT_STRUCTURE_VERSIONS, where),
+      EXPORTED_STRUCTURE_VERSION_MAPPER, sourceKey);
+  }
 }
@@ -45,15 +45,18 @@ public class PostgresLineageEdgeDao extends PostgresItemDao<LineageEdge> impleme
     String name = lineageEdge.getName();
 
     if (name != null) {
-      statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "lineage_edge", newLineageEdge.getId(),
-        newLineageEdge.getSourceKey(), name));
+      statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "lineage_edge"), newLineageEdge.getId(),
+        newLineageEdge.getSourceKey(), name);
     } else {
-      statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "lineage_edge", newLineageEdge.getId(),
-        newLineageEdge.getSourceKey()));
+      statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "lineage_edge"), newLineageEdge.getId(),
+        newLineageEdge.getSourceKey());
     }
 
     try {
+      this.appendItemCreateNotification(statements, newLineageEdge.getId());
+      this.getSourceKeyIndex().add(lineageEdge.getSourceKey());
       PostgresUtils.executeSqlList(this.dbSource, statements);
+      this.getSourceKeyIndex().putItemId(lineageEdge.getSourceKey(), newLineageEdge.getId());
       return newLineageEdge;
     } catch (Exception e) {
       throw new GroundException(e);
@@ -62,14 +65,12 @@ public class PostgresLineageEdgeDao extends PostgresItemDao<LineageEdge> impleme
 
   @Override
   public List<Long> getLeaves(String sourceKey) throws GroundException {
-    LineageEdge lineageEdge = retrieveFromDatabase(sourceKey);
-    return super.getLeaves(lineageEdge.getId());
+    return super.getLeaves(this.resolveItemId(sourceKey));
   }
 
   @Override
   public Map<Long, Long> getHistory(String sourceKey) throws GroundException {
-    LineageEdge lineageEdge = retrieveFromDatabase(sourceKey);
-    return super.getHistory(lineageEdge.getId());
+    return super.getHistory(this.resolveItemId(sourceKey));
   }
 
   @Override
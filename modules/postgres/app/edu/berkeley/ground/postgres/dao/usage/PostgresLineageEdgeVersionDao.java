@@ -11,23 +11,31 @@
  */
 package edu.berkeley.ground.postgres.dao.usage;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.dao.usage.LineageEdgeVersionDao;
 import edu.berkeley.ground.common.exception.GroundException;
-import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
-import edu.berkeley.ground.common.model.core.RichVersion;
 import edu.berkeley.ground.common.model.usage.LineageEdgeVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
 import edu.berkeley.ground.postgres.dao.core.PostgresRichVersionDao;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
-import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import play.db.Database;
-import play.libs.Json;
 
 public class PostgresLineageEdgeVersionDao extends PostgresRichVersionDao<LineageEdgeVersion> implements LineageEdgeVersionDao {
 
+  private static final RowMapper<LineageEdgeVersion> LINEAGE_EDGE_VERSION_MAPPER = (resultSet, columns) ->
+    new LineageEdgeVersion(resultSet.getLong(columns.of("id")), null, null, null, null, resultSet.getLong(columns.of("from_rich_version_id")),
+                            resultSet.getLong(columns.of("to_rich_version_id")), resultSet.getLong(columns.of("lineage_edge_id")));
+
+  private static final RowMapper<LineageEdgeVersion> JOINED_LINEAGE_EDGE_VERSION_MAPPER = (resultSet, columns) ->
+    new LineageEdgeVersion(resultSet.getLong(columns.of("id")), mapRichVersion(resultSet, columns),
+                            LINEAGE_EDGE_VERSION_MAPPER.mapRow(resultSet, columns));
+
   private PostgresLineageEdgeDao postgresLineageEdgeDao;
 
   public PostgresLineageEdgeVersionDao(Database dbSource, IdGenerator idGenerator) {
@@ -38,49 +46,70 @@ public class PostgresLineageEdgeVersionDao extends PostgresRichVersionDao<Lineag
   @Override
   public LineageEdgeVersion create(final LineageEdgeVersion lineageEdgeVersion,
                                     List<Long> parentIds) throws GroundException {
-    final long uniqueId = idGenerator.generateVersionId();
 
-    LineageEdgeVersion newLineageEdgeVersion = new LineageEdgeVersion(uniqueId, lineageEdgeVersion);
+    return this.create(Collections.singletonList(lineageEdgeVersion), Collections.singletonList(parentIds)).get(0);
+  }
 
-    PostgresStatements updateVersionList = this.postgresLineageEdgeDao
-                                             .update(newLineageEdgeVersion.getLineageEdgeId(), newLineageEdgeVersion.getId(), parentIds);
+  @Override
+  public List<LineageEdgeVersion> create(final List<LineageEdgeVersion> lineageEdgeVersions, List<List<Long>> parentIds)
+    throws GroundException {
 
-    try {
-      PostgresStatements statements = super.insert(newLineageEdgeVersion);
-      statements.append(String.format(SqlConstants.INSERT_LINEAGE_EDGE_VERSION, uniqueId, newLineageEdgeVersion.getLineageEdgeId(),
-        newLineageEdgeVersion.getFromId(), newLineageEdgeVersion.getToId(), null));
-      statements.merge(updateVersionList);
+    long[] uniqueIds = idGenerator.generateVersionIds(lineageEdgeVersions.size());
 
-      PostgresUtils.executeSqlList(dbSource, statements);
-    } catch (Exception e) {
-      throw new GroundException(e);
+    List<LineageEdgeVersion> newLineageEdgeVersions = new ArrayList<>(uniqueIds.length);
+    for (int i = 0; i < uniqueIds.length; i++) {
+      newLineageEdgeVersions.add(new LineageEdgeVersion(uniqueIds[i], lineageEdgeVersions.get(i)));
     }
-    return newLineageEdgeVersion;
+
+    return this.createAll(newLineageEdgeVersions, parentIds, this.postgresLineageEdgeDao, LineageEdgeVersion::getLineageEdgeId,
+      new PostgresStatements());
+  }
+
+  /**
+   * A lineage edge version changes the adjacent lineage of the versions it connects.
+   */
+  @Override
+  protected List<Long> linkedVersionIds(LineageEdgeVersion lineageEdgeVersion) {
+    return Arrays.asList(lineageEdgeVersion.getFromId(), lineageEdgeVersion.getToId());
+  }
+
+  @Override
+  public PostgresStatements insert(final LineageEdgeVersion lineageEdgeVersion) throws GroundException {
+    PostgresStatements statements = super.insert(lineageEdgeVersion);
+    statements.append(SqlConstants.INSERT_LINEAGE_EDGE_VERSION, lineageEdgeVersion.getId(), lineageEdgeVersion.getLineageEdgeId(),
+      lineageEdgeVersion.getFromId(), lineageEdgeVersion.getToId(), null);
+
+    return statements;
   }
 
+
   @Override
-  public PostgresStatements delete(long id) {
+  public PostgresStatements delete(long[] ids) {
     PostgresStatements statements = new PostgresStatements();
-    statements.append(String.format(SqlConstants.DELETE_BY_ID, "lineage_edge_version", id));
+    statements.append(String.format(SqlConstants.DELETE_BY_IDS, "lineage_edge_version"), ids);
 
-    PostgresStatements superStatements = super.delete(id);
-    superStatements.merge(statements);
-    return superStatements;
+    statements.merge(super.delete(ids));
+    return statements;
   }
 
 
   @Override
   public LineageEdgeVersion retrieveFromDatabase(long id) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_STAR_BY_ID, "lineage_edge_version", id);
-    JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
-
-    if (json.size() == 0) {
-      throw new GroundException(ExceptionType.VERSION_NOT_FOUND, this.getType().getSimpleName(), String.format("%d", id));
-    }
+    return this.retrieveWithRichVersion(id, "lineage_edge_version", "", this.getType(), JOINED_LINEAGE_EDGE_VERSION_MAPPER);
+  }
 
-    LineageEdgeVersion lineageEdgeVersion = Json.fromJson(json.get(0), LineageEdgeVersion.class);
-    RichVersion richVersion = super.retrieveFromDatabase(id);
+  @Override
+  public List<LineageEdgeVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.retrieveAllWithRichVersion(ids, "lineage_edge_version", "", JOINED_LINEAGE_EDGE_VERSION_MAPPER);
+  }
 
-    return new LineageEdgeVersion(id, richVersion, lineageEdgeVersion);
+  /**
+   * The query that exports LineageEdgeVersions, with their tags and external parameters.
+   *
+   * @param sourceKey the source key of the one Item whose versions to export, or null for all
+   * @return the query
+   */
+  public PostgresExportQuery getExportQuery(String sourceKey) {
+    return this.exportWithRichVersion("lineage_edge", "", sourceKey, JOINED_LINEAGE_EDGE_VERSION_MAPPER);
   }
 }
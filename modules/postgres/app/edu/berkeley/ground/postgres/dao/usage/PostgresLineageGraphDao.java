@@ -45,15 +45,18 @@ public class PostgresLineageGraphDao extends PostgresItemDao<LineageGraph> imple
 
     String name = lineageGraph.getName();
     if (name != null) {
-      statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "lineage_graph", newLineageGraph.getId(),
-        newLineageGraph.getSourceKey(), name));
+      statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITH_NAME, "lineage_graph"), newLineageGraph.getId(),
+        newLineageGraph.getSourceKey(), name);
     } else {
-      statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "lineage_graph", newLineageGraph.getId(),
-        newLineageGraph.getSourceKey()));
+      statements.append(String.format(SqlConstants.INSERT_GENERIC_ITEM_WITHOUT_NAME, "lineage_graph"), newLineageGraph.getId(),
+        newLineageGraph.getSourceKey());
     }
 
     try {
+      this.appendItemCreateNotification(statements, newLineageGraph.getId());
+      this.getSourceKeyIndex().add(lineageGraph.getSourceKey());
       PostgresUtils.executeSqlList(dbSource, statements);
+      this.getSourceKeyIndex().putItemId(lineageGraph.getSourceKey(), newLineageGraph.getId());
       return newLineageGraph;
     } catch (Exception e) {
       throw new GroundException(e);
@@ -62,14 +65,12 @@ public class PostgresLineageGraphDao extends PostgresItemDao<LineageGraph> imple
 
   @Override
   public List<Long> getLeaves(String sourceKey) throws GroundException {
-    LineageGraph lineageGraph = retrieveFromDatabase(sourceKey);
-    return super.getLeaves(lineageGraph.getId());
+    return super.getLeaves(this.resolveItemId(sourceKey));
   }
 
   @Override
   public Map<Long, Long> getHistory(String sourceKey) throws GroundException {
-    LineageGraph lineageGraph = retrieveFromDatabase(sourceKey);
-    return super.getHistory(lineageGraph.getId());
+    return super.getHistory(this.resolveItemId(sourceKey));
   }
 
   @Override
@@ -11,24 +11,32 @@
  */
 package edu.berkeley.ground.postgres.dao.usage;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.dao.usage.LineageGraphVersionDao;
 import edu.berkeley.ground.common.exception.GroundException;
-import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
 import edu.berkeley.ground.common.model.core.RichVersion;
 import edu.berkeley.ground.common.model.usage.LineageGraphVersion;
 import edu.berkeley.ground.common.util.IdGenerator;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
 import edu.berkeley.ground.postgres.dao.core.PostgresRichVersionDao;
+import edu.berkeley.ground.postgres.util.PostgresCopyStatement;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import play.db.Database;
-import play.libs.Json;
 
 public class PostgresLineageGraphVersionDao extends PostgresRichVersionDao<LineageGraphVersion> implements LineageGraphVersionDao {
 
+  private static final RowMapper<LineageGraphVersion> JOINED_LINEAGE_GRAPH_VERSION_MAPPER = (resultSet, columns) -> {
+    RichVersion richVersion = mapRichVersion(resultSet, columns);
+    return new LineageGraphVersion(richVersion.getId(), richVersion.getTags(), richVersion.getStructureVersionId(), richVersion.getReference(),
+                                    richVersion.getParameters(), resultSet.getLong(columns.of("lineage_graph_id")),
+                                    getLongList(resultSet, columns.of("lineage_edge_version_ids")));
+  };
+
   private PostgresLineageGraphDao postgresLineageGraphDao;
 
   public PostgresLineageGraphVersionDao(Database dbSource, IdGenerator idGenerator) {
@@ -39,63 +47,75 @@ public class PostgresLineageGraphVersionDao extends PostgresRichVersionDao<Linea
   @Override
   public LineageGraphVersion create(LineageGraphVersion lineageGraphVersion, List<Long> parentIds)
     throws GroundException {
-    final long uniqueId = idGenerator.generateVersionId();
-    LineageGraphVersion newLineageGraphVersion = new LineageGraphVersion(uniqueId, lineageGraphVersion);
 
-    PostgresStatements updateVersionList = this.postgresLineageGraphDao
-                                             .update(newLineageGraphVersion.getLineageGraphId(), newLineageGraphVersion.getId(),
-                                               parentIds);
+    return this.create(Collections.singletonList(lineageGraphVersion), Collections.singletonList(parentIds)).get(0);
+  }
 
-    try {
-      PostgresStatements statements = super.insert(newLineageGraphVersion);
-      statements.append(String.format(SqlConstants.INSERT_LINEAGE_GRAPH_VERSION, uniqueId, newLineageGraphVersion.getLineageGraphId()));
+  @Override
+  public List<LineageGraphVersion> create(final List<LineageGraphVersion> lineageGraphVersions, List<List<Long>> parentIds)
+    throws GroundException {
 
-      statements.merge(updateVersionList);
+    long[] uniqueIds = idGenerator.generateVersionIds(lineageGraphVersions.size());
 
-      for (Long id : newLineageGraphVersion.getLineageEdgeVersionIds()) {
-        statements.append(String.format(SqlConstants.INSERT_LINEAGE_GRAPH_VERSION_EDGE, newLineageGraphVersion.getId(), id));
-      }
+    List<LineageGraphVersion> newLineageGraphVersions = new ArrayList<>(uniqueIds.length);
+    for (int i = 0; i < uniqueIds.length; i++) {
+      newLineageGraphVersions.add(new LineageGraphVersion(uniqueIds[i], lineageGraphVersions.get(i)));
+    }
+
+    return this.createAll(newLineageGraphVersions, parentIds, this.postgresLineageGraphDao, LineageGraphVersion::getLineageGraphId,
+      new PostgresStatements());
+  }
 
-      PostgresUtils.executeSqlList(dbSource, statements);
-    } catch (Exception e) {
-      throw new GroundException(e);
+  @Override
+  public PostgresStatements insert(final LineageGraphVersion lineageGraphVersion) throws GroundException {
+    PostgresStatements statements = super.insert(lineageGraphVersion);
+    statements.append(SqlConstants.INSERT_LINEAGE_GRAPH_VERSION, lineageGraphVersion.getId(), lineageGraphVersion.getLineageGraphId());
+
+    List<Long> lineageEdgeVersionIds = lineageGraphVersion.getLineageEdgeVersionIds();
+    if (lineageEdgeVersionIds.size() > PostgresUtils.getCopyThreshold()) {
+      statements.append(PostgresCopyStatement.ofMembers("lineage_graph_version_edge", "lineage_graph_version_id", "lineage_edge_version_id",
+        lineageGraphVersion.getId(), lineageEdgeVersionIds));
+    } else {
+      for (Long id : lineageEdgeVersionIds) {
+        statements.append(SqlConstants.INSERT_LINEAGE_GRAPH_VERSION_EDGE, lineageGraphVersion.getId(), id);
+      }
     }
 
-    return newLineageGraphVersion;
+    return statements;
   }
 
+
   @Override
-  public PostgresStatements delete(long id) {
+  public PostgresStatements delete(long[] ids) {
     PostgresStatements statements = new PostgresStatements();
-    statements.append(String.format(SqlConstants.DELETE_ALL_GRAPH_VERSION_EDGES, "lineage_graph_version_edge", "lineage_graph_version_id", id));
-    statements.append(String.format(SqlConstants.DELETE_BY_ID, "graph_version", id));
+    statements.append(String.format(SqlConstants.DELETE_ALL_GRAPH_VERSION_EDGES, "lineage_graph_version_edge", "lineage_graph_version_id"), ids);
+    statements.append(String.format(SqlConstants.DELETE_BY_IDS, "lineage_graph_version"), ids);
 
-    PostgresStatements superStatements = super.delete(id);
-    superStatements.merge(statements);
-    return superStatements;
+    statements.merge(super.delete(ids));
+    return statements;
   }
 
   @Override
   public LineageGraphVersion retrieveFromDatabase(long id) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_STAR_BY_ID, "lineage_graph_version", id);
-    JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
-
-    if (json.size() == 0) {
-      throw new GroundException(ExceptionType.VERSION_NOT_FOUND, this.getType().getSimpleName(), String.format("%d", id));
-    }
-
-    LineageGraphVersion lineageGraphVersion = Json.fromJson(json.get(0), LineageGraphVersion.class);
-
-    List<Long> edgeIds = new ArrayList<>();
-    sql = String.format(SqlConstants.SELECT_LINEAGE_GRAPH_VERSION_EDGES, id);
+    return this.retrieveWithRichVersion(id, "lineage_graph_version", SqlConstants.LINEAGE_GRAPH_VERSION_EDGE_IDS_COLUMN, this.getType(),
+      JOINED_LINEAGE_GRAPH_VERSION_MAPPER);
+  }
 
-    JsonNode edgeJson = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
-    for (JsonNode edge : edgeJson) {
-      edgeIds.add(edge.get("lineageEdgeVersionId").asLong());
-    }
+  @Override
+  public List<LineageGraphVersion> retrieveFromDatabase(List<Long> ids) throws GroundException {
+    return this.retrieveAllWithRichVersion(ids, "lineage_graph_version", SqlConstants.LINEAGE_GRAPH_VERSION_EDGE_IDS_COLUMN,
+      JOINED_LINEAGE_GRAPH_VERSION_MAPPER);
+  }
 
-    RichVersion richVersion = super.retrieveFromDatabase(id);
-    return new LineageGraphVersion(id, richVersion.getTags(), richVersion.getStructureVersionId(), richVersion.getReference(),
-                                    richVersion.getParameters(), lineageGraphVersion.getLineageGraphId(), edgeIds);
+  /**
+   * The query that exports LineageGraphVersions, with their tags, external parameters and lineage edge
+   * version ids.
+   *
+   * @param sourceKey the source key of the one Item whose versions to export, or null for all
+   * @return the query
+   */
+  public PostgresExportQuery getExportQuery(String sourceKey) {
+    return this.exportWithRichVersion("lineage_graph", SqlConstants.LINEAGE_GRAPH_VERSION_EDGE_IDS_COLUMN, sourceKey, JOINED_LINEAGE_GRAPH_VERSION_MAPPER);
   }
+
 }
@@ -11,7 +11,7 @@
  */
 package edu.berkeley.ground.postgres.dao.version;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.CaseFormat;
 import edu.berkeley.ground.common.dao.version.ItemDao;
 import edu.berkeley.ground.common.exception.GroundException;
@@ -20,19 +20,36 @@ import edu.berkeley.ground.common.model.version.Item;
 import edu.berkeley.ground.common.model.version.Tag;
 import edu.berkeley.ground.common.model.version.VersionHistoryDag;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.ItemChange;
+import edu.berkeley.ground.postgres.cache.SourceKeyIndex;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
+import edu.berkeley.ground.postgres.util.ColumnIndex;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
+import edu.berkeley.ground.postgres.util.PostgresQueryStatement;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
 import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import play.db.Database;
 import play.libs.Json;
 
 public abstract class PostgresItemDao<T extends Item> implements ItemDao<T> {
 
+  private static final RowMapper<Object[]> ITEM_MAPPER = (resultSet, columns) -> new Object[] {
+    resultSet.getLong(columns.of("item_id")), resultSet.getString(columns.of("name")), resultSet.getString(columns.of("source_key"))
+  };
+
   private PostgresVersionHistoryDagDao postgresVersionHistoryDagDao;
   protected PostgresTagDao postgresTagDao;
   protected Database dbSource;
@@ -49,11 +66,9 @@ public abstract class PostgresItemDao<T extends Item> implements ItemDao<T> {
   public PostgresStatements insert(final T item) throws GroundException {
     long id = item.getId();
 
-    final List<String> sqlList = new ArrayList<>();
-    sqlList.add(String.format(SqlConstants.INSERT_ITEM, id));
-
     final Map<String, Tag> tags = item.getTags();
-    PostgresStatements postgresStatements = new PostgresStatements(sqlList);
+    PostgresStatements postgresStatements = new PostgresStatements();
+    postgresStatements.append(SqlConstants.INSERT_ITEM, id);
 
     if (tags != null) {
       for (String key : tags.keySet()) {
@@ -62,34 +77,214 @@ public abstract class PostgresItemDao<T extends Item> implements ItemDao<T> {
       }
     }
 
-    return new PostgresStatements(sqlList);
+    return postgresStatements;
   }
 
   @Override
   public T retrieveFromDatabase(String sourceKey) throws GroundException {
-    return this.retrieve(String.format(SqlConstants.SELECT_STAR_BY_SOURCE_KEY, CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE,
-      this.getType().getSimpleName()), sourceKey), sourceKey);
+    this.checkNotRuledOut(sourceKey);
+
+    T item;
+    try {
+      item = this.retrieve(String.format(SqlConstants.SELECT_STAR_BY_SOURCE_KEY, CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE,
+        this.getType().getSimpleName())), sourceKey);
+    } catch (GroundException e) {
+      if (e.getExceptionType() == ExceptionType.ITEM_NOT_FOUND) {
+        this.getSourceKeyIndex().recordAbsent(sourceKey);
+      }
+
+      throw e;
+    }
+
+    this.getSourceKeyIndex().putItemId(sourceKey, item.getId());
+    return item;
   }
 
   @Override
   public T retrieveFromDatabase(long id) throws GroundException {
     return this.retrieve(String.format(SqlConstants.SELECT_STAR_ITEM_BY_ID, CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE,
-      this.getType().getSimpleName()), id), id);
+      this.getType().getSimpleName())), id);
   }
 
+  /**
+   * Check whether an Item with this source key exists, before creating one. Keys the type's
+   * SourceKeyIndex rules out or has already resolved are answered without a query; otherwise only
+   * the item id is selected, and a miss is remembered. The filter may not have seen a key created
+   * by another instance yet, but the source_key unique constraint rejects that create anyway.
+   *
+   * @param sourceKey the source key to look for
+   * @return true if the Item exists
+   */
   @Override
-  public List<Long> getLeaves(long itemId) throws GroundException {
+  public boolean checkIfItemExists(String sourceKey) {
+    SourceKeyIndex index = this.getSourceKeyIndex();
+
+    if (index.getItemId(sourceKey) != null) {
+      return true;
+    }
+
+    if (!index.mightContain(sourceKey)) {
+      return false;
+    }
+
     try {
-      VersionHistoryDag dag = this.postgresVersionHistoryDagDao.retrieveFromDatabase(itemId);
+      this.resolveItemId(sourceKey);
 
-      return dag.getLeaves();
+      return true;
     } catch (GroundException e) {
-      if (!e.getMessage().contains("No results found for query:")) {
-        throw e;
+      // resolveItemId has already recorded a missing key as absent
+      return false;
+    }
+  }
+
+  /**
+   * Load every existing source key of this Item type into its SourceKeyIndex, so that the check
+   * before a create can rule out keys missing from it without a query.
+   *
+   * @throws GroundException the keys could not be read
+   */
+  public void warmSourceKeyIndex() throws GroundException {
+    Map<String, Long> itemIds = new LinkedHashMap<>();
+    PostgresUtils.executeQuery(dbSource, String.format(SqlConstants.SELECT_SOURCE_KEYS, this.getTableName()),
+      (resultSet, columns) -> itemIds.put(resultSet.getString(columns.of("source_key")), resultSet.getLong(columns.of("item_id"))));
+
+    this.getSourceKeyIndex().warm(itemIds);
+  }
+
+  /**
+   * Resolve a source key to the id of its Item, without loading the Item or its tags. Ids are
+   * cached in the type's SourceKeyIndex without expiry, since they never change. Any other key the
+   * index cannot rule out is looked up in the database, since the Item may have been created by
+   * another instance, and a miss is remembered.
+   *
+   * @param sourceKey the source key of the Item
+   * @return the Item's id
+   * @throws GroundException the Item does not exist or could not be read
+   */
+  public long resolveItemId(String sourceKey) throws GroundException {
+    SourceKeyIndex index = this.getSourceKeyIndex();
+    Long itemId = index.getItemId(sourceKey);
+
+    if (itemId != null) {
+      return itemId;
+    }
+
+    this.checkNotRuledOut(sourceKey);
+
+    List<Long> ids = PostgresUtils.executeQuery(dbSource, String.format(SqlConstants.SELECT_ITEM_ID_BY_SOURCE_KEY, this.getTableName()),
+      RowMapper.longColumn("item_id"), sourceKey);
+
+    if (ids.isEmpty()) {
+      index.recordAbsent(sourceKey);
+      throw new GroundException(ExceptionType.ITEM_NOT_FOUND, this.getType().getSimpleName(), sourceKey);
+    }
+
+    index.putItemId(sourceKey, ids.get(0));
+    return ids.get(0);
+  }
+
+  /**
+   * Fail a lookup by source key that the type's SourceKeyIndex can answer without a query. Keys
+   * recently found absent are always ruled out. The filter itself is only trusted with
+   * ground.cache.notify set, since only then does it hear of keys created by other instances.
+   *
+   * @param sourceKey the source key being looked up
+   * @throws GroundException the key is known not to exist
+   */
+  private void checkNotRuledOut(String sourceKey) throws GroundException {
+    SourceKeyIndex index = this.getSourceKeyIndex();
+    boolean ruledOut = PostgresUtils.isNotifyEnabled() ? !index.mightContain(sourceKey) : index.isAbsent(sourceKey);
+
+    if (ruledOut) {
+      throw new GroundException(ExceptionType.ITEM_NOT_FOUND, this.getType().getSimpleName(), sourceKey);
+    }
+  }
+
+  /**
+   * Add a NOTIFY of a new Item to its create, so that other instances add its source key and id
+   * to their SourceKeyIndex once the transaction commits. Does nothing unless ground.cache.notify
+   * is set.
+   *
+   * @param statements the statements of the Item create
+   * @param itemId the id of the new Item
+   */
+  protected void appendItemCreateNotification(PostgresStatements statements, long itemId) {
+    if (!PostgresUtils.isNotifyEnabled()) {
+      return;
+    }
+
+    statements.append(new PostgresQueryStatement(SqlConstants.NOTIFY_ITEM_CHANGE, ItemChange.CHANNEL,
+      ItemChange.toPayload(this.getType(), itemId)));
+  }
+
+  /**
+   * The existence index shared by every DAO of this Item type. Creates add their source key to it
+   * before running their statements, and their item id once the statements succeed.
+   *
+   * @return the type's index
+   */
+  protected SourceKeyIndex getSourceKeyIndex() {
+    return SourceKeyIndex.of(this.getType());
+  }
+
+  /**
+   * Look up only the source keys of Items, without their tags. Keys already in the type's
+   * SourceKeyIndex are answered from it; the rest are read with one query.
+   *
+   * @param itemIds the ids of the Items
+   * @return the source key of each Item, by id, in the order of itemIds
+   * @throws GroundException an Item does not exist or could not be read
+   */
+  public Map<Long, String> retrieveSourceKeys(Collection<Long> itemIds) throws GroundException {
+    SourceKeyIndex index = this.getSourceKeyIndex();
+    Map<Long, String> sourceKeys = new HashMap<>();
+    List<Long> missing = new ArrayList<>();
+
+    for (long itemId : itemIds) {
+      String sourceKey = index.getSourceKey(itemId);
+
+      if (sourceKey != null) {
+        sourceKeys.put(itemId, sourceKey);
+      } else {
+        missing.add(itemId);
       }
+    }
+
+    if (!missing.isEmpty()) {
+      PostgresUtils.executeQuery(dbSource, String.format(SqlConstants.SELECT_SOURCE_KEYS_BY_ITEM_IDS, this.getTableName()),
+        (resultSet, columns) -> {
+          String sourceKey = resultSet.getString(columns.of("source_key"));
+          long itemId = resultSet.getLong(columns.of("item_id"));
 
-      return new ArrayList<>();
+          index.putItemId(sourceKey, itemId);
+          return sourceKeys.put(itemId, sourceKey);
+        },
+        missing.stream().mapToLong(Long::longValue).toArray());
     }
+
+    Map<Long, String> ordered = new LinkedHashMap<>();
+    for (long itemId : itemIds) {
+      String sourceKey = sourceKeys.get(itemId);
+
+      if (sourceKey == null) {
+        throw new GroundException(ExceptionType.ITEM_NOT_FOUND, this.getType().getSimpleName(), String.format("%d", itemId));
+      }
+      ordered.put(itemId, sourceKey);
+    }
+
+    return ordered;
+  }
+
+  /**
+   * Get the leaves of an Item's version history. They are read from item_leaf, which update keeps
+   * current, so the cost does not depend on the length of the history.
+   *
+   * @param itemId the id of the Item
+   * @return the ids of the leaf versions
+   */
+  @Override
+  public List<Long> getLeaves(long itemId) throws GroundException {
+    return PostgresUtils.executeQuery(dbSource, SqlConstants.SELECT_ITEM_LEAVES, RowMapper.longColumn("version_id"), itemId);
   }
 
   @Override
@@ -110,7 +305,7 @@ public abstract class PostgresItemDao<T extends Item> implements ItemDao<T> {
   /**
    * Add a new Version to this Item. The provided parentIds will be the parents of this particular
    * version. What's provided in the default case varies based on which database we are writing
-   * into.
+   * into. The returned statements also make the child a leaf of the Item in place of its parents.
    *
    * @param itemId the id of the Item we're updating
    * @param childId the new version's id
@@ -118,22 +313,47 @@ public abstract class PostgresItemDao<T extends Item> implements ItemDao<T> {
    */
   @Override
   public PostgresStatements update(long itemId, long childId, List<Long> parentIds) throws GroundException {
+    return this.update(itemId, Collections.singletonMap(childId, parentIds));
+  }
 
-    if (parentIds.isEmpty()) {
-      parentIds.add(0L);
-    }
-
+  /**
+   * Add many new Versions to this Item, loading its DAG only once. Versions are added in the
+   * map's order, so a version may name one added before it as a parent. Only the net change to the
+   * Item's leaves is written: a version that is added and then becomes a parent is never a leaf.
+   *
+   * @param itemId the id of the Item we're updating
+   * @param parentIdsByChild the parents of each new version, by new version id
+   */
+  public PostgresStatements update(long itemId, Map<Long, List<Long>> parentIdsByChild) throws GroundException {
     VersionHistoryDag dag = this.postgresVersionHistoryDagDao.retrieveFromDatabase(itemId);
-    PostgresStatements statements = new PostgresStatements();
 
-    for (long parentId : parentIds) {
-      if (parentId != 0L && !dag.checkItemInDag(parentId)) {
-        throw new GroundException(ExceptionType.OTHER, String.format("Parent %d is not in Item %d.", parentId, itemId));
+    List<PostgresStatements> edges = new ArrayList<>();
+    Set<Long> removedLeaves = new LinkedHashSet<>();
+    Set<Long> addedLeaves = new LinkedHashSet<>();
+
+    for (Map.Entry<Long, List<Long>> child : parentIdsByChild.entrySet()) {
+      long childId = child.getKey();
+      List<Long> parentIds = child.getValue().isEmpty() ? Collections.singletonList(0L) : child.getValue();
+
+      for (long parentId : parentIds) {
+        if (parentId != 0L && !dag.checkItemInDag(parentId)) {
+          throw new GroundException(ExceptionType.OTHER, String.format("Parent %d is not in Item %d.", parentId, itemId));
+        }
+
+        edges.add(this.postgresVersionHistoryDagDao.addEdge(dag, parentId, childId, itemId));
+
+        if (parentId != 0L && !addedLeaves.remove(parentId)) {
+          removedLeaves.add(parentId);
+        }
       }
 
-      statements.merge(this.postgresVersionHistoryDagDao.addEdge(dag, parentId, childId, itemId));
+      addedLeaves.add(childId);
     }
 
+    PostgresStatements statements = PostgresStatements.interleave(edges);
+    removedLeaves.forEach(parentId -> statements.append(SqlConstants.DELETE_ITEM_LEAF, itemId, parentId));
+    addedLeaves.forEach(childId -> statements.append(SqlConstants.INSERT_ITEM_LEAF, itemId, childId));
+
     return statements;
   }
 
@@ -150,20 +370,85 @@ public abstract class PostgresItemDao<T extends Item> implements ItemDao<T> {
     this.postgresVersionHistoryDagDao.truncate(dag, numLevels, this.getType());
   }
 
+  /**
+   * The query that exports Items of this type with their tags, in id order.
+   *
+   * @param sourceKey the source key of the one Item to export, or null to export every Item
+   * @return the query
+   */
+  public PostgresExportQuery getExportQuery(String sourceKey) {
+    String table = this.getTableName();
+    RowMapper<T> mapper = (resultSet, columns) -> {
+      long id = resultSet.getLong(columns.of("item_id"));
+      return this.mapItem(resultSet, columns, PostgresTagDao.parseTags(id, PostgresUtils.readJsonArray(resultSet, columns.of("item_tags"))));
+    };
+
+    if (sourceKey == null) {
+      return new PostgresExportQuery(table, String.format(SqlConstants.EXPORT_ITEMS, table, ""), mapper);
+    }
+    return new PostgresExportQuery(table, String.format(SqlConstants.EXPORT_ITEMS, table, SqlConstants.EXPORT_ITEMS_WHERE_SOURCE_KEY), mapper,
+      sourceKey);
+  }
+
+  /**
+   * The query that exports the version history DAGs of Items of this type, one successor edge per
+   * record, ordered by Item.
+   *
+   * @param sourceKey the source key of the one Item to export, or null to export every Item
+   * @return the query
+   */
+  public PostgresExportQuery getHistoryExportQuery(String sourceKey) {
+    String table = this.getTableName();
+    String where = sourceKey == null ? "" : SqlConstants.EXPORT_ITEMS_WHERE_SOURCE_KEY;
+    String sql = String.format(SqlConstants.EXPORT_VERSION_HISTORY_DAGS, table, where);
+
+    RowMapper<ObjectNode> mapper = (resultSet, columns) -> {
+      ObjectNode successor = Json.newObject();
+      successor.put("itemId", resultSet.getLong(columns.of("item_id")));
+      successor.put("id", resultSet.getLong(columns.of("id")));
+      successor.put("fromId", resultSet.getLong(columns.of("from_version_id")));
+      successor.put("toId", resultSet.getLong(columns.of("to_version_id")));
+      return successor;
+    };
+
+    return sourceKey == null ? new PostgresExportQuery("version_successor", sql, mapper)
+             : new PostgresExportQuery("version_successor", sql, mapper, sourceKey);
+  }
+
+  private String getTableName() {
+    return CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, this.getType().getSimpleName());
+  }
+
+  /**
+   * Build an Item of this type from a row of its table.
+   *
+   * @param resultSet the result set, positioned on the row
+   * @param columns the positions of the result set's columns
+   * @param tags the Item's tags
+   * @return the Item
+   * @throws SQLException the row could not be read
+   */
+  protected T mapItem(ResultSet resultSet, ColumnIndex columns, Map<String, Tag> tags) throws SQLException {
+    try {
+      return this.getType().getConstructor(long.class, String.class, String.class, Map.class).newInstance(resultSet.getLong(columns.of("item_id")),
+        resultSet.getString(columns.of("name")), resultSet.getString(columns.of("source_key")), tags);
+    } catch (ReflectiveOperationException e) {
+      throw new SQLException(String.format("Unable to instantiate Item: %s", e.getMessage()), e);
+    }
+  }
+
   protected T retrieve(String sql, Object field) throws GroundException {
-    JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
+    List<Object[]> rows = PostgresUtils.executeQuery(dbSource, sql, ITEM_MAPPER, field);
 
-    if (json.size() == 0) {
+    if (rows.isEmpty()) {
       throw new GroundException(ExceptionType.ITEM_NOT_FOUND, this.getType().getSimpleName(), field.toString());
     }
 
     Class<T> type = this.getType();
-    JsonNode itemJson = json.get(0);
-    long id = itemJson.get("itemId").asLong();
-    String name = itemJson.get("name").asText();
-    String sourceKey = itemJson.get("sourceKey").asText();
+    Object[] row = rows.get(0);
+    long id = (Long) row[0];
 
-    Object[] args = {id, name, sourceKey, this.postgresTagDao.retrieveFromDatabaseByItemId(id)};
+    Object[] args = {id, row[1], row[2], this.postgresTagDao.retrieveFromDatabaseByItemId(id)};
 
     Constructor<T> constructor;
     try {
@@ -11,17 +11,19 @@
  */
 package edu.berkeley.ground.postgres.dao.version;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.dao.version.TagDao;
 import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
 import edu.berkeley.ground.common.model.version.GroundType;
 import edu.berkeley.ground.common.model.version.Tag;
+import edu.berkeley.ground.common.util.StringInterner;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -38,51 +40,49 @@ public class PostgresTagDao implements TagDao {
 
   @Override
   public PostgresStatements insertItemTag(final Tag tag) {
-    List<String> sqlList = new ArrayList<>();
+    PostgresStatements statements = new PostgresStatements();
     if (tag.getValue() != null) {
-      sqlList.add(String.format(SqlConstants.INSERT_ITEM_TAG_WITH_VALUE, tag.getId(), tag.getKey(), tag.getValue(), tag.getValueType()));
+      statements.append(SqlConstants.INSERT_ITEM_TAG_WITH_VALUE, tag.getId(), tag.getKey(), tag.getValue().toString(), tag.getValueType().toString());
     } else {
-      sqlList.add(
-        String.format(SqlConstants.INSERT_ITEM_TAG_NO_VALUE, tag.getId(), tag.getKey()));
+      statements.append(SqlConstants.INSERT_ITEM_TAG_NO_VALUE, tag.getId(), tag.getKey());
     }
-    return new PostgresStatements(sqlList);
+    return statements;
   }
 
   @Override
   public PostgresStatements insertRichVersionTag(final Tag tag) {
-    List<String> sqlList = new ArrayList<>();
+    PostgresStatements statements = new PostgresStatements();
     if (tag.getValue() != null) {
-      sqlList.add(String.format(SqlConstants.INSERT_RICH_VERSION_TAG_WITH_VALUE, tag.getId(), tag.getKey(), tag.getValue(), tag.getValueType()));
+      statements.append(SqlConstants.INSERT_RICH_VERSION_TAG_WITH_VALUE, tag.getId(), tag.getKey(), tag.getValue().toString(),
+        tag.getValueType().toString());
     } else {
-      sqlList.add(String.format(SqlConstants.INSERT_RICH_VERSION_TAG_NO_VALUE, tag.getId(), tag.getKey()));
+      statements.append(SqlConstants.INSERT_RICH_VERSION_TAG_NO_VALUE, tag.getId(), tag.getKey());
     }
 
-    return new PostgresStatements(sqlList);
+    return statements;
   }
 
   @Override
   public Map<String, Tag> retrieveFromDatabaseByVersionId(long id) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_RICH_VERSION_TAGS, id);
-    return this.retrieveFromDatabaseById(id, sql);
+    return this.retrieveFromDatabaseById(id, SqlConstants.SELECT_RICH_VERSION_TAGS);
   }
 
   @Override
   public Map<String, Tag> retrieveFromDatabaseByItemId(long id) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_ITEM_TAGS, id);
-    return this.retrieveFromDatabaseById(id, sql);
+    return this.retrieveFromDatabaseById(id, SqlConstants.SELECT_ITEM_TAGS);
   }
 
   private Map<String, Tag> retrieveFromDatabaseById(long id, String sql) throws GroundException {
     Map<String, Tag> results = new HashMap<>();
 
-    try {
-      Connection con = this.dbSource.getConnection();
-      Statement stmt = con.createStatement();
+    try (Connection con = this.dbSource.getConnection();
+         PreparedStatement stmt = con.prepareStatement(sql)) {
 
-      ResultSet resultSet = stmt.executeQuery(sql);
+      stmt.setLong(1, id);
+      ResultSet resultSet = stmt.executeQuery();
 
       while (resultSet.next()) {
-        String key = resultSet.getString(2);
+        String key = StringInterner.internKey(resultSet.getString(2));
 
         // these methods will return null if the input is null, so there's no need to check
         GroundType type = GroundType.fromString(resultSet.getString(4));
@@ -90,9 +90,6 @@ public class PostgresTagDao implements TagDao {
 
         results.put(key, new Tag(id, key, value, type));
       }
-
-      stmt.close();
-      con.close();
     } catch (SQLException e) {
       throw new GroundException(e);
     }
@@ -102,23 +99,22 @@ public class PostgresTagDao implements TagDao {
 
   @Override
   public List<Long> getVersionIdsByTag(String tag) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_RICH_VERSION_TAGS_BY_KEY, tag);
-    return this.getIdsByTag(sql);
+    return this.getIdsByTag(SqlConstants.SELECT_RICH_VERSION_TAGS_BY_KEY, tag);
   }
 
   @Override
   public List<Long> getItemIdsByTag(String tag) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_ITEM_TAGS_BY_KEY, tag);
-    return this.getIdsByTag(sql);
+    return this.getIdsByTag(SqlConstants.SELECT_ITEM_TAGS_BY_KEY, tag);
   }
 
-  private List<Long> getIdsByTag(String sql) throws GroundException {
+  private List<Long> getIdsByTag(String sql, String tag) throws GroundException {
     List<Long> result = new ArrayList<>();
 
-    try {
-      Connection con = this.dbSource.getConnection();
-      Statement stmt = con.createStatement();
-      ResultSet resultSet = stmt.executeQuery(sql);
+    try (Connection con = this.dbSource.getConnection();
+         PreparedStatement stmt = con.prepareStatement(sql)) {
+
+      stmt.setString(1, tag);
+      ResultSet resultSet = stmt.executeQuery();
 
       while (resultSet.next()) {
         result.add(resultSet.getLong(1));
@@ -131,6 +127,65 @@ public class PostgresTagDao implements TagDao {
     return result;
   }
 
+  /**
+   * Build the tags of an Item or version from rows aggregated with json_build_array(key, value,
+   * type).
+   *
+   * @param id the id of the Item or version
+   * @param rows the aggregated rows
+   * @return the tags, by key
+   * @throws SQLException a value does not parse as its type
+   */
+  public static Map<String, Tag> parseTags(long id, JsonNode rows) throws SQLException {
+    Map<String, Tag> tags = new HashMap<>();
+
+    try {
+      for (JsonNode row : rows) {
+        String key = StringInterner.internKey(row.get(0).asText());
+        GroundType type = GroundType.fromString(textOf(row.get(2)));
+
+        tags.put(key, new Tag(id, key, parseValue(type, textOf(row.get(1))), type));
+      }
+    } catch (GroundException e) {
+      throw new SQLException(e.getMessage(), e);
+    }
+
+    return tags;
+  }
+
+  /**
+   * Convert a tag value read back as text, as it is when tags are aggregated into JSON, to the
+   * tag's type.
+   *
+   * @param type the type of the tag, or null if it has no value
+   * @param value the stored text of the value
+   * @return the typed value
+   * @throws GroundException the value does not parse as its type
+   */
+  public static Object parseValue(GroundType type, String value) throws GroundException {
+    if (type == null || value == null) {
+      return null;
+    }
+
+    try {
+      switch (type) {
+        case STRING:
+          return value;
+        case INTEGER:
+          return Integer.parseInt(value);
+        case LONG:
+          return Long.parseLong(value);
+        case BOOLEAN:
+          return Boolean.parseBoolean(value);
+        default:
+          // this should never happen because we've listed all types
+          throw new GroundException(ExceptionType.OTHER, String.format("Unidentified type: %s", type));
+      }
+    } catch (NumberFormatException e) {
+      throw new GroundException(ExceptionType.OTHER, String.format("Invalid %s value: %s.", type, value));
+    }
+  }
+
   private Object getValue(GroundType type, ResultSet resultSet, int index)
     throws GroundException, SQLException {
 
@@ -152,4 +207,14 @@ public class PostgresTagDao implements TagDao {
         throw new GroundException(ExceptionType.OTHER, String.format("Unidentified type: %s", type));
     }
   }
+
+  /**
+   * The text of a value in an aggregated row.
+   *
+   * @param node the value
+   * @return its text, or null if it is missing or JSON null
+   */
+  public static String textOf(JsonNode node) {
+    return node == null || node.isNull() ? null : node.asText();
+  }
 }
@@ -13,10 +13,26 @@ package edu.berkeley.ground.postgres.dao.version;
 
 import edu.berkeley.ground.common.dao.version.VersionDao;
 import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
 import edu.berkeley.ground.common.model.version.Version;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.ItemChange;
+import edu.berkeley.ground.postgres.cache.ItemChangeListener;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
+import edu.berkeley.ground.postgres.util.PostgresQueryStatement;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToLongFunction;
+import play.Logger;
 import play.db.Database;
 
 public abstract class PostgresVersionDao<T extends Version> implements VersionDao<T> {
@@ -24,23 +40,194 @@ public abstract class PostgresVersionDao<T extends Version> implements VersionDa
   protected Database dbSource;
   protected IdGenerator idGenerator;
 
+  private final List<ItemChangeListener> itemChangeListeners = new CopyOnWriteArrayList<>();
+
   public PostgresVersionDao(Database dbSource, IdGenerator idGenerator) {
     this.dbSource = dbSource;
     this.idGenerator = idGenerator;
   }
 
+  /**
+   * Register a listener to be told about every Item this DAO adds a version to, once the version
+   * has been committed.
+   *
+   * @param listener the listener to add
+   */
+  public void addItemChangeListener(ItemChangeListener listener) {
+    this.itemChangeListeners.add(listener);
+  }
+
+  /**
+   * Add a NOTIFY of the Item's change to a version create, so that other instances evict their
+   * cached views of the Item once the transaction commits. Does nothing unless ground.cache.notify
+   * is set.
+   *
+   * @param statements the statements of the version create
+   * @param itemDao the DAO of the changed Item
+   * @param itemId the id of the changed Item
+   * @param linkedVersionIds the versions the new versions link
+   */
+  protected void appendItemChangeNotification(PostgresStatements statements, PostgresItemDao<?> itemDao, long itemId,
+                                              List<Long> linkedVersionIds) {
+    if (!PostgresUtils.isNotifyEnabled()) {
+      return;
+    }
+
+    for (String payload : ItemChange.toPayloads(itemDao.getType(), itemId, linkedVersionIds)) {
+      statements.append(new PostgresQueryStatement(SqlConstants.NOTIFY_ITEM_CHANGE, ItemChange.CHANNEL, payload));
+    }
+  }
+
+  /**
+   * Tell the listeners that a version of an Item was committed. This runs after the commit, so a
+   * listener failing is logged rather than thrown: the create itself succeeded, and reporting it
+   * as failed would have clients retry it and create the versions twice.
+   *
+   * @param itemDao the DAO of the changed Item
+   * @param itemId the id of the changed Item
+   * @param sourceKey the source key of the changed Item
+   * @param linkedVersionIds the versions the new versions link
+   */
+  protected void publishItemChange(PostgresItemDao<?> itemDao, long itemId, String sourceKey, List<Long> linkedVersionIds) {
+    ItemChange change = new ItemChange(itemDao.getType(), itemId, sourceKey, linkedVersionIds);
+
+    for (ItemChangeListener listener : this.itemChangeListeners) {
+      try {
+        listener.onItemChange(change);
+      } catch (RuntimeException e) {
+        Logger.error("Could not publish the change to {}: {}", change, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * The versions a new version links, whose cached views change when it is created; none unless
+   * a subclass says otherwise.
+   *
+   * @param version the new version
+   * @return the ids of the versions it links
+   */
+  protected List<Long> linkedVersionIds(T version) {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Create many versions in one transaction. The rows of every version are written first, with
+   * like statements next to each other so that they are batched; then each Item's history is
+   * updated, loading its DAG once however many of the versions belong to it.
+   *
+   * @param versions the new versions, with their ids assigned
+   * @param parentIds the parents of each version, in the same order
+   * @param itemDao the DAO of the versions' Items
+   * @param itemIdOf the id of a version's Item
+   * @param followingStatements statements to run after the history updates
+   * @return the versions
+   * @throws GroundException a parent is not in its Item, or the transaction failed
+   */
+  protected List<T> createAll(List<T> versions, List<List<Long>> parentIds, PostgresItemDao<?> itemDao, ToLongFunction<T> itemIdOf,
+                              PostgresStatements followingStatements) throws GroundException {
+
+    if (versions.size() != parentIds.size()) {
+      throw new GroundException(ExceptionType.OTHER, String.format("Got %d versions but %d lists of parents.", versions.size(), parentIds.size()));
+    }
+
+    List<PostgresStatements> rows = new ArrayList<>(versions.size());
+    Map<Long, Map<Long, List<Long>>> childrenByItem = new LinkedHashMap<>();
+    Map<Long, Set<Long>> linkedByItem = new HashMap<>();
+
+    for (int i = 0; i < versions.size(); i++) {
+      T version = versions.get(i);
+      long itemId = itemIdOf.applyAsLong(version);
+
+      rows.add(this.insert(version));
+      childrenByItem.computeIfAbsent(itemId, id -> new LinkedHashMap<>()).put(version.getId(), parentIds.get(i));
+      linkedByItem.computeIfAbsent(itemId, id -> new LinkedHashSet<>()).addAll(this.linkedVersionIds(version));
+    }
+
+    List<PostgresStatements> updates = new ArrayList<>(childrenByItem.size());
+    for (Map.Entry<Long, Map<Long, List<Long>>> item : childrenByItem.entrySet()) {
+      updates.add(itemDao.update(item.getKey(), item.getValue()));
+    }
+
+    PostgresStatements statements = PostgresStatements.interleave(rows);
+    statements.merge(PostgresStatements.interleave(updates));
+    statements.merge(followingStatements);
+
+    for (long itemId : childrenByItem.keySet()) {
+      this.appendItemChangeNotification(statements, itemDao, itemId, new ArrayList<>(linkedByItem.get(itemId)));
+    }
+
+    // read the source keys to publish before committing, so a failure cannot fail a committed create
+    Map<Long, String> sourceKeys = this.itemChangeListeners.isEmpty() ? Collections.emptyMap()
+                                     : itemDao.retrieveSourceKeys(childrenByItem.keySet());
+
+    PostgresUtils.executeSqlList(dbSource, statements);
+
+    for (Map.Entry<Long, String> sourceKey : sourceKeys.entrySet()) {
+      this.publishItemChange(itemDao, sourceKey.getKey(), sourceKey.getValue(), new ArrayList<>(linkedByItem.get(sourceKey.getKey())));
+    }
+
+    return versions;
+  }
+
+  /**
+   * Put versions retrieved in bulk back in the order they were asked for. Ids that were not found
+   * are left out, and ids asked for more than once appear more than once.
+   *
+   * @param ids the ids asked for
+   * @param versions the versions found, in any order
+   * @param <V> the type of version
+   * @return the versions found, in the order of ids
+   */
+  protected static <V extends Version> List<V> inRequestOrder(List<Long> ids, List<V> versions) {
+    Map<Long, V> byId = new HashMap<>(versions.size() * 2);
+    versions.forEach(version -> byId.put(version.getId(), version));
+
+    List<V> ordered = new ArrayList<>(ids.size());
+    for (long id : ids) {
+      V version = byId.get(id);
+
+      if (version != null) {
+        ordered.add(version);
+      }
+    }
+
+    return ordered;
+  }
+
+  /**
+   * The ids of a bulk retrieve, as a bigint array parameter.
+   *
+   * @param ids the ids
+   * @return the distinct ids
+   */
+  protected static long[] toIdArray(List<Long> ids) {
+    return ids.stream().mapToLong(Long::longValue).distinct().toArray();
+  }
+
   @Override
   public PostgresStatements insert(T version) throws GroundException {
     PostgresStatements statements = new PostgresStatements();
 
-    statements.append(String.format(SqlConstants.INSERT_VERSION, version.getId()));
+    statements.append(SqlConstants.INSERT_VERSION, version.getId());
     return statements;
   }
 
   @Override
   public PostgresStatements delete(long id) {
+    return this.delete(new long[] {id});
+  }
+
+  /**
+   * Delete a set of versions at once. Subclasses delete their own rows first and then merge in the
+   * statements of their superclass, so rows are always removed before the rows they reference.
+   *
+   * @param ids the ids of the versions to delete
+   * @return the statements that delete the versions
+   */
+  public PostgresStatements delete(long[] ids) {
     PostgresStatements statements = new PostgresStatements();
-    statements.append(String.format(SqlConstants.DELETE_BY_ID, "version", id));
+    statements.append(String.format(SqlConstants.DELETE_BY_IDS, "version"), ids);
 
     return statements;
   }
@@ -23,13 +23,13 @@ import edu.berkeley.ground.postgres.dao.SqlConstants;
 import edu.berkeley.ground.postgres.util.GroundUtils;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.Statement;
+import edu.berkeley.ground.postgres.util.RowMapper;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 import play.db.Database;
 
 public class PostgresVersionHistoryDagDao implements VersionHistoryDagDao {
@@ -51,7 +51,8 @@ public class PostgresVersionHistoryDagDao implements VersionHistoryDagDao {
   }
 
   /**
-   * Retrieve a DAG from the database.
+   * Retrieve a DAG from the database. The version successors are joined in the same query, so the
+   * whole DAG is loaded in one round trip regardless of its size.
    *
    * @param itemId the id of the item whose dag we are retrieving
    * @return the retrieved DAG
@@ -59,29 +60,9 @@ public class PostgresVersionHistoryDagDao implements VersionHistoryDagDao {
    */
   @Override
   public VersionHistoryDag retrieveFromDatabase(long itemId) throws GroundException {
-    String sql = String.format(SqlConstants.SELECT_VERSION_HISTORY_DAG, itemId);
+    List<VersionSuccessor> edges = PostgresUtils.executeQuery(dbSource, SqlConstants.SELECT_VERSION_HISTORY_DAG,
+      PostgresVersionSuccessorDao.VERSION_SUCCESSOR_MAPPER, itemId);
 
-    List<VersionSuccessor> edges = new ArrayList<>();
-    try (Connection con = dbSource.getConnection()) {
-
-      Statement stmt = con.createStatement();
-      final ResultSet resultSet = stmt.executeQuery(sql);
-
-      List<Long> successors = new ArrayList<>();
-      while (resultSet.next()) {
-        successors.add(resultSet.getLong("version_successor_id"));
-      }
-
-      stmt.close();
-      con.close();
-
-      for (Long versionSuccessorId : successors) {
-        VersionSuccessor versionSuccessor = postgresVersionSuccessorDao.retrieveFromDatabase(versionSuccessorId);
-        edges.add(versionSuccessor);
-      }
-    } catch (Exception e) {
-      throw new GroundException(e);
-    }
     return new VersionHistoryDag(itemId, edges);
   }
 
@@ -100,68 +81,57 @@ public class PostgresVersionHistoryDagDao implements VersionHistoryDagDao {
     dag.addEdge(parentId, childId, successor.getId());
 
     PostgresStatements statements = postgresVersionSuccessorDao.insert(successor);
-    statements.append(String.format(SqlConstants.INSERT_VERSION_HISTORY_DAG_EDGE, itemId, successor.getId()));
+    statements.append(SqlConstants.INSERT_VERSION_HISTORY_DAG_EDGE, itemId, successor.getId());
     return statements;
   }
 
 
   /**
-   * Truncate the DAG to only have a certain number of levels, removing everything before that.
+   * Truncate the DAG to only have a certain number of levels, removing everything before that. The
+   * versions to remove are found with one recursive query over the item's history, and all of them
+   * are deleted with set-based statements in a single transaction, so the number of round trips
+   * does not grow with the number of versions removed. A removed version that another version still
+   * points to, such as a node version an edge version connects, is only taken out of the history:
+   * its rows are kept, so the other version stays valid.
    *
    * @param dag the DAG to truncate
    * @param numLevels the number of levels to keep
    */
   @Override
   public void truncate(VersionHistoryDag dag, int numLevels, Class<? extends Item> itemType) throws GroundException {
+    long itemId = dag.getItemId();
+    long[] leaves = dag.getLeaves().stream().mapToLong(Long::longValue).toArray();
 
-    int keptLevels = 1;
-    List<Long> lastLevel = new ArrayList<>();
-    List<Long> previousLevel = dag.getLeaves();
-
-    while (keptLevels <= numLevels) {
-      List<Long> currentLevel = new ArrayList<>();
-
-      previousLevel.forEach(id -> currentLevel.addAll(dag.getParent(id)));
+    long[] removed = PostgresUtils.executeQuery(dbSource, SqlConstants.SELECT_TRUNCATED_VERSIONS, RowMapper.longColumn("version_id"), itemId,
+      leaves, numLevels, numLevels, numLevels).stream().mapToLong(Long::longValue).toArray();
 
-      lastLevel = previousLevel;
-      previousLevel = currentLevel;
-
-      keptLevels++;
+    if (removed.length == 0) {
+      return;
     }
 
-    List<Long> deleteQueue = new ArrayList<>(new HashSet<>(previousLevel));
-    Set<Long> deleted = new HashSet<>();
+    // the kept versions whose parents are all removed become roots of the truncated DAG
+    List<Long> orphans = PostgresUtils.executeQuery(dbSource, SqlConstants.SELECT_DAG_CHILDREN_OF_VERSIONS, RowMapper.longColumn("to_version_id"),
+      itemId, removed, removed);
 
     PostgresStatements statements = new PostgresStatements();
+    statements.append(SqlConstants.DELETE_SUCCESSORS_FROM_DAG_BY_VERSIONS, itemId, removed, removed);
+    statements.append(SqlConstants.DELETE_VERSION_SUCCESSORS_BY_VERSIONS, removed, removed);
 
-    // delete the version successors between the last kept level and the first deleted level
-    for (long id : lastLevel) {
-      this.postgresVersionSuccessorDao.deleteFromDestination(statements, id, dag.getItemId());
-      this.addEdge(dag, 0, id, dag.getItemId());
-    }
-
-    while (deleteQueue.size() > 0) {
-      long id = deleteQueue.get(0);
-
-      if (id != 0) {
-        this.postgresVersionSuccessorDao.deleteFromDestination(statements, id, dag.getItemId());
-        GroundUtils.getVersionDaoFromItemType(itemType, this.dbSource, this.idGenerator).delete(id);
-
-        deleted.add(id);
-        List<Long> parents = dag.getParent(id);
-
-        parents.forEach(parentId -> {
-          if (!deleted.contains(parentId)) {
-            deleteQueue.add(parentId);
-          }
-        });
+    Set<Long> removedIds = Arrays.stream(removed).boxed().collect(Collectors.toSet());
+    for (long id : orphans) {
+      if (removedIds.containsAll(dag.getParent(id))) {
+        statements.merge(this.addEdge(dag, 0, id, itemId));
       }
-
-      deleteQueue.remove(0);
     }
 
-    for (long id : lastLevel) {
-      statements.merge(this.addEdge(dag, 0, id, dag.getItemId()));
+    // versions that other rows still point to leave the history but keep their rows
+    Set<Long> referenced = new HashSet<>(PostgresUtils.executeQuery(dbSource, SqlConstants.SELECT_REFERENCED_VERSIONS,
+      RowMapper.longColumn("version_id"), removed));
+    long[] deleted = Arrays.stream(removed).filter(id -> !referenced.contains(id)).toArray();
+
+    if (deleted.length > 0) {
+      PostgresVersionDao<?> versionDao = (PostgresVersionDao<?>) GroundUtils.getVersionDaoFromItemType(itemType, this.dbSource, this.idGenerator);
+      statements.merge(versionDao.delete(deleted));
     }
 
     PostgresUtils.executeSqlList(dbSource, statements);
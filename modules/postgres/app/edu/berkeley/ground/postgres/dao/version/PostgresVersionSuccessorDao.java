@@ -14,7 +14,6 @@
 
 package edu.berkeley.ground.postgres.dao.version;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.dao.version.VersionSuccessorDao;
 import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
@@ -24,11 +23,16 @@ import edu.berkeley.ground.common.util.IdGenerator;
 import edu.berkeley.ground.postgres.dao.SqlConstants;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
+import java.util.List;
 import play.db.Database;
-import play.libs.Json;
 
 public class PostgresVersionSuccessorDao implements VersionSuccessorDao {
 
+  static final RowMapper<VersionSuccessor> VERSION_SUCCESSOR_MAPPER = (resultSet, columns) ->
+    new VersionSuccessor(resultSet.getLong(columns.of("id")), resultSet.getLong(columns.of("from_version_id")),
+                          resultSet.getLong(columns.of("to_version_id")));
+
   private final IdGenerator idGenerator;
   private final Database dbSource;
 
@@ -46,8 +50,7 @@ public class PostgresVersionSuccessorDao implements VersionSuccessorDao {
   @Override
   public PostgresStatements insert(VersionSuccessor successor) {
     PostgresStatements statements = new PostgresStatements();
-    String sql = String.format(SqlConstants.INSERT_VERSION_SUCCESSOR, successor.getId(), successor.getFromId(), successor.getToId());
-    statements.append(sql);
+    statements.append(SqlConstants.INSERT_VERSION_SUCCESSOR, successor.getId(), successor.getFromId(), successor.getToId());
 
     return statements;
   }
@@ -58,8 +61,9 @@ public class PostgresVersionSuccessorDao implements VersionSuccessorDao {
    * @param fromId the id of the parent version
    * @param toId the id of the child version
    * @return the created version successor
+   * @throws GroundException no id could be generated for the successor
    */
-  VersionSuccessor instantiateVersionSuccessor(long fromId, long toId) {
+  VersionSuccessor instantiateVersionSuccessor(long fromId, long toId) throws GroundException {
     long dbId = idGenerator.generateSuccessorId();
     return new VersionSuccessor(dbId, fromId, toId);
   }
@@ -74,15 +78,14 @@ public class PostgresVersionSuccessorDao implements VersionSuccessorDao {
   @Override
   public VersionSuccessor retrieveFromDatabase(long dbId) throws GroundException {
     try {
-      String sql = String.format(SqlConstants.SELECT_VERSION_SUCCESSOR, dbId);
-      JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
+      List<VersionSuccessor> versionSuccessors = PostgresUtils.executeQuery(dbSource, SqlConstants.SELECT_VERSION_SUCCESSOR,
+        VERSION_SUCCESSOR_MAPPER, dbId);
 
-      if (json.size() == 0) {
+      if (versionSuccessors.isEmpty()) {
         throw new GroundException(ExceptionType.OTHER, String.format("Version Successor with id %d does not exist.", dbId));
       }
 
-      json = json.get(0);
-      return new VersionSuccessor(dbId, json.get("fromVersionId").asLong(), json.get("toVersionId").asLong());
+      return versionSuccessors.get(0);
     } catch (Exception e) {
       throw new GroundException(e);
     }
@@ -102,14 +105,9 @@ public class PostgresVersionSuccessorDao implements VersionSuccessorDao {
     PostgresStatements statements = (PostgresStatements) statementsPointer;
 
     try {
-      String sql = String.format(SqlConstants.SELECT_VERSION_SUCCESSOR_BY_ENDPOINT, toId);
-      JsonNode json = Json.parse(PostgresUtils.executeQueryToJson(dbSource, sql));
-
-      for (JsonNode result : json) {
-        Long dbId = result.get("id").asLong();
-
-        statements.append(String.format(SqlConstants.DELETE_SUCCESSOR_FROM_DAG, dbId));
-        statements.append(String.format(SqlConstants.DELETE_VERSION_SUCCESSOR, dbId));
+      for (long dbId : PostgresUtils.executeQuery(dbSource, SqlConstants.SELECT_VERSION_SUCCESSOR_BY_ENDPOINT, RowMapper.longColumn("id"), toId)) {
+        statements.append(SqlConstants.DELETE_SUCCESSOR_FROM_DAG, dbId);
+        statements.append(SqlConstants.DELETE_VERSION_SUCCESSOR, dbId);
       }
     } catch (Exception e) {
       throw new GroundException(e);
@@ -1,6 +1,7 @@
 package edu.berkeley.ground.postgres.start;
 
 import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.postgres.cache.CacheWarmer;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
@@ -17,14 +18,34 @@ public class ApplicationStart {
   private final Instant start;
 
   @Inject
-  public ApplicationStart(Clock clock, ApplicationLifecycle appLifecycle, final Configuration configuration, final Database dbSource)
-    throws GroundException {
+  public ApplicationStart(Clock clock, ApplicationLifecycle appLifecycle, final Configuration configuration, final Database dbSource,
+                          final CacheWarmer cacheWarmer) throws GroundException {
 
     this.start = clock.instant();
     Logger.info("Ground Postgres: Starting application at " + this.start);
 
     Logger.info("Queries will Cache for {} seconds.", configuration.underlying().getString("ground.cache.expire.secs"));
     System.setProperty("ground.cache.expire.secs", configuration.underlying().getString("ground.cache.expire.secs"));
+    Logger.info("Up to {} versions will be cached without expiry.", configuration.underlying().getString("ground.cache.versions.max.size"));
+    Logger.info("Versions will be cached off the heap in {} bytes.", configuration.underlying().getBytes("ground.cache.versions.offheap.bytes"));
+
+    Logger.info("Item changes will be sent to other instances: {}.", configuration.underlying().getString("ground.cache.notify"));
+    System.setProperty("ground.cache.notify", configuration.underlying().getString("ground.cache.notify"));
+
+    Logger.info("Source key filters are sized for {} keys each.", configuration.underlying().getString("ground.cache.source.keys.expected"));
+    System.setProperty("ground.cache.source.keys.expected", configuration.underlying().getString("ground.cache.source.keys.expected"));
+    System.setProperty("ground.cache.negative.secs", configuration.underlying().getString("ground.cache.negative.secs"));
+
+    Logger.info("Up to {} distinct tag keys and attribute names will be interned.", configuration.underlying().getString("ground.intern.max.size"));
+    System.setProperty("ground.intern.max.size", configuration.underlying().getString("ground.intern.max.size"));
+
+    Logger.info("Statements will be batched {} at a time.", configuration.underlying().getString("ground.db.batch.size"));
+    System.setProperty("ground.db.batch.size", configuration.underlying().getString("ground.db.batch.size"));
+
+    Logger.info("Edge lists of more than {} rows will be loaded with COPY.", configuration.underlying().getString("ground.db.copy.threshold"));
+    System.setProperty("ground.db.copy.threshold", configuration.underlying().getString("ground.db.copy.threshold"));
+
+    cacheWarmer.start();
 
     appLifecycle.addStopHook(
       () -> {
@@ -0,0 +1,29 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import javax.inject.Inject;
+import play.api.Configuration;
+import play.http.HttpErrorHandler;
+import play.mvc.BodyParser;
+
+/**
+ * A JSON body parser for batch requests, which accepts bodies of up to
+ * ground.versions.batch.max.bytes rather than Play's default in-memory limit.
+ */
+public class BatchJsonBodyParser extends BodyParser.Json {
+
+  @Inject
+  public BatchJsonBodyParser(final Configuration configuration, final HttpErrorHandler errorHandler) {
+    super(configuration.underlying().getBytes("ground.versions.batch.max.bytes"), errorHandler);
+  }
+}
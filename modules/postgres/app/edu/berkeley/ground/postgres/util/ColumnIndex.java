@@ -0,0 +1,59 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The positions of a query's columns by column label, read once from the result set metadata so
+ * that row mappers do not resolve column names on every row.
+ */
+public class ColumnIndex {
+
+  private final Map<String, Integer> positions;
+
+  /**
+   * Resolve the column positions of a result set.
+   *
+   * @param metaData the metadata of the result set
+   * @throws SQLException the metadata could not be read
+   */
+  public ColumnIndex(ResultSetMetaData metaData) throws SQLException {
+    int columnCount = metaData.getColumnCount();
+    this.positions = new HashMap<>(columnCount * 2);
+
+    for (int column = 1; column <= columnCount; column++) {
+      this.positions.putIfAbsent(metaData.getColumnLabel(column), column);
+    }
+  }
+
+  /**
+   * Get the position of a column.
+   *
+   * @param label the column label, as it appears in the query
+   * @return the 1-based position of the column
+   * @throws SQLException the query has no such column
+   */
+  public int of(String label) throws SQLException {
+    Integer position = this.positions.get(label);
+
+    if (position == null) {
+      throw new SQLException(String.format("The query has no column %s.", label));
+    }
+
+    return position;
+  }
+
+}
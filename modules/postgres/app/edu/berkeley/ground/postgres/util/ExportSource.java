@@ -0,0 +1,135 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import akka.NotUsed;
+import akka.stream.ActorAttributes;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import play.Logger;
+import play.db.Database;
+import play.libs.Json;
+
+/**
+ * Streams the rows of export queries as newline-delimited JSON records, without holding more than
+ * one fetch of rows in memory. The queries run one after another on one connection, in a single
+ * read-only REPEATABLE READ transaction, so that together they export one consistent snapshot.
+ * Each query reads through a server-side cursor, ground.export.fetch.size rows at a time, and the
+ * next rows are only fetched once the client has taken the ones before them.
+ */
+public final class ExportSource {
+
+  private ExportSource() {
+  }
+
+  /**
+   * Create a source of records.
+   *
+   * @param dbSource the database to export from
+   * @param queries the queries to run, in order
+   * @param fetchSize the number of rows fetched from a cursor at a time
+   * @return the records, each followed by a newline
+   */
+  public static Source<ByteString, NotUsed> of(Database dbSource, List<PostgresExportQuery> queries, int fetchSize) {
+    return Source.unfoldResource(() -> new Cursor(dbSource, queries, fetchSize), Cursor::next, Cursor::close)
+             .withAttributes(ActorAttributes.dispatcher("ground.db.context"));
+  }
+
+  private static class Cursor {
+
+    private final Connection connection;
+    private final Iterator<PostgresExportQuery> queries;
+    private final int fetchSize;
+
+    private PostgresExportQuery query;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private ColumnIndex columns;
+
+    private Cursor(Database dbSource, List<PostgresExportQuery> queries, int fetchSize) throws SQLException {
+      this.connection = dbSource.getConnection();
+      this.queries = queries.iterator();
+      this.fetchSize = fetchSize;
+
+      try {
+        // pgjdbc only reads through a cursor inside a transaction
+        this.connection.setReadOnly(true);
+        this.connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        this.connection.setAutoCommit(false);
+      } catch (SQLException e) {
+        this.connection.close();
+        throw e;
+      }
+    }
+
+    private Optional<ByteString> next() throws SQLException {
+      while (true) {
+        if (this.resultSet == null) {
+          if (!this.queries.hasNext()) {
+            return Optional.empty();
+          }
+
+          this.open(this.queries.next());
+        }
+
+        if (this.resultSet.next()) {
+          ObjectNode record = Json.newObject();
+          record.put("type", this.query.getType());
+          record.setAll((ObjectNode) Json.toJson(this.query.getMapper().mapRow(this.resultSet, this.columns)));
+
+          return Optional.of(ByteString.fromString(Json.stringify(record) + "\n"));
+        }
+
+        this.closeQuery();
+      }
+    }
+
+    private void open(PostgresExportQuery query) throws SQLException {
+      Logger.debug("export: {} {}", query.getSql(), query.getParameters());
+
+      this.query = query;
+      this.statement = this.connection.prepareStatement(query.getSql());
+      this.statement.setFetchSize(this.fetchSize);
+      PostgresUtils.bindParameters(this.statement, query.getParameters());
+
+      this.resultSet = this.statement.executeQuery();
+      this.columns = new ColumnIndex(this.resultSet.getMetaData());
+    }
+
+    private void closeQuery() throws SQLException {
+      if (this.statement != null) {
+        // closing the statement closes its result set and cursor
+        this.statement.close();
+      }
+
+      this.statement = null;
+      this.resultSet = null;
+    }
+
+    private void close() throws SQLException {
+      try {
+        this.closeQuery();
+        this.connection.rollback();
+      } finally {
+        this.connection.close();
+      }
+    }
+  }
+}
@@ -4,7 +4,7 @@ import static play.mvc.Results.badRequest;
 import static play.mvc.Results.internalServerError;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import edu.berkeley.ground.common.dao.version.VersionDao;
 import edu.berkeley.ground.common.exception.GroundException;
@@ -15,6 +15,7 @@ import edu.berkeley.ground.common.model.core.Node;
 import edu.berkeley.ground.common.model.core.Structure;
 import edu.berkeley.ground.common.model.usage.LineageEdge;
 import edu.berkeley.ground.common.model.usage.LineageGraph;
+import edu.berkeley.ground.common.model.version.Version;
 import edu.berkeley.ground.common.util.IdGenerator;
 import edu.berkeley.ground.postgres.dao.core.PostgresEdgeVersionDao;
 import edu.berkeley.ground.postgres.dao.core.PostgresGraphVersionDao;
@@ -22,12 +23,13 @@ import edu.berkeley.ground.postgres.dao.core.PostgresNodeVersionDao;
 import edu.berkeley.ground.postgres.dao.core.PostgresStructureVersionDao;
 import edu.berkeley.ground.postgres.dao.usage.PostgresLineageEdgeVersionDao;
 import edu.berkeley.ground.postgres.dao.usage.PostgresLineageGraphVersionDao;
-import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import play.Logger;
 import play.db.Database;
 import play.libs.Json;
@@ -71,14 +73,6 @@ public final class GroundUtils {
     return result;
   }
 
-  static String listToJson(final List<Map<String, Object>> objList) {
-    try {
-      return new ObjectMapper().writeValueAsString(objList);
-    } catch (IOException e) {
-      throw new RuntimeException("ERROR : listToJson Converting List to JSON." + e.getMessage(), e);
-    }
-  }
-
   public static List<Long> getListFromJson(JsonNode jsonNode, String fieldName) {
     List<Long> parents = new ArrayList<>();
     JsonNode listNode = jsonNode.get(fieldName);
@@ -90,6 +84,79 @@ public final class GroundUtils {
     return parents;
   }
 
+  /**
+   * Read the versions of a batch create request, a JSON array of versions that each carry their
+   * own parentIds.
+   *
+   * @param json the request body
+   * @param type the type of version
+   * @param parentIds filled with the parents of each version, in the same order
+   * @param <T> the type of version
+   * @return the versions
+   * @throws GroundException the body is not an array
+   */
+  public static <T> List<T> getVersionsFromJson(JsonNode json, Class<T> type, List<List<Long>> parentIds) throws GroundException {
+    if (json == null || !json.isArray()) {
+      throw new GroundException(ExceptionType.OTHER, "Expected an array of versions.");
+    }
+
+    List<T> versions = new ArrayList<>(json.size());
+    for (JsonNode version : json) {
+      parentIds.add(getListFromJson(version, "parentIds"));
+      ((ObjectNode) version).remove("parentIds");
+
+      versions.add(Json.fromJson(version, type));
+    }
+
+    return versions;
+  }
+
+  /**
+   * Parse the ids of a bulk version request, a comma-separated list such as "1,2,3".
+   *
+   * @param ids the ids parameter
+   * @return the ids, in the order given
+   * @throws GroundException an id is not a number
+   */
+  public static List<Long> parseIds(String ids) throws GroundException {
+    List<Long> result = new ArrayList<>();
+
+    for (String id : ids.split(",")) {
+      if (id.trim().isEmpty()) {
+        continue;
+      }
+
+      try {
+        result.add(Long.parseLong(id.trim()));
+      } catch (NumberFormatException e) {
+        throw new GroundException(ExceptionType.OTHER, String.format("Invalid version id: %s.", id));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * The response to a bulk version request: the versions found, in the order they were asked for,
+   * and the ids that were not found.
+   *
+   * @param ids the ids asked for
+   * @param versions the versions found, in the order of ids
+   * @return the response body
+   */
+  public static ObjectNode getBulkVersionJson(List<Long> ids, List<? extends Version> versions) {
+    Set<Long> found = new HashSet<>();
+    versions.forEach(version -> found.add(version.getId()));
+
+    ArrayNode missing = Json.newArray();
+    new LinkedHashSet<>(ids).stream().filter(id -> !found.contains(id)).forEach(missing::add);
+
+    ObjectNode result = Json.newObject();
+    result.set("versions", Json.toJson(versions));
+    result.set("missing", missing);
+    return result;
+  }
+
   public static VersionDao<?> getVersionDaoFromItemType(Class<?> klass, Database dbSource, IdGenerator idGenerator) throws GroundException {
     if (klass.equals(Node.class)) {
       return new PostgresNodeVersionDao(dbSource, idGenerator);
@@ -0,0 +1,164 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import static play.mvc.Results.badRequest;
+import static play.mvc.Results.internalServerError;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Framing;
+import akka.stream.javadsl.FramingTruncation;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
+import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.GroundCache;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import play.Logger;
+import play.api.Configuration;
+import play.db.Database;
+import play.libs.F;
+import play.libs.streams.Accumulator;
+import play.mvc.BodyParser;
+import play.mvc.Http;
+import play.mvc.Result;
+
+/**
+ * A body parser that writes newline-delimited JSON records as they arrive, rather than reading the
+ * whole body first, so that a body of any size is loaded in constant memory. Lines are grouped
+ * into chunks of ground.ingest.batch.size records, which are written one at a time on the database
+ * context; while a chunk is being written no more of the body is read, so a client sending faster
+ * than the database can write is slowed down by TCP flow control.
+ *
+ * <p>A chunk is not a transaction. Within it, each run of consecutive version records of one type
+ * is committed together and each Item record on its own, as described by IngestWriter.
+ *
+ * <p>The result is the summary of what was written. If a record cannot be parsed or written, the
+ * request fails with the summary of the records committed before it, which may include the start
+ * of the chunk it is in.
+ */
+public class IngestBodyParser implements BodyParser<IngestSummary> {
+
+  private static final ByteString NEWLINE = ByteString.fromString("\n");
+
+  private final ChunkWriter writer;
+  private final Executor executor;
+  private final int chunkSize;
+  private final int maxLineBytes;
+
+  @Inject
+  public IngestBodyParser(final Configuration configuration, final Database dbSource, final IdGenerator idGenerator, final GroundCache cache,
+                          final ActorSystem actorSystem) {
+    this(new IngestWriter(dbSource, idGenerator, cache)::write, PostgresUtils.getDbSourceHttpContext(actorSystem),
+      configuration.underlying().getInt("ground.ingest.batch.size"),
+      configuration.underlying().getBytes("ground.ingest.line.max.bytes").intValue());
+  }
+
+  IngestBodyParser(ChunkWriter writer, Executor executor, int chunkSize, int maxLineBytes) {
+    this.writer = writer;
+    this.executor = executor;
+    this.chunkSize = Math.max(1, chunkSize);
+    this.maxLineBytes = maxLineBytes;
+  }
+
+  @Override
+  public Accumulator<ByteString, F.Either<Result, IngestSummary>> apply(Http.RequestHeader request) {
+    IngestSummary summary = new IngestSummary();
+    AtomicLong lines = new AtomicLong();
+
+    Sink<ByteString, CompletionStage<Done>> sink = Flow.of(ByteString.class)
+                                                     .via(Framing.delimiter(NEWLINE, this.maxLineBytes, FramingTruncation.ALLOW))
+                                                     .mapConcat(line -> parse(line, lines.incrementAndGet()))
+                                                     .grouped(this.chunkSize)
+                                                     .mapAsync(1, chunk -> this.write(chunk, summary))
+                                                     .toMat(Sink.ignore(), Keep.right());
+
+    return Accumulator.fromSink(sink)
+             .map(done -> F.Either.<Result, IngestSummary>Right(summary), this.executor)
+             .recover(e -> F.Either.<Result, IngestSummary>Left(getError(request, e, summary)), this.executor);
+  }
+
+  private CompletionStage<Done> write(List<ObjectNode> chunk, IngestSummary summary) {
+    return CompletableFuture.supplyAsync(
+      () -> {
+        try {
+          this.writer.write(chunk, summary);
+        } catch (GroundException e) {
+          throw new CompletionException(e);
+        }
+
+        summary.addChunk();
+        return Done.getInstance();
+      },
+      this.executor);
+  }
+
+  private static List<ObjectNode> parse(ByteString line, long number) throws GroundException {
+    String text = line.utf8String().trim();
+    if (text.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    JsonNode record;
+    try {
+      record = play.libs.Json.mapper().readTree(text);
+    } catch (IOException e) {
+      throw new GroundException(ExceptionType.OTHER, String.format("Line %d is not valid JSON: %s", number, e.getMessage()));
+    }
+
+    if (!record.isObject()) {
+      throw new GroundException(ExceptionType.OTHER, String.format("Line %d is not a JSON object.", number));
+    }
+
+    return Collections.singletonList((ObjectNode) record);
+  }
+
+  private static Result getError(Http.RequestHeader request, Throwable e, IngestSummary summary) {
+    while (e instanceof CompletionException && e.getCause() != null) {
+      e = e.getCause();
+    }
+
+    Logger.error("Error! Request Path: {}\nError Message: {}\n Records committed: {}", request.path(), e.getMessage(), summary.getRecords());
+
+    boolean invalid = e instanceof GroundException || e instanceof akka.stream.scaladsl.Framing.FramingException;
+
+    ObjectNode result = play.libs.Json.newObject();
+    result.put("Error", invalid ? String.format("The request to %s was invalid.", request.path()) : "Unexpected error while processing request.");
+    result.put("Message", String.format("%s", e.getMessage()));
+    result.set("Committed", play.libs.Json.toJson(summary));
+
+    return invalid ? badRequest(result) : internalServerError(result);
+  }
+
+  /**
+   * Writes one chunk of records.
+   */
+  @FunctionalInterface
+  interface ChunkWriter {
+
+    void write(List<ObjectNode> records, IngestSummary summary) throws GroundException;
+  }
+}
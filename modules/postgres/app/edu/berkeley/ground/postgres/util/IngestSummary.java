@@ -0,0 +1,56 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What a streaming ingest request has written so far: the records and chunks committed, and the
+ * records created of each type.
+ */
+public class IngestSummary {
+
+  private long records;
+  private long chunks;
+  private final Map<String, Long> created = new LinkedHashMap<>();
+
+  /**
+   * Count records that have been committed.
+   *
+   * @param type the type of the records
+   * @param count the number of records
+   */
+  public synchronized void add(String type, int count) {
+    this.records += count;
+    this.created.merge(type, (long) count, Long::sum);
+  }
+
+  /**
+   * Count a chunk whose records have all been committed.
+   */
+  public synchronized void addChunk() {
+    this.chunks++;
+  }
+
+  public synchronized long getRecords() {
+    return this.records;
+  }
+
+  public synchronized long getChunks() {
+    return this.chunks;
+  }
+
+  public synchronized Map<String, Long> getCreated() {
+    return new LinkedHashMap<>(this.created);
+  }
+}
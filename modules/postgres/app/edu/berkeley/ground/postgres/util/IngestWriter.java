@@ -0,0 +1,223 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.berkeley.ground.common.dao.version.ItemDao;
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
+import edu.berkeley.ground.common.model.core.Edge;
+import edu.berkeley.ground.common.model.core.EdgeVersion;
+import edu.berkeley.ground.common.model.core.Graph;
+import edu.berkeley.ground.common.model.core.GraphVersion;
+import edu.berkeley.ground.common.model.core.Node;
+import edu.berkeley.ground.common.model.core.NodeVersion;
+import edu.berkeley.ground.common.model.core.Structure;
+import edu.berkeley.ground.common.model.core.StructureVersion;
+import edu.berkeley.ground.common.model.usage.LineageEdge;
+import edu.berkeley.ground.common.model.usage.LineageEdgeVersion;
+import edu.berkeley.ground.common.model.usage.LineageGraph;
+import edu.berkeley.ground.common.model.usage.LineageGraphVersion;
+import edu.berkeley.ground.common.model.version.Item;
+import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.ItemChangeListener;
+import edu.berkeley.ground.postgres.dao.core.PostgresEdgeDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresEdgeVersionDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresGraphDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresGraphVersionDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresNodeDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresNodeVersionDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresStructureDao;
+import edu.berkeley.ground.postgres.dao.core.PostgresStructureVersionDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageEdgeDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageEdgeVersionDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageGraphDao;
+import edu.berkeley.ground.postgres.dao.usage.PostgresLineageGraphVersionDao;
+import edu.berkeley.ground.postgres.dao.version.PostgresItemDao;
+import edu.berkeley.ground.postgres.dao.version.PostgresVersionDao;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import play.db.Database;
+import play.libs.Json;
+
+/**
+ * Writes the records of a streaming ingest request. Each record is a JSON object whose "type" is
+ * an Item type ("node", "lineage_edge", ...) or a version type ("node_version", ...); the rest of
+ * the record is what the matching POST endpoint takes. A version record may give its Item by
+ * "sourceKey" instead of by id, so that it can follow the record creating that Item.
+ *
+ * <p>Records are written in order. Consecutive version records of one type are created together
+ * in one transaction, as by the batch endpoints; each Item is created in its own. A chunk is
+ * therefore committed in as many transactions as it has Items and runs of versions.
+ */
+public class IngestWriter {
+
+  private final Map<String, ItemType<?>> itemTypes = new HashMap<>();
+  private final Map<String, VersionType<?>> versionTypes = new HashMap<>();
+
+  public IngestWriter(Database dbSource, IdGenerator idGenerator, ItemChangeListener listener) {
+    PostgresNodeDao nodeDao = new PostgresNodeDao(dbSource, idGenerator);
+    PostgresEdgeDao edgeDao = new PostgresEdgeDao(dbSource, idGenerator);
+    PostgresGraphDao graphDao = new PostgresGraphDao(dbSource, idGenerator);
+    PostgresStructureDao structureDao = new PostgresStructureDao(dbSource, idGenerator);
+    PostgresLineageEdgeDao lineageEdgeDao = new PostgresLineageEdgeDao(dbSource, idGenerator);
+    PostgresLineageGraphDao lineageGraphDao = new PostgresLineageGraphDao(dbSource, idGenerator);
+
+    PostgresNodeVersionDao nodeVersionDao = new PostgresNodeVersionDao(dbSource, idGenerator);
+    PostgresEdgeVersionDao edgeVersionDao = new PostgresEdgeVersionDao(dbSource, idGenerator);
+    PostgresGraphVersionDao graphVersionDao = new PostgresGraphVersionDao(dbSource, idGenerator);
+    PostgresStructureVersionDao structureVersionDao = new PostgresStructureVersionDao(dbSource, idGenerator);
+    PostgresLineageEdgeVersionDao lineageEdgeVersionDao = new PostgresLineageEdgeVersionDao(dbSource, idGenerator);
+    PostgresLineageGraphVersionDao lineageGraphVersionDao = new PostgresLineageGraphVersionDao(dbSource, idGenerator);
+
+    this.addItemType("node", Node.class, nodeDao);
+    this.addItemType("edge", Edge.class, edgeDao);
+    this.addItemType("graph", Graph.class, graphDao);
+    this.addItemType("structure", Structure.class, structureDao);
+    this.addItemType("lineage_edge", LineageEdge.class, lineageEdgeDao);
+    this.addItemType("lineage_graph", LineageGraph.class, lineageGraphDao);
+
+    this.addVersionType("node_version", NodeVersion.class, nodeDao, "nodeId", nodeVersionDao, nodeVersionDao::create, listener);
+    this.addVersionType("edge_version", EdgeVersion.class, edgeDao, "edgeId", edgeVersionDao, edgeVersionDao::create, listener);
+    this.addVersionType("graph_version", GraphVersion.class, graphDao, "graphId", graphVersionDao, graphVersionDao::create, listener);
+    this.addVersionType("structure_version", StructureVersion.class, structureDao, "structureId", structureVersionDao,
+      structureVersionDao::create, listener);
+    this.addVersionType("lineage_edge_version", LineageEdgeVersion.class, lineageEdgeDao, "lineageEdgeId", lineageEdgeVersionDao,
+      lineageEdgeVersionDao::create, listener);
+    this.addVersionType("lineage_graph_version", LineageGraphVersion.class, lineageGraphDao, "lineageGraphId", lineageGraphVersionDao,
+      lineageGraphVersionDao::create, listener);
+  }
+
+  /**
+   * Write a chunk of records, in order, committing each Item and each run of versions as it goes.
+   *
+   * @param records the records, each with its "type"
+   * @param summary counts the records as they are committed
+   * @throws GroundException a record is invalid, or could not be written; the records before it,
+   *     including those earlier in the chunk, stay written
+   */
+  public void write(List<ObjectNode> records, IngestSummary summary) throws GroundException {
+    List<ObjectNode> run = new ArrayList<>();
+    VersionType<?> runType = null;
+
+    for (ObjectNode record : records) {
+      JsonNode typeNode = record.remove("type");
+      String type = typeNode == null ? null : typeNode.asText();
+
+      VersionType<?> versionType = this.versionTypes.get(type);
+      if (runType != null && versionType != runType) {
+        summary.add(runType.name, this.create(runType, run));
+        run.clear();
+      }
+
+      if (versionType != null) {
+        runType = versionType;
+        run.add(record);
+        continue;
+      }
+
+      runType = null;
+      ItemType<?> itemType = this.itemTypes.get(type);
+      if (itemType == null) {
+        throw new GroundException(ExceptionType.OTHER, String.format("Unknown record type: %s.", type));
+      }
+
+      this.create(itemType, record);
+      summary.add(itemType.name, 1);
+    }
+
+    if (runType != null) {
+      summary.add(runType.name, this.create(runType, run));
+    }
+  }
+
+  private <I extends Item> void create(ItemType<I> type, ObjectNode record) throws GroundException {
+    type.dao.create(fromJson(record, type.itemClass));
+  }
+
+  private <V> int create(VersionType<V> type, List<ObjectNode> records) throws GroundException {
+    List<V> versions = new ArrayList<>(records.size());
+    List<List<Long>> parentIds = new ArrayList<>(records.size());
+
+    for (ObjectNode record : records) {
+      parentIds.add(GroundUtils.getListFromJson(record, "parentIds"));
+      record.remove("parentIds");
+
+      JsonNode sourceKey = record.remove("sourceKey");
+      if (sourceKey != null && !record.hasNonNull(type.itemIdField)) {
+        record.put(type.itemIdField, type.itemDao.resolveItemId(sourceKey.asText()));
+      }
+
+      versions.add(fromJson(record, type.versionClass));
+    }
+
+    type.creator.create(versions, parentIds);
+    return versions.size();
+  }
+
+  private static <T> T fromJson(ObjectNode record, Class<T> type) throws GroundException {
+    try {
+      return Json.fromJson(record, type);
+    } catch (RuntimeException e) {
+      throw new GroundException(ExceptionType.OTHER, String.format("Invalid %s: %s", type.getSimpleName(), e.getMessage()));
+    }
+  }
+
+  private <I extends Item> void addItemType(String name, Class<I> itemClass, ItemDao<I> dao) {
+    this.itemTypes.put(name, new ItemType<>(name, itemClass, dao));
+  }
+
+  private <V> void addVersionType(String name, Class<V> versionClass, PostgresItemDao<?> itemDao, String itemIdField,
+                                  PostgresVersionDao<?> versionDao, BatchCreator<V> creator, ItemChangeListener listener) {
+    versionDao.addItemChangeListener(listener);
+    this.versionTypes.put(name, new VersionType<>(name, versionClass, itemDao, itemIdField, creator));
+  }
+
+  @FunctionalInterface
+  private interface BatchCreator<V> {
+
+    List<V> create(List<V> versions, List<List<Long>> parentIds) throws GroundException;
+  }
+
+  private static class ItemType<I extends Item> {
+
+    private final String name;
+    private final Class<I> itemClass;
+    private final ItemDao<I> dao;
+
+    private ItemType(String name, Class<I> itemClass, ItemDao<I> dao) {
+      this.name = name;
+      this.itemClass = itemClass;
+      this.dao = dao;
+    }
+  }
+
+  private static class VersionType<V> {
+
+    private final String name;
+    private final Class<V> versionClass;
+    private final PostgresItemDao<?> itemDao;
+    private final String itemIdField;
+    private final BatchCreator<V> creator;
+
+    private VersionType(String name, Class<V> versionClass, PostgresItemDao<?> itemDao, String itemIdField, BatchCreator<V> creator) {
+      this.name = name;
+      this.versionClass = versionClass;
+      this.itemDao = itemDao;
+      this.itemIdField = itemIdField;
+      this.creator = creator;
+    }
+  }
+}
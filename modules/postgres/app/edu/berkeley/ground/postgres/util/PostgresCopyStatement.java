@@ -0,0 +1,137 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import edu.berkeley.ground.postgres.dao.SqlConstants;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * A bulk load of bigint rows into a single table through COPY ... FROM STDIN BINARY. Rows are
+ * encoded and streamed to the server in fixed-size chunks, so the load runs in the same
+ * transaction as the statements around it without building one INSERT per row.
+ */
+public class PostgresCopyStatement extends PostgresStatement {
+
+  private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private final int columnCount;
+  private final long[] values;
+
+  /**
+   * Create a new bulk load.
+   *
+   * @param table the table to load into
+   * @param columns the bigint columns to fill, in the order their values appear in each row
+   * @param values the row values, row after row
+   */
+  public PostgresCopyStatement(String table, List<String> columns, long[] values) {
+    super(String.format(SqlConstants.COPY_BINARY_FROM_STDIN, table, String.join(", ", columns)));
+
+    if (values.length % columns.size() != 0) {
+      throw new IllegalArgumentException(String.format("%d values do not make whole rows of %d columns.", values.length, columns.size()));
+    }
+
+    this.columnCount = columns.size();
+    this.values = values;
+  }
+
+  /**
+   * Create a bulk load of (owner, member) pairs that all share the same owner, such as the edges of
+   * a single graph version.
+   *
+   * @param table the table to load into
+   * @param ownerColumn the column that holds the owner id
+   * @param memberColumn the column that holds the member ids
+   * @param ownerId the owner id shared by every row
+   * @param memberIds the member ids, one row each
+   * @return the bulk load
+   */
+  public static PostgresCopyStatement ofMembers(String table, String ownerColumn, String memberColumn, long ownerId, List<Long> memberIds) {
+    long[] values = new long[memberIds.size() * 2];
+
+    int index = 0;
+    for (long memberId : memberIds) {
+      values[index++] = ownerId;
+      values[index++] = memberId;
+    }
+
+    return new PostgresCopyStatement(table, Arrays.asList(ownerColumn, memberColumn), values);
+  }
+
+  public int getRowCount() {
+    return this.values.length / this.columnCount;
+  }
+
+  @Override
+  public void bind(PreparedStatement preparedStatement) throws SQLException {
+    throw new SQLException("A COPY statement cannot be bound to a prepared statement.");
+  }
+
+  /**
+   * Stream the rows to the server on the given connection.
+   *
+   * @param connection the connection whose transaction the rows are loaded in
+   * @return the number of rows loaded
+   * @throws SQLException the COPY failed
+   */
+  public long copy(Connection connection) throws SQLException {
+    CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(this.getSql());
+    ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+    int rowSize = 2 + this.columnCount * (4 + 8);
+
+    try {
+      buffer.put(COPY_SIGNATURE);
+      buffer.putInt(0);
+      buffer.putInt(0);
+
+      for (int row = 0; row < this.values.length; row += this.columnCount) {
+        if (buffer.remaining() < rowSize) {
+          copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+          buffer.clear();
+        }
+
+        buffer.putShort((short) this.columnCount);
+        for (int column = 0; column < this.columnCount; column++) {
+          buffer.putInt(8);
+          buffer.putLong(this.values[row + column]);
+        }
+      }
+
+      if (buffer.remaining() < 2) {
+        copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+        buffer.clear();
+      }
+
+      buffer.putShort((short) -1);
+      copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+
+      return copyIn.endCopy();
+    } finally {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.getSql() + " [" + this.getRowCount() + " rows]";
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A query whose rows are exported as records of one type, such as "node" or "node_version". Each
+ * row is mapped to an object and written as that object's JSON, with the record type added.
+ */
+public class PostgresExportQuery {
+
+  private final String type;
+  private final String sql;
+  private final RowMapper<?> mapper;
+  private final List<Object> parameters;
+
+  /**
+   * Create a new export query.
+   *
+   * @param type the type of the exported records
+   * @param sql the SQL text, using ? for every bound value
+   * @param mapper builds the exported object from each row
+   * @param parameters the values to bind, in placeholder order
+   */
+  public PostgresExportQuery(String type, String sql, RowMapper<?> mapper, Object... parameters) {
+    this.type = type;
+    this.sql = sql;
+    this.mapper = mapper;
+    this.parameters = Arrays.asList(parameters);
+  }
+
+  public String getType() {
+    return this.type;
+  }
+
+  public String getSql() {
+    return this.sql;
+  }
+
+  public RowMapper<?> getMapper() {
+    return this.mapper;
+  }
+
+  public List<Object> getParameters() {
+    return this.parameters;
+  }
+}
@@ -0,0 +1,60 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
+import edu.berkeley.ground.common.util.IdBlockSource;
+import edu.berkeley.ground.postgres.dao.SqlConstants;
+import java.util.List;
+import play.db.Database;
+
+/**
+ * Leases id blocks from the id_block table. Each lease is a single upsert that advances the
+ * counter's row, so concurrent generators, including ones on other machines, never share a block.
+ * Before its first lease, a counter is seeded past the ids already written, so a database created
+ * before id_block existed does not have its ids handed out again.
+ */
+public class PostgresIdBlockSource implements IdBlockSource {
+
+  private final Database dbSource;
+
+  public PostgresIdBlockSource(Database dbSource) {
+    this.dbSource = dbSource;
+  }
+
+  @Override
+  public long leaseBlock(String counter, long blockSize) throws GroundException {
+    List<Long> firstIds = PostgresUtils.executeQuery(this.dbSource, SqlConstants.LEASE_ID_BLOCK, RowMapper.longColumn("first_id"), counter,
+      blockSize, blockSize);
+
+    if (firstIds.isEmpty()) {
+      throw new GroundException(ExceptionType.DB, String.format("Could not lease a block of %d %s ids.", blockSize, counter));
+    }
+
+    return firstIds.get(0);
+  }
+
+  /**
+   * Move a counter's row past the highest id of this generator's range in version,
+   * version_successor and item, creating the row if there is none. Each counter is checked against
+   * all three tables, since a globally unique generator draws them all from one counter. The
+   * lookups are index range scans, so this stays cheap on large databases.
+   */
+  @Override
+  public void seed(String counter, long firstId, long lastId) throws GroundException {
+    PostgresStatements statements = new PostgresStatements();
+    statements.append(SqlConstants.SEED_ID_BLOCK, firstId, lastId, counter);
+
+    PostgresUtils.executeSqlList(this.dbSource, statements);
+  }
+}
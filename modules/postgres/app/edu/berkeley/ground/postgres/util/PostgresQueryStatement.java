@@ -0,0 +1,53 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A statement that returns rows, such as SELECT pg_notify(...), run for its side effects inside a
+ * transaction. JDBC batches reject statements that return results, so these are executed on their
+ * own and their rows are discarded.
+ */
+public class PostgresQueryStatement extends PostgresStatement {
+
+  /**
+   * Create a new statement.
+   *
+   * @param sql the SQL text, using ? for every bound value
+   * @param parameters the values to bind, in placeholder order
+   */
+  public PostgresQueryStatement(String sql, Object... parameters) {
+    super(sql, parameters);
+  }
+
+  /**
+   * Run the statement on the given connection.
+   *
+   * @param connection the connection whose transaction the statement runs in
+   * @throws SQLException the statement failed
+   */
+  public void execute(Connection connection) throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(this.getSql())) {
+      this.bind(preparedStatement);
+
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        while (resultSet.next()) {
+          // the rows are not needed
+        }
+      }
+    }
+  }
+}
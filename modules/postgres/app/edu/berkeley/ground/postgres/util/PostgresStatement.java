@@ -0,0 +1,62 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single parameterized SQL statement: the SQL text (with ? placeholders) and the values to bind to
+ * it. Statements that share the same SQL text can share one server-side prepared statement.
+ */
+public class PostgresStatement {
+
+  private final String sql;
+  private final List<Object> parameters;
+
+  /**
+   * Create a new statement.
+   *
+   * @param sql the SQL text, using ? for every bound value
+   * @param parameters the values to bind, in placeholder order
+   */
+  public PostgresStatement(String sql, Object... parameters) {
+    this.sql = sql;
+    this.parameters = Collections.unmodifiableList(Arrays.asList(parameters));
+  }
+
+  public String getSql() {
+    return this.sql;
+  }
+
+  public List<Object> getParameters() {
+    return this.parameters;
+  }
+
+  /**
+   * Bind this statement's parameters to a prepared statement created from the same SQL text.
+   *
+   * @param preparedStatement the prepared statement to bind to
+   * @throws SQLException a parameter could not be bound
+   */
+  public void bind(PreparedStatement preparedStatement) throws SQLException {
+    PostgresUtils.bindParameters(preparedStatement, this.parameters);
+  }
+
+  @Override
+  public String toString() {
+    return this.sql + " " + this.parameters;
+  }
+}
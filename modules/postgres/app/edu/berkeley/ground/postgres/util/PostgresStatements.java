@@ -2,32 +2,74 @@ package edu.berkeley.ground.postgres.util;
 
 import edu.berkeley.ground.common.util.DbStatements;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-public class PostgresStatements implements DbStatements<String> {
+public class PostgresStatements implements DbStatements<PostgresStatement> {
 
-  List<String> statements;
+  List<PostgresStatement> statements;
 
   public PostgresStatements() {
     this.statements = new ArrayList<>();
   }
 
-  public PostgresStatements(List<String> statements) {
+  public PostgresStatements(List<PostgresStatement> statements) {
     this.statements = statements;
   }
 
   @Override
-  public void append(String statement) {
+  public void append(PostgresStatement statement) {
     this.statements.add(statement);
   }
 
+  /**
+   * Append a parameterized statement.
+   *
+   * @param sql the SQL text, using ? for every bound value
+   * @param parameters the values to bind, in placeholder order
+   */
+  public void append(String sql, Object... parameters) {
+    this.statements.add(new PostgresStatement(sql, parameters));
+  }
+
+  /**
+   * Combine the statements of independent units of work, such as the rows of many new versions,
+   * so that statements with the same SQL text run next to each other and are sent as one batch.
+   * The n-th statements of all units run before any unit's (n+1)-th, so each unit keeps its own
+   * order; statements of different units must not depend on each other.
+   *
+   * @param units the statements of each unit
+   * @return the combined statements
+   */
+  public static PostgresStatements interleave(List<PostgresStatements> units) {
+    PostgresStatements result = new PostgresStatements();
+
+    for (int position = 0; ; position++) {
+      Map<String, List<PostgresStatement>> bySql = new LinkedHashMap<>();
+
+      for (PostgresStatements unit : units) {
+        if (position < unit.statements.size()) {
+          PostgresStatement statement = unit.statements.get(position);
+          bySql.computeIfAbsent(statement.getSql(), sql -> new ArrayList<>()).add(statement);
+        }
+      }
+
+      if (bySql.isEmpty()) {
+        return result;
+      }
+
+      bySql.values().forEach(result.statements::addAll);
+    }
+  }
+
   @Override
   public void merge(DbStatements other) {
     this.statements.addAll(other.getAllStatements());
   }
 
   @Override
-  public List<String> getAllStatements() {
+  public List<PostgresStatement> getAllStatements() {
     return this.statements;
   }
 }
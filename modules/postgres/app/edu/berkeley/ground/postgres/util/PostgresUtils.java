@@ -13,23 +13,32 @@
 package edu.berkeley.ground.postgres.util;
 
 import akka.actor.ActorSystem;
-import com.google.common.base.CaseFormat;
+import com.fasterxml.jackson.databind.JsonNode;
 import edu.berkeley.ground.common.exception.GroundException;
+import java.io.IOException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import play.Logger;
 import play.db.Database;
+import play.libs.Json;
 import play.libs.concurrent.HttpExecution;
 
 public final class PostgresUtils {
 
+  private static final int DEFAULT_BATCH_SIZE = 1000;
+  private static final int DEFAULT_COPY_THRESHOLD = 1000;
+  private static final long DEFAULT_SOURCE_KEY_FILTER_SIZE = 1000000;
+  private static final long DEFAULT_NEGATIVE_CACHE_SECS = 5;
+
   private PostgresUtils() {
   }
 
@@ -37,63 +46,213 @@ public final class PostgresUtils {
     return HttpExecution.fromThread((Executor) actorSystem.dispatchers().lookup("ground.db.context"));
   }
 
-  public static String executeQueryToJson(Database dbSource, String sql) throws GroundException {
-    Logger.debug("executeQueryToJson: {}", sql);
+  /**
+   * Run a query and map every row it returns.
+   *
+   * @param dbSource the database to query
+   * @param sql the SQL text, using ? for every bound value
+   * @param mapper builds one result from each row
+   * @param parameters the values to bind, in placeholder order
+   * @param <T> the type of the results
+   * @return the mapped rows, in the order the query returned them
+   * @throws GroundException the query failed
+   */
+  public static <T> List<T> executeQuery(Database dbSource, String sql, RowMapper<T> mapper, Object... parameters) throws GroundException {
+    Logger.debug("executeQuery: {} {}", sql, Arrays.toString(parameters));
 
-    try {
-      Connection con = dbSource.getConnection();
-      Statement stmt = con.createStatement();
+    try (Connection con = dbSource.getConnection();
+         PreparedStatement stmt = con.prepareStatement(sql)) {
 
-      final ResultSet resultSet = stmt.executeQuery(sql);
-      final long columnCount = resultSet.getMetaData().getColumnCount();
-      final List<Map<String, Object>> objList = new ArrayList<>();
+      bindParameters(stmt, Arrays.asList(parameters));
 
-      while (resultSet.next()) {
-        final Map<String, Object> rowData = new HashMap<>();
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        final ColumnIndex columns = new ColumnIndex(resultSet.getMetaData());
+        final List<T> results = new ArrayList<>();
 
-        for (int column = 1; column <= columnCount; column++) {
-          String key = CaseFormat.LOWER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, resultSet.getMetaData().getColumnLabel(column));
-          rowData.put(key, resultSet.getObject(column));
+        while (resultSet.next()) {
+          results.add(mapper.mapRow(resultSet, columns));
         }
 
-        objList.add(rowData);
+        return results;
       }
-
-      stmt.close();
-      con.close();
-      return GroundUtils.listToJson(objList);
     } catch (SQLException e) {
-      Logger.error("ERROR:  executeQueryToJson  SQL : {} Message: {} Trace: {}", sql, e.getMessage(), e.getStackTrace());
+      Logger.error("ERROR:  executeQuery  SQL : {} Message: {} Trace: {}", sql, e.getMessage(), e.getStackTrace());
       throw new GroundException(e);
     }
   }
 
+  /**
+   * Execute a list of statements in a single transaction. Each distinct SQL text is prepared once
+   * per connection, and runs of consecutive statements that share the same SQL text are sent
+   * together as JDBC batches of at most ground.db.batch.size statements. Bulk loads are streamed
+   * with COPY, and statements that return rows are run on their own, on the same connection and in
+   * the same transaction.
+   *
+   * @param dbSource the database to execute against
+   * @param statements the statements to execute
+   * @throws GroundException the transaction failed and was rolled back
+   */
   public static void executeSqlList(final Database dbSource, final PostgresStatements statements) throws GroundException {
-    try {
-      Connection con = dbSource.getConnection();
+    final int maxBatchSize = getMaxBatchSize();
+
+    try (Connection con = dbSource.getConnection()) {
       con.setAutoCommit(false);
-      Statement stmt = con.createStatement();
+      Map<String, PreparedStatement> preparedStatements = new HashMap<>();
 
-      for (final String sql : statements.getAllStatements()) {
-        Logger.debug("executeSqlList sql : {}", sql);
+      try {
+        PreparedStatement batch = null;
+        String batchSql = null;
+        int batchSize = 0;
 
-        try {
-          stmt.execute(sql);
-        } catch (final SQLException e) {
-          con.rollback();
-          Logger.error("error:  Message: {} Trace: {}", e.getMessage(), e.getStackTrace());
+        for (final PostgresStatement statement : statements.getAllStatements()) {
+          Logger.debug("executeSqlList sql : {}", statement);
 
-          throw new GroundException(e);
+          if (batch != null && batchSize > 0 && (batchSize >= maxBatchSize || !statement.getSql().equals(batchSql))) {
+            batch.executeBatch();
+            batchSize = 0;
+          }
+
+          if (statement instanceof PostgresCopyStatement) {
+            ((PostgresCopyStatement) statement).copy(con);
+            batch = null;
+            continue;
+          }
+
+          if (statement instanceof PostgresQueryStatement) {
+            ((PostgresQueryStatement) statement).execute(con);
+            batch = null;
+            continue;
+          }
+
+          batchSql = statement.getSql();
+          batch = preparedStatements.get(batchSql);
+          if (batch == null) {
+            batch = con.prepareStatement(batchSql);
+            preparedStatements.put(batchSql, batch);
+          }
+
+          statement.bind(batch);
+          batch.addBatch();
+          batchSize++;
         }
-      }
 
-      stmt.close();
-      con.commit();
-      con.close();
+        if (batch != null && batchSize > 0) {
+          batch.executeBatch();
+        }
+
+        con.commit();
+      } catch (final SQLException e) {
+        con.rollback();
+
+        SQLException cause = e.getNextException() != null ? e.getNextException() : e;
+        Logger.error("error:  Message: {} Trace: {}", cause.getMessage(), cause.getStackTrace());
+
+        throw new GroundException(cause);
+      } finally {
+        for (PreparedStatement preparedStatement : preparedStatements.values()) {
+          preparedStatement.close();
+        }
+      }
     } catch (SQLException e) {
-      Logger.error("error:  executeSqlList SQL : {} Message: {} Trace: {}", statements.getAllStatements(), e.getMessage(), e.getStackTrace());
+      Logger.error("error:  executeSqlList ({} statements) Message: {} Trace: {}", statements.getAllStatements().size(), e.getMessage(),
+        e.getStackTrace());
 
       throw new GroundException(e);
     }
   }
+
+  /**
+   * The maximum number of statements sent in a single JDBC batch, set from ground.db.batch.size.
+   *
+   * @return the configured batch size, or the default if none is set
+   */
+  public static int getMaxBatchSize() {
+    return Math.max(1, Integer.getInteger("ground.db.batch.size", DEFAULT_BATCH_SIZE));
+  }
+
+  /**
+   * The number of rows above which membership rows (such as graph version edges) are bulk loaded
+   * with COPY instead of batched INSERTs, set from ground.db.copy.threshold.
+   *
+   * @return the configured threshold, or the default if none is set
+   */
+  public static int getCopyThreshold() {
+    return Integer.getInteger("ground.db.copy.threshold", DEFAULT_COPY_THRESHOLD);
+  }
+
+  /**
+   * Whether version creates NOTIFY other instances of the Items they change, set from
+   * ground.cache.notify.
+   *
+   * @return true if notifications are sent
+   */
+  public static boolean isNotifyEnabled() {
+    return Boolean.getBoolean("ground.cache.notify");
+  }
+
+  /**
+   * The number of source keys each Item type's existence filter is sized for, set from
+   * ground.cache.source.keys.expected.
+   *
+   * @return the configured size, or the default if none is set
+   */
+  public static long getSourceKeyFilterSize() {
+    return Math.max(1, Long.getLong("ground.cache.source.keys.expected", DEFAULT_SOURCE_KEY_FILTER_SIZE));
+  }
+
+  /**
+   * How long a source key found missing is remembered as missing, set from
+   * ground.cache.negative.secs.
+   *
+   * @return the configured duration in seconds, or the default if none is set
+   */
+  public static long getNegativeCacheSecs() {
+    return Long.getLong("ground.cache.negative.secs", DEFAULT_NEGATIVE_CACHE_SECS);
+  }
+
+  /**
+   * Read a JSON array column, such as one built with json_agg.
+   *
+   * @param resultSet the result set, positioned on the row
+   * @param column the position of the column
+   * @return the array, empty if the column is null
+   * @throws SQLException the column could not be read, or is not valid JSON
+   */
+  public static JsonNode readJsonArray(ResultSet resultSet, int column) throws SQLException {
+    String json = resultSet.getString(column);
+
+    // json_agg over no rows is null
+    if (json == null) {
+      return Json.newArray();
+    }
+
+    try {
+      return Json.mapper().readTree(json);
+    } catch (IOException e) {
+      throw new SQLException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Bind a list of values to the placeholders of a prepared statement, in order.
+   *
+   * @param preparedStatement the statement to bind to
+   * @param parameters the values to bind; nulls are bound as untyped SQL NULLs and long[] values as
+   *     bigint arrays, for use with = ANY(?)
+   * @throws SQLException a value could not be bound
+   */
+  public static void bindParameters(PreparedStatement preparedStatement, List<Object> parameters) throws SQLException {
+    for (int index = 0; index < parameters.size(); index++) {
+      Object parameter = parameters.get(index);
+
+      if (parameter == null) {
+        preparedStatement.setNull(index + 1, Types.NULL);
+      } else if (parameter instanceof long[]) {
+        Long[] values = Arrays.stream((long[]) parameter).boxed().toArray(Long[]::new);
+        preparedStatement.setArray(index + 1, preparedStatement.getConnection().createArrayOf("bigint", values));
+      } else {
+        preparedStatement.setObject(index + 1, parameter);
+      }
+    }
+  }
 }
@@ -0,0 +1,46 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds one object from the current row of a ResultSet. Mappers are stateless and may be shared
+ * between queries; the column positions they need are looked up in the ColumnIndex that the query
+ * resolved once from its metadata.
+ *
+ * @param <T> the type of object built from each row
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+  /**
+   * Build an object from the row the result set is currently positioned on.
+   *
+   * @param resultSet the result set, positioned on the row to map
+   * @param columns the positions of the result set's columns
+   * @return the object built from the row
+   * @throws SQLException a column could not be read
+   */
+  T mapRow(ResultSet resultSet, ColumnIndex columns) throws SQLException;
+
+  /**
+   * A mapper that reads a single bigint column from each row.
+   *
+   * @param label the label of the column to read
+   * @return the mapper
+   */
+  static RowMapper<Long> longColumn(String label) {
+    return (resultSet, columns) -> resultSet.getLong(columns.of(label));
+  }
+}
@@ -29,6 +29,8 @@ DROP TABLE rich_version;
 DROP TABLE structure_version_attribute;
 DROP TABLE structure_version;
 DROP TABLE structure;
+DROP TABLE id_block;
+DROP TABLE item_leaf;
 DROP TABLE version_history_dag;
 DROP TABLE item_tag;
 DROP TABLE item;
@@ -46,6 +46,34 @@ CREATE TABLE IF NOT EXISTS version_history_dag (
     CONSTRAINT version_history_dag_pkey PRIMARY KEY (item_id, version_successor_id)
 );
 
+-- the leaves of each item's version history, maintained alongside version_history_dag
+CREATE TABLE IF NOT EXISTS item_leaf (
+    item_id bigint NOT NULL REFERENCES item(id),
+    version_id bigint NOT NULL REFERENCES version(id),
+    CONSTRAINT item_leaf_pkey PRIMARY KEY (item_id, version_id)
+);
+
+-- backfill the leaves of items created before item_leaf existed: every version of an item's history
+-- that is not the parent of another version in it; running this again adds nothing
+INSERT INTO item_leaf (item_id, version_id)
+SELECT DISTINCT d.item_id, s.to_version_id
+FROM version_history_dag d
+JOIN version_successor s ON s.id = d.version_successor_id
+WHERE NOT EXISTS (
+    SELECT 1
+    FROM version_history_dag pd
+    JOIN version_successor ps ON ps.id = pd.version_successor_id
+    WHERE pd.item_id = d.item_id AND ps.from_version_id = s.to_version_id
+)
+ON CONFLICT DO NOTHING;
+
+-- the next unleased id of each IdGenerator counter; a counter without a row, or behind the ids
+-- already written, is moved past them before its first lease
+CREATE TABLE IF NOT EXISTS id_block (
+    name varchar NOT NULL PRIMARY KEY,
+    next_id bigint NOT NULL
+);
+
 -- MODELS
 
 CREATE TABLE IF NOT EXISTS structure (
@@ -0,0 +1,104 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.benchmark;
+
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.model.core.GraphVersion;
+import edu.berkeley.ground.postgres.dao.PostgresTest;
+import edu.berkeley.ground.postgres.dao.SqlConstants;
+import edu.berkeley.ground.postgres.dao.core.PostgresGraphVersionDao;
+import edu.berkeley.ground.postgres.util.PostgresStatements;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Measures round trips and wall time of PostgresGraphVersionDao.create for graph versions of
+ * increasing size: without batching, with batched INSERTs, and with the COPY bulk load. Needs the
+ * same test database as PostgresTest. Round trips made while streaming COPY data are not counted.
+ *
+ * <p>Run with: sbt "postgres/test:runMain edu.berkeley.ground.postgres.benchmark.GraphVersionCreateBenchmark"
+ */
+public class GraphVersionCreateBenchmark extends PostgresTest {
+
+  private static final int[] EDGE_COUNTS = {10, 1000, 100000};
+  private static final String[] MODES = {"unbatched", "batched", "copy"};
+
+  public GraphVersionCreateBenchmark() throws GroundException {
+    super();
+  }
+
+  public static void main(String[] args) throws Exception {
+    GraphVersionCreateBenchmark benchmark = new GraphVersionCreateBenchmark();
+
+    System.out.println("mode, edges, round trips, wall time (ms)");
+    for (String mode : MODES) {
+      for (int edgeCount : EDGE_COUNTS) {
+        benchmark.setup();
+
+        try {
+          benchmark.run(mode, edgeCount);
+        } finally {
+          benchmark.tearDown();
+        }
+      }
+    }
+  }
+
+  private void run(String mode, int edgeCount) throws GroundException {
+    System.clearProperty("ground.db.batch.size");
+    System.clearProperty("ground.db.copy.threshold");
+
+    List<Long> edgeVersionIds = this.createEdgeVersions(edgeCount);
+    long graphId = createGraph("benchmarkGraph").getId();
+
+    System.setProperty("ground.db.batch.size", mode.equals("unbatched") ? "1" : "1000");
+    System.setProperty("ground.db.copy.threshold", mode.equals("copy") ? "0" : Integer.toString(Integer.MAX_VALUE));
+
+    RoundTripCounter counter = new RoundTripCounter(dbSource);
+    PostgresGraphVersionDao graphVersionDao = new PostgresGraphVersionDao(counter.getDatabase(), idGenerator);
+    GraphVersion graphVersion = new GraphVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), graphId, edgeVersionIds);
+
+    long start = System.nanoTime();
+    graphVersionDao.create(graphVersion, new ArrayList<>());
+    long elapsed = System.nanoTime() - start;
+
+    System.out.printf("%s, %d, %d, %d%n", mode, edgeCount, counter.getRoundTrips(), elapsed / 1_000_000);
+  }
+
+  /**
+   * Insert the edge versions a graph version will reference directly, without going through the
+   * DAOs, so that setup time does not dominate the run.
+   */
+  private List<Long> createEdgeVersions(int edgeCount) throws GroundException {
+    long fromNodeId = createNode("benchmarkFromNode").getId();
+    long toNodeId = createNode("benchmarkToNode").getId();
+    long fromNodeVersionId = createNodeVersion(fromNodeId).getId();
+    long toNodeVersionId = createNodeVersion(toNodeId).getId();
+    long edgeId = createEdge("benchmarkEdge", "benchmarkFromNode", "benchmarkToNode").getId();
+
+    List<Long> edgeVersionIds = new ArrayList<>();
+    for (int i = 0; i < edgeCount; i++) {
+      edgeVersionIds.add(idGenerator.generateVersionId());
+    }
+
+    PostgresStatements statements = new PostgresStatements();
+    edgeVersionIds.forEach(id -> statements.append(SqlConstants.INSERT_VERSION, id));
+    edgeVersionIds.forEach(id -> statements.append(SqlConstants.INSERT_RICH_VERSION_WITHOUT_REFERENCE, id, null));
+    edgeVersionIds.forEach(id -> statements.append(SqlConstants.INSERT_EDGE_VERSION, id, edgeId, fromNodeVersionId, null, toNodeVersionId,
+      null));
+
+    PostgresUtils.executeSqlList(dbSource, statements);
+    return edgeVersionIds;
+  }
+}
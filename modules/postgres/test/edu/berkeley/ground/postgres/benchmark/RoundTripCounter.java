@@ -0,0 +1,81 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import play.db.Database;
+
+/**
+ * Wraps a Database so that every JDBC call that goes to the server (statement executions, batch
+ * executions, commits and rollbacks) is counted.
+ */
+class RoundTripCounter {
+
+  private static final Set<String> ROUND_TRIP_METHODS = new HashSet<>(Arrays.asList(
+    "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch", "commit", "rollback"));
+
+  private final AtomicLong roundTrips;
+  private final Database database;
+
+  RoundTripCounter(Database delegate) {
+    this.roundTrips = new AtomicLong();
+    this.database = this.wrap(Database.class, delegate);
+  }
+
+  Database getDatabase() {
+    return this.database;
+  }
+
+  long getRoundTrips() {
+    return this.roundTrips.get();
+  }
+
+  void reset() {
+    this.roundTrips.set(0);
+  }
+
+  private <T> T wrap(Class<T> type, T delegate) {
+    return type.cast(Proxy.newProxyInstance(RoundTripCounter.class.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+      Object result;
+      try {
+        result = method.invoke(delegate, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+
+      if (ROUND_TRIP_METHODS.contains(method.getName())) {
+        this.roundTrips.incrementAndGet();
+      } else if (method.getName().equals("unwrap")) {
+        // driver-specific APIs (such as COPY) are handed back untouched
+        return result;
+      }
+
+      if (result instanceof PreparedStatement) {
+        return this.wrap(PreparedStatement.class, (PreparedStatement) result);
+      } else if (result instanceof Statement) {
+        return this.wrap(Statement.class, (Statement) result);
+      } else if (result instanceof Connection) {
+        return this.wrap(Connection.class, (Connection) result);
+      }
+
+      return result;
+    }));
+  }
+}
@@ -0,0 +1,207 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.benchmark;
+
+import edu.berkeley.ground.common.model.version.VersionHistoryDag;
+import edu.berkeley.ground.common.model.version.VersionSuccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Measures parent lookups, leaf listing and membership checks on in-memory version history DAGs of
+ * 10^3 to 10^6 edges. The "scan" mode replays the previous implementation, which walked the whole
+ * parent-to-children map on every call, against the indexed VersionHistoryDag. Scan runs make
+ * fewer lookups on the largest DAGs, where each one takes milliseconds, so that all sizes finish in
+ * a few minutes. It also reports the retained heap per edge
+ * of the DAG against the same indexes held in boxed maps, sets and lists. No database is needed.
+ *
+ * <p>Run with: sbt "postgres/test:runMain edu.berkeley.ground.postgres.benchmark.VersionHistoryDagBenchmark"
+ */
+public class VersionHistoryDagBenchmark {
+
+  private static final int[] EDGE_COUNTS = {1_000, 10_000, 100_000, 1_000_000};
+  private static final int LOOKUPS = 1_000;
+  // the most edges visited by the lookups of one scan run
+  private static final long SCAN_BUDGET = 10_000_000;
+
+  public static void main(String[] args) {
+    System.out.println("mode, edges, getParent (ns/op), getLeaves (ns/op), checkItemInDag (ns/op)");
+
+    for (int edgeCount : EDGE_COUNTS) {
+      List<VersionSuccessor> edges = createHistory(edgeCount);
+      long[] lookups = new Random(edgeCount).longs(LOOKUPS, 1, edgeCount + 1).toArray();
+
+      int scanLookups = (int) Math.max(10, Math.min(LOOKUPS, SCAN_BUDGET / edgeCount));
+      runScan(edges, Arrays.copyOf(lookups, scanLookups));
+      runIndexed(edges, lookups);
+    }
+
+    System.out.println();
+    System.out.println("edges, boxed (bytes/edge), primitive (bytes/edge)");
+    for (int edgeCount : EDGE_COUNTS) {
+      List<VersionSuccessor> edges = createHistory(edgeCount);
+      int copies = Math.max(1, 1_000_000 / edgeCount);
+
+      long boxed = retainedBytes(copies, () -> {
+        Map<Long, List<Long>> parentChildMap = new HashMap<>();
+        Map<Long, List<Long>> childParentMap = new HashMap<>();
+        Set<Long> leaves = new LinkedHashSet<>();
+        List<Long> edgeIds = new ArrayList<>();
+
+        edges.forEach(edge -> {
+          parentChildMap.computeIfAbsent(edge.getFromId(), key -> new ArrayList<>()).add(edge.getToId());
+          childParentMap.computeIfAbsent(edge.getToId(), key -> new ArrayList<>()).add(edge.getFromId());
+          leaves.remove(edge.getFromId());
+          if (!parentChildMap.containsKey(edge.getToId())) {
+            leaves.add(edge.getToId());
+          }
+          edgeIds.add(edge.getId());
+        });
+
+        return new Object[] {parentChildMap, childParentMap, leaves, edgeIds};
+      });
+      long primitive = retainedBytes(copies, () -> new VersionHistoryDag(1L, edges));
+
+      System.out.printf("%d, %d, %d%n", edgeCount, boxed / ((long) edgeCount * copies), primitive / ((long) edgeCount * copies));
+    }
+  }
+
+  /**
+   * Estimate the heap retained by several objects built by a supplier, from the used heap before
+   * and after a full collection. Building more than one smooths out the noise for small DAGs.
+   */
+  private static long retainedBytes(int copies, Supplier<Object> supplier) {
+    long before = usedHeap();
+    Object[] retained = new Object[copies];
+    for (int i = 0; i < copies; i++) {
+      retained[i] = supplier.get();
+    }
+    long after = usedHeap();
+
+    if (retained[copies - 1].hashCode() == 0) {
+      System.out.println();
+    }
+
+    return after - before;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static void runIndexed(List<VersionSuccessor> edges, long[] lookups) {
+    VersionHistoryDag dag = new VersionHistoryDag(1L, edges);
+    long sink = 0;
+
+    long start = System.nanoTime();
+    for (long id : lookups) {
+      sink += dag.getParent(id).size();
+    }
+    long parentTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int i = 0; i < lookups.length; i++) {
+      sink += dag.getLeaves().size();
+    }
+    long leafTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (long id : lookups) {
+      sink += dag.checkItemInDag(id) ? 1 : 0;
+    }
+    long checkTime = System.nanoTime() - start;
+
+    print("indexed", edges.size(), lookups.length, parentTime, leafTime, checkTime, sink);
+  }
+
+  private static void runScan(List<VersionSuccessor> edges, long[] lookups) {
+    Map<Long, List<Long>> parentChildMap = new HashMap<>();
+    edges.forEach(edge -> parentChildMap.computeIfAbsent(edge.getFromId(), key -> new ArrayList<>()).add(edge.getToId()));
+    long sink = 0;
+
+    long start = System.nanoTime();
+    for (long id : lookups) {
+      sink += parentChildMap.entrySet().stream().filter(entry -> entry.getValue().contains(id)).map(Map.Entry::getKey)
+                .collect(Collectors.toList()).size();
+    }
+    long parentTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int i = 0; i < lookups.length; i++) {
+      sink += scanLeaves(parentChildMap).size();
+    }
+    long leafTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (long id : lookups) {
+      sink += parentChildMap.containsKey(id) || scanLeaves(parentChildMap).contains(id) ? 1 : 0;
+    }
+    long checkTime = System.nanoTime() - start;
+
+    print("scan", edges.size(), lookups.length, parentTime, leafTime, checkTime, sink);
+  }
+
+  private static List<Long> scanLeaves(Map<Long, List<Long>> parentChildMap) {
+    Set<Long> leaves = new HashSet<>();
+    parentChildMap.values().forEach(leaves::addAll);
+    leaves.removeAll(parentChildMap.keySet());
+
+    return new ArrayList<>(leaves);
+  }
+
+  private static void print(String mode, int edgeCount, int lookups, long parentTime, long leafTime, long checkTime, long sink) {
+    // the sink keeps the JIT from discarding the measured calls
+    if (sink == Long.MIN_VALUE) {
+      System.out.println(sink);
+    }
+
+    System.out.printf("%s, %d, %d, %d, %d%n", mode, edgeCount, parentTime / lookups, leafTime / lookups, checkTime / lookups);
+  }
+
+  /**
+   * Build a history where every version has one or two parents among the versions before it, so
+   * that there are several leaves and merge points.
+   */
+  private static List<VersionSuccessor> createHistory(int edgeCount) {
+    Random random = new Random(42);
+    List<VersionSuccessor> edges = new ArrayList<>(edgeCount);
+
+    long versionId = 1;
+    edges.add(new VersionSuccessor(0, 0, versionId));
+
+    while (edges.size() < edgeCount) {
+      versionId++;
+      edges.add(new VersionSuccessor(edges.size(), 1 + random.nextInt((int) versionId - 1), versionId));
+
+      if (edges.size() < edgeCount && versionId > 2 && random.nextInt(4) == 0) {
+        edges.add(new VersionSuccessor(edges.size(), 1 + random.nextInt((int) versionId - 2), versionId));
+      }
+    }
+
+    return edges;
+  }
+}
@@ -0,0 +1,116 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.berkeley.ground.postgres.benchmark;
+
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.model.version.VersionHistoryDag;
+import edu.berkeley.ground.common.model.version.VersionSuccessor;
+import edu.berkeley.ground.postgres.dao.PostgresTest;
+import edu.berkeley.ground.postgres.dao.SqlConstants;
+import edu.berkeley.ground.postgres.dao.version.PostgresVersionHistoryDagDao;
+import edu.berkeley.ground.postgres.dao.version.PostgresVersionSuccessorDao;
+import edu.berkeley.ground.postgres.util.PostgresStatements;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
+import edu.berkeley.ground.postgres.util.RowMapper;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures round trips and wall time of loading the version history DAG of an item with a growing
+ * number of versions. The "per-successor" mode replays the old access pattern, one query for the
+ * successor ids and then one query per successor, against the single joined query. Needs the same
+ * test database as PostgresTest.
+ *
+ * <p>Run with: sbt "postgres/test:runMain edu.berkeley.ground.postgres.benchmark.VersionHistoryDagLoadBenchmark"
+ */
+public class VersionHistoryDagLoadBenchmark extends PostgresTest {
+
+  private static final int[] VERSION_COUNTS = {10, 100, 1000, 5000};
+  private static final String[] MODES = {"per-successor", "joined"};
+  private static final String SELECT_DAG_SUCCESSOR_IDS = "SELECT version_successor_id FROM version_history_dag WHERE item_id = ?;";
+
+  public VersionHistoryDagLoadBenchmark() throws GroundException {
+    super();
+  }
+
+  public static void main(String[] args) throws Exception {
+    VersionHistoryDagLoadBenchmark benchmark = new VersionHistoryDagLoadBenchmark();
+
+    System.out.println("mode, versions, round trips, wall time (ms)");
+    for (int versionCount : VERSION_COUNTS) {
+      benchmark.setup();
+
+      try {
+        long nodeId = benchmark.createHistory(versionCount);
+
+        for (String mode : MODES) {
+          benchmark.run(mode, nodeId, versionCount);
+        }
+      } finally {
+        benchmark.tearDown();
+      }
+    }
+  }
+
+  private void run(String mode, long itemId, int versionCount) throws GroundException {
+    RoundTripCounter counter = new RoundTripCounter(dbSource);
+
+    long start = System.nanoTime();
+    VersionHistoryDag dag;
+    if (mode.equals("joined")) {
+      dag = new PostgresVersionHistoryDagDao(counter.getDatabase(), idGenerator).retrieveFromDatabase(itemId);
+    } else {
+      PostgresVersionSuccessorDao successorDao = new PostgresVersionSuccessorDao(counter.getDatabase(), idGenerator);
+      List<VersionSuccessor> edges = new ArrayList<>();
+
+      for (long successorId : PostgresUtils.executeQuery(counter.getDatabase(), SELECT_DAG_SUCCESSOR_IDS,
+        RowMapper.longColumn("version_successor_id"), itemId)) {
+        edges.add(successorDao.retrieveFromDatabase(successorId));
+      }
+
+      dag = new VersionHistoryDag(itemId, edges);
+    }
+    long elapsed = System.nanoTime() - start;
+
+    if (dag.getEdgeIds().size() != versionCount) {
+      throw new IllegalStateException(String.format("Loaded %d edges, expected %d.", dag.getEdgeIds().size(), versionCount));
+    }
+
+    System.out.printf("%s, %d, %d, %d%n", mode, versionCount, counter.getRoundTrips(), elapsed / 1_000_000);
+  }
+
+  /**
+   * Insert a linear history of versions for a new node directly, without going through the DAOs, so
+   * that setup time does not dominate the run.
+   *
+   * @return the id of the node
+   */
+  private long createHistory(int versionCount) throws GroundException {
+    long nodeId = createNode("benchmarkNode").getId();
+    PostgresStatements statements = new PostgresStatements();
+
+    long parentId = 0L;
+    for (int i = 0; i < versionCount; i++) {
+      long versionId = idGenerator.generateVersionId();
+      long successorId = idGenerator.generateSuccessorId();
+
+      statements.append(SqlConstants.INSERT_VERSION, versionId);
+      statements.append(SqlConstants.INSERT_VERSION_SUCCESSOR, successorId, parentId, versionId);
+      statements.append(SqlConstants.INSERT_VERSION_HISTORY_DAG_EDGE, nodeId, successorId);
+
+      parentId = versionId;
+    }
+
+    PostgresUtils.executeSqlList(dbSource, statements);
+    return nodeId;
+  }
+}
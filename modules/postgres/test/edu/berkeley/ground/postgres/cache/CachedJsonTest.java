@@ -0,0 +1,92 @@
+package edu.berkeley.ground.postgres.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.Test;
+import play.http.HttpEntity;
+import play.libs.Json;
+import play.mvc.Http;
+import play.mvc.Http.HeaderNames;
+import play.mvc.Result;
+
+public class CachedJsonTest {
+
+  private static final JsonNode JSON = Json.parse("{\"id\":1,\"sourceKey\":\"test\"}");
+
+  @Test
+  public void testEncodedBodyMatchesTree() throws Exception {
+    CachedJson cached = CachedJson.of(JSON, true, false);
+    Result result = cached.toResult(new Http.RequestBuilder().build());
+
+    assertEquals(Http.Status.OK, result.status());
+    assertEquals(Json.stringify(JSON), new String(body(result), StandardCharsets.UTF_8));
+    assertTrue(result.header(HeaderNames.ETAG).isPresent());
+  }
+
+  @Test
+  public void testGzippedBodyIsServedToGzipClients() throws Exception {
+    CachedJson cached = CachedJson.of(JSON, true, true);
+    Result result = cached.toResult(new Http.RequestBuilder().header(HeaderNames.ACCEPT_ENCODING, "gzip, deflate").build());
+
+    assertEquals("gzip", result.header(HeaderNames.CONTENT_ENCODING).get());
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body(result)))) {
+      assertEquals(Json.stringify(JSON), new String(ByteStreams.toByteArray(gzip), StandardCharsets.UTF_8));
+    }
+
+    Result plain = cached.toResult(new Http.RequestBuilder().build());
+    assertEquals(Json.stringify(JSON), new String(body(plain), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testMatchingEtagIsNotModified() throws Exception {
+    CachedJson cached = CachedJson.of(JSON, true, false);
+    String etag = cached.toResult(new Http.RequestBuilder().build()).header(HeaderNames.ETAG).get();
+
+    Result result = cached.toResult(new Http.RequestBuilder().header(HeaderNames.IF_NONE_MATCH, etag).build());
+    assertEquals(Http.Status.NOT_MODIFIED, result.status());
+  }
+
+  @Test
+  public void testEtagListAndWildcardAreNotModified() throws Exception {
+    CachedJson cached = CachedJson.of(JSON, true, false);
+    String etag = cached.toResult(new Http.RequestBuilder().build()).header(HeaderNames.ETAG).get();
+
+    String tags = "\"other\", W/" + etag;
+    Result listed = cached.toResult(new Http.RequestBuilder().header(HeaderNames.IF_NONE_MATCH, tags).build());
+    assertEquals(Http.Status.NOT_MODIFIED, listed.status());
+
+    Result wildcard = cached.toResult(new Http.RequestBuilder().header(HeaderNames.IF_NONE_MATCH, "*").build());
+    assertEquals(Http.Status.NOT_MODIFIED, wildcard.status());
+
+    Result other = cached.toResult(new Http.RequestBuilder().header(HeaderNames.IF_NONE_MATCH, "\"other\"").build());
+    assertEquals(Http.Status.OK, other.status());
+  }
+
+  @Test
+  public void testGzippedAndIdentityBodiesHaveTheirOwnEtags() throws Exception {
+    CachedJson cached = CachedJson.of(JSON, true, true);
+    Result gzipped = cached.toResult(new Http.RequestBuilder().header(HeaderNames.ACCEPT_ENCODING, "gzip").build());
+    Result plain = cached.toResult(new Http.RequestBuilder().build());
+
+    assertEquals(HeaderNames.ACCEPT_ENCODING, gzipped.header(HeaderNames.VARY).get());
+    assertEquals(HeaderNames.ACCEPT_ENCODING, plain.header(HeaderNames.VARY).get());
+    assertNotEquals(gzipped.header(HeaderNames.ETAG).get(), plain.header(HeaderNames.ETAG).get());
+
+    // the identity ETag does not validate a cached gzip body, nor the other way round
+    String plainEtag = plain.header(HeaderNames.ETAG).get();
+    Result revalidated = cached.toResult(new Http.RequestBuilder().header(HeaderNames.ACCEPT_ENCODING, "gzip")
+                                           .header(HeaderNames.IF_NONE_MATCH, plainEtag).build());
+    assertEquals(Http.Status.OK, revalidated.status());
+  }
+
+  private static byte[] body(Result result) {
+    return ((HttpEntity.Strict) result.body()).data().toArray();
+  }
+}
@@ -0,0 +1,140 @@
+package edu.berkeley.ground.postgres.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
+import edu.berkeley.ground.common.model.core.Node;
+import edu.berkeley.ground.common.model.usage.LineageEdge;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import play.libs.Json;
+
+public class GroundCacheTest {
+
+  private static final Executor DIRECT = Runnable::run;
+
+  @Test
+  public void testVersionsDoNotExpire() throws Exception {
+    GroundCache cache = new GroundCache(10, 10, 0);
+    AtomicInteger loads = new AtomicInteger();
+
+    getVersion(cache, "node_versions.1", loads);
+    getVersion(cache, "node_versions.1", loads);
+
+    assertEquals(1, loads.get());
+    assertEquals(1L, (long) cache.getStats().get("versionHits"));
+  }
+
+  @Test
+  public void testMutableEntriesExpire() throws Exception {
+    GroundCache cache = new GroundCache(10, 10, 0);
+    AtomicInteger loads = new AtomicInteger();
+
+    getMutable(cache, "node_leaves.test", loads);
+    getMutable(cache, "node_leaves.test", loads);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    GroundCache cache = new GroundCache(10, 10, 60);
+    AtomicInteger loads = new AtomicInteger();
+
+    getMutable(cache, "node_leaves.test", loads);
+    cache.invalidate(Collections.singletonList("node_leaves.test"));
+    getMutable(cache, "node_leaves.test", loads);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test(expected = GroundException.class)
+  public void testLoaderExceptionIsRethrown() throws Throwable {
+    GroundCache cache = new GroundCache(10, 10, 60);
+
+    try {
+      cache.getVersionJsonAsync("node_versions.1", () -> {
+        throw new GroundException(ExceptionType.VERSION_NOT_FOUND, "NodeVersion", "1");
+      }, DIRECT).get();
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    }
+  }
+
+  @Test
+  public void testItemChangeInvalidatesLeavesAndHistory() throws Exception {
+    GroundCache cache = new GroundCache(10, 10, 60);
+    AtomicInteger loads = new AtomicInteger();
+
+    getMutable(cache, "node_leaves.test", loads);
+    getMutable(cache, "node_history.test", loads);
+    getMutable(cache, "edge_leaves.test", loads);
+    cache.onItemChange(new ItemChange(Node.class, 1, "test"));
+    getMutable(cache, "node_leaves.test", loads);
+    getMutable(cache, "node_history.test", loads);
+    getMutable(cache, "edge_leaves.test", loads);
+
+    assertEquals(5, loads.get());
+  }
+
+  @Test
+  public void testItemChangeInvalidatesLinkedAdjacentLineage() throws Exception {
+    GroundCache cache = new GroundCache(10, 10, 60);
+    AtomicInteger loads = new AtomicInteger();
+
+    getMutable(cache, "node_version_adj_lineage.1", loads);
+    getMutable(cache, "node_version_adj_lineage.2", loads);
+    getMutable(cache, "node_version_adj_lineage.3", loads);
+    cache.onItemChange(new ItemChange(LineageEdge.class, 4, "test", Arrays.asList(1L, 2L)));
+    getMutable(cache, "node_version_adj_lineage.1", loads);
+    getMutable(cache, "node_version_adj_lineage.2", loads);
+    getMutable(cache, "node_version_adj_lineage.3", loads);
+
+    assertEquals(5, loads.get());
+  }
+
+  @Test
+  public void testEncodedVersionsAreCached() throws Exception {
+    GroundCache cache = new GroundCache(10, 10, 60, true, true);
+    AtomicInteger loads = new AtomicInteger();
+
+    CachedJson first = getVersion(cache, "node_versions.1", loads);
+    CachedJson second = getVersion(cache, "node_versions.1", loads);
+
+    assertEquals(1, loads.get());
+    assertSame(first, second);
+    assertTrue(first.getEncodedSize() > 0);
+  }
+
+  @Test
+  public void testOffHeapVersionsAreCached() throws Exception {
+    GroundCache cache = new GroundCache(10, 10, 60, false, false, new OffHeapStore(1 << 16, 1 << 12, 100));
+    AtomicInteger loads = new AtomicInteger();
+
+    getVersion(cache, "node_versions.1", loads);
+    getVersion(cache, "node_versions.1", loads);
+
+    assertEquals(1, loads.get());
+    assertEquals(1L, (long) cache.getStats().get("offHeapVersionHits"));
+  }
+
+  private static CachedJson getVersion(GroundCache cache, String key, AtomicInteger loads) throws Exception {
+    return cache.getVersionJsonAsync(key, () -> load(loads), DIRECT).get();
+  }
+
+  private static CachedJson getMutable(GroundCache cache, String key, AtomicInteger loads) throws Exception {
+    return cache.getOrElseJsonAsync(key, () -> load(loads), DIRECT).get();
+  }
+
+  private static JsonNode load(AtomicInteger loads) {
+    return Json.toJson(Collections.singletonMap("id", loads.incrementAndGet()));
+  }
+}
@@ -0,0 +1,55 @@
+package edu.berkeley.ground.postgres.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import edu.berkeley.ground.common.model.usage.LineageEdge;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class ItemChangeTest {
+
+  @Test
+  public void testPayloadRoundTrip() {
+    ItemChange change = ItemChange.fromPayload(ItemChange.toPayload(LineageEdge.class, 42));
+
+    assertEquals(LineageEdge.class, change.getItemType());
+    assertEquals(42, change.getItemId());
+    assertNull(change.getSourceKey());
+  }
+
+  @Test
+  public void testLinkedVersionIdsRoundTrip() {
+    List<Long> linkedVersionIds = new ArrayList<>();
+    for (long id = 0; id < 450; id++) {
+      linkedVersionIds.add(Long.MAX_VALUE - id);
+    }
+
+    List<String> payloads = ItemChange.toPayloads(LineageEdge.class, 42, linkedVersionIds);
+    List<Long> decoded = new ArrayList<>();
+    for (String payload : payloads) {
+      assertTrue(payload.length() < 8000);
+
+      ItemChange change = ItemChange.fromPayload(payload);
+      assertEquals(42, change.getItemId());
+      decoded.addAll(change.getLinkedVersionIds());
+    }
+
+    assertEquals(3, payloads.size());
+    assertEquals(linkedVersionIds, decoded);
+    assertEquals(Collections.singletonList(ItemChange.toPayload(LineageEdge.class, 42)),
+      ItemChange.toPayloads(LineageEdge.class, 42, Collections.emptyList()));
+  }
+
+  @Test
+  public void testMalformedPayload() {
+    assertNull(ItemChange.fromPayload("Unknown:1"));
+    assertNull(ItemChange.fromPayload("Node:notanid"));
+    assertNull(ItemChange.fromPayload("Node:1:key"));
+    assertNull(ItemChange.fromPayload("Node:1:2:3"));
+    assertNull(ItemChange.fromPayload("Node"));
+  }
+}
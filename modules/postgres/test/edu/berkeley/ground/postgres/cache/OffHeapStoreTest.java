@@ -0,0 +1,62 @@
+package edu.berkeley.ground.postgres.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import play.libs.Json;
+
+public class OffHeapStoreTest {
+
+  @Test
+  public void testPutAndGet() {
+    OffHeapStore store = new OffHeapStore(1024, 512, 100);
+    byte[] value = "value".getBytes(StandardCharsets.UTF_8);
+
+    assertTrue(store.put("node_versions.1", value));
+    assertArrayEquals(value, store.get("node_versions.1"));
+    assertNull(store.get("node_versions.2"));
+
+    assertEquals(1, store.getHitCount());
+    assertEquals(1, store.getMissCount());
+  }
+
+  @Test
+  public void testOldestSlabIsEvicted() {
+    // two slabs of 64 bytes, so each fits two 24 byte entries
+    OffHeapStore store = new OffHeapStore(128, 64, 100);
+
+    for (int i = 0; i < 6; i++) {
+      store.put("key" + i, new byte[12]);
+    }
+
+    assertNull(store.get("key0"));
+    assertNull(store.get("key1"));
+    for (int i = 2; i < 6; i++) {
+      assertTrue(store.get("key" + i) != null);
+    }
+    assertEquals(2, store.getEvictionCount());
+  }
+
+  @Test
+  public void testEntryLargerThanSlabIsNotStored() {
+    OffHeapStore store = new OffHeapStore(128, 64, 100);
+
+    assertFalse(store.put("key", new byte[64]));
+    assertNull(store.get("key"));
+  }
+
+  @Test
+  public void testCachedJsonRoundTrip() {
+    JsonNode json = Json.parse("{\"id\":1}");
+    CachedJson cached = CachedJson.of(json, true, true);
+
+    CachedJson restored = CachedJson.fromBytes(cached.toBytes());
+    assertArrayEquals(cached.toBytes(), restored.toBytes());
+  }
+}
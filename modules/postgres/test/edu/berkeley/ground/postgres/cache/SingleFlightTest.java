@@ -0,0 +1,128 @@
+package edu.berkeley.ground.postgres.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.exception.GroundException.ExceptionType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void testConcurrentLoadsAreCoalesced() throws Exception {
+    SingleFlight singleFlight = new SingleFlight();
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    List<Integer> stored = new ArrayList<>();
+
+    List<CompletableFuture<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      futures.add(singleFlight.load("key", () -> {
+        release.await();
+        return loads.incrementAndGet();
+      }, stored::add, this.executor));
+    }
+    release.countDown();
+
+    for (CompletableFuture<Integer> future : futures) {
+      assertEquals(1, (int) future.get());
+    }
+
+    assertEquals(1, loads.get());
+    assertEquals(Collections.singletonList(1), stored);
+    assertEquals(1, singleFlight.getLoadCount());
+    assertEquals(9, singleFlight.getCoalescedCount());
+  }
+
+  @Test
+  public void testForgottenLoadIsNotStored() throws Exception {
+    SingleFlight singleFlight = new SingleFlight();
+    CountDownLatch release = new CountDownLatch(1);
+    List<Integer> stored = new ArrayList<>();
+
+    CompletableFuture<Integer> future = singleFlight.load("key", () -> {
+      release.await();
+      return 1;
+    }, stored::add, this.executor);
+
+    singleFlight.forget(Collections.singletonList("key"));
+    release.countDown();
+
+    assertEquals(1, (int) future.get());
+    assertTrue(stored.isEmpty());
+  }
+
+  @Test
+  public void testLoadStoredDuringInvalidationIsEvicted() throws Exception {
+    SingleFlight singleFlight = new SingleFlight();
+    Map<String, Integer> cache = new ConcurrentHashMap<>();
+    CountDownLatch storing = new CountDownLatch(1);
+    CountDownLatch store = new CountDownLatch(1);
+
+    CompletableFuture<Integer> future = singleFlight.load("key", () -> 1, value -> {
+      storing.countDown();
+      try {
+        store.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      cache.put("key", value);
+    }, this.executor);
+
+    // invalidate the key after the load has finished but before its value is stored
+    storing.await();
+    Thread invalidation = new Thread(() -> {
+      singleFlight.forget(Collections.singletonList("key"));
+      cache.remove("key");
+    });
+    invalidation.start();
+    Thread.sleep(100);
+
+    store.countDown();
+    invalidation.join();
+
+    assertEquals(1, (int) future.get());
+    assertFalse(cache.containsKey("key"));
+  }
+
+  @Test
+  public void testFailedLoadIsNotCached() throws Exception {
+    SingleFlight singleFlight = new SingleFlight();
+
+    CompletableFuture<Integer> failed = singleFlight.load("key", () -> {
+      throw new GroundException(ExceptionType.ITEM_NOT_FOUND, "Node", "key");
+    }, value -> { }, this.executor);
+
+    try {
+      failed.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof GroundException);
+    }
+
+    assertEquals(2, (int) singleFlight.load("key", () -> 2, value -> { }, this.executor).get());
+    assertEquals(2, singleFlight.getLoadCount());
+  }
+}
@@ -0,0 +1,72 @@
+package edu.berkeley.ground.postgres.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import org.junit.Test;
+
+public class SourceKeyIndexTest {
+
+  @Test
+  public void testUnwarmedIndexRulesNothingOut() {
+    SourceKeyIndex index = new SourceKeyIndex(100, 60);
+
+    assertTrue(index.mightContain("missing"));
+  }
+
+  @Test
+  public void testWarmedIndexRulesOutUnknownKeys() {
+    SourceKeyIndex index = new SourceKeyIndex(100, 60);
+    index.warm(ImmutableMap.of("a", 1L, "b", 2L));
+
+    assertTrue(index.mightContain("a"));
+    assertTrue(index.mightContain("b"));
+    assertFalse(index.mightContain("missing"));
+
+    index.add("missing");
+    assertTrue(index.mightContain("missing"));
+  }
+
+  @Test
+  public void testAddClearsAbsentKey() {
+    SourceKeyIndex index = new SourceKeyIndex(100, 60);
+    index.warm(Collections.emptyMap());
+
+    index.recordAbsent("key");
+    assertFalse(index.mightContain("key"));
+
+    index.add("key");
+    assertTrue(index.mightContain("key"));
+  }
+
+  @Test
+  public void testIsAbsent() {
+    SourceKeyIndex index = new SourceKeyIndex(100, 60);
+
+    assertFalse(index.isAbsent("key"));
+    index.recordAbsent("key");
+    assertTrue(index.isAbsent("key"));
+
+    index.add("key");
+    assertFalse(index.isAbsent("key"));
+  }
+
+  @Test
+  public void testItemIds() {
+    SourceKeyIndex index = new SourceKeyIndex(100, 60);
+    index.warm(ImmutableMap.of("a", 1L));
+    index.putItemId("b", 2L);
+
+    assertEquals(1L, (long) index.getItemId("a"));
+    assertEquals(2L, (long) index.getItemId("b"));
+    assertNull(index.getItemId("c"));
+
+    assertEquals("a", index.getSourceKey(1L));
+    assertEquals("b", index.getSourceKey(2L));
+    assertNull(index.getSourceKey(3L));
+  }
+}
@@ -3,6 +3,7 @@ package edu.berkeley.ground.postgres.dao;
 import com.google.common.collect.ImmutableMap;
 import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.cache.SourceKeyIndex;
 import edu.berkeley.ground.postgres.dao.core.PostgresEdgeDao;
 import edu.berkeley.ground.postgres.dao.core.PostgresEdgeVersionDao;
 import edu.berkeley.ground.postgres.dao.core.PostgresGraphDao;
@@ -77,6 +78,7 @@ public class PostgresTest extends DaoTest {
 
     runScript(DROP_SCRIPT);
     runScript(CREATE_SCHEMA_SCRIPT);
+    SourceKeyIndex.resetAll();
   }
 
   @After
@@ -15,12 +15,17 @@ package edu.berkeley.ground.postgres.dao.core;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.model.core.Edge;
 import edu.berkeley.ground.common.model.core.EdgeVersion;
 import edu.berkeley.ground.common.model.version.Tag;
 import edu.berkeley.ground.postgres.dao.PostgresTest;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -151,6 +156,103 @@ public class PostgresEdgeVersionDaoTest extends PostgresTest {
     assertEquals(toEndId, parent.getToNodeVersionEndId());
   }
 
+  @Test
+  public void testBulkRetrieveFollowsRequestOrder() throws GroundException {
+    long firstId = PostgresTest.createTwoNodesAndEdge();
+    EdgeVersion first = PostgresTest.edgeVersionDao.retrieveFromDatabase(firstId);
+    long secondId = PostgresTest.createEdgeVersion(first.getEdgeId(), first.getFromNodeVersionStartId(), first.getToNodeVersionStartId())
+                      .getId();
+
+    List<EdgeVersion> retrieved = PostgresTest.edgeVersionDao.retrieveFromDatabase(Arrays.asList(secondId, -1L, firstId));
+
+    assertEquals(2, retrieved.size());
+    assertEquals(secondId, retrieved.get(0).getId());
+    assertEquals(firstId, retrieved.get(1).getId());
+    for (EdgeVersion edgeVersion : retrieved) {
+      assertEquals(first.getEdgeId(), edgeVersion.getEdgeId());
+      assertEquals(first.getFromNodeVersionStartId(), edgeVersion.getFromNodeVersionStartId());
+      assertEquals(first.getToNodeVersionStartId(), edgeVersion.getToNodeVersionStartId());
+    }
+  }
+
+  @Test
+  public void testBatchCreateSetsParentEndVersionsOnce() throws GroundException {
+    long parentId = PostgresTest.createTwoNodesAndEdge();
+    EdgeVersion parent = PostgresTest.edgeVersionDao.retrieveFromDatabase(parentId);
+    long edgeId = parent.getEdgeId();
+
+    // two further versions of each node, so that the children start after the parent's end
+    long fromNodeId = PostgresTest.nodeVersionDao.retrieveFromDatabase(parent.getFromNodeVersionStartId()).getNodeId();
+    long fromEndId = PostgresTest.createNodeVersion(fromNodeId, Arrays.asList(parent.getFromNodeVersionStartId())).getId();
+    long fromStartId = PostgresTest.createNodeVersion(fromNodeId, Arrays.asList(fromEndId)).getId();
+
+    long toNodeId = PostgresTest.nodeVersionDao.retrieveFromDatabase(parent.getToNodeVersionStartId()).getNodeId();
+    long toEndId = PostgresTest.createNodeVersion(toNodeId, Arrays.asList(parent.getToNodeVersionStartId())).getId();
+    long toStartId = PostgresTest.createNodeVersion(toNodeId, Arrays.asList(toEndId)).getId();
+
+    List<EdgeVersion> edgeVersions = new ArrayList<>();
+    List<List<Long>> parentIds = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      edgeVersions.add(new EdgeVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), edgeId, fromStartId, -1, toStartId, -1));
+      parentIds.add(new ArrayList<>(Arrays.asList(parentId)));
+    }
+
+    List<EdgeVersion> created = PostgresTest.edgeVersionDao.create(edgeVersions, parentIds);
+    assertEquals(3, created.size());
+
+    List<Long> leaves = PostgresTest.edgeDao.getLeaves(edgeId);
+    assertEquals(3, leaves.size());
+    for (EdgeVersion edgeVersion : created) {
+      assertTrue(leaves.contains(edgeVersion.getId()));
+
+      EdgeVersion retrieved = PostgresTest.edgeVersionDao.retrieveFromDatabase(edgeVersion.getId());
+      assertEquals(edgeId, retrieved.getEdgeId());
+      assertEquals(fromStartId, retrieved.getFromNodeVersionStartId());
+      assertEquals(toStartId, retrieved.getToNodeVersionStartId());
+      assertEquals(-1, retrieved.getFromNodeVersionEndId());
+      assertEquals(-1, retrieved.getToNodeVersionEndId());
+    }
+
+    parent = PostgresTest.edgeVersionDao.retrieveFromDatabase(parentId);
+    assertEquals(fromEndId, parent.getFromNodeVersionEndId());
+    assertEquals(toEndId, parent.getToNodeVersionEndId());
+  }
+
+  @Test
+  public void testExportQueriesReadItemsAndVersions() throws GroundException {
+    long firstId = PostgresTest.createTwoNodesAndEdge();
+    EdgeVersion first = PostgresTest.edgeVersionDao.retrieveFromDatabase(firstId);
+    long edgeId = first.getEdgeId();
+
+    Map<String, Tag> tags = PostgresTest.createTags();
+    long secondId = PostgresTest.edgeVersionDao.create(new EdgeVersion(0L, tags, -1, null, new HashMap<>(), edgeId,
+      first.getFromNodeVersionStartId(), -1, first.getToNodeVersionStartId(), -1), new ArrayList<>()).getId();
+
+    long otherEdgeId = PostgresTest.createEdge("otherEdge", "firstTestNode", "secondTestNode").getId();
+    PostgresTest.createEdgeVersion(otherEdgeId, first.getFromNodeVersionStartId(), first.getToNodeVersionStartId());
+
+    List<?> edges = export(((PostgresEdgeDao) PostgresTest.edgeDao).getExportQuery("testEdge"));
+    assertEquals(1, edges.size());
+    assertEquals(edgeId, ((Edge) edges.get(0)).getId());
+    assertEquals(2, export(((PostgresEdgeDao) PostgresTest.edgeDao).getExportQuery(null)).size());
+
+    List<?> versions = export(((PostgresEdgeVersionDao) PostgresTest.edgeVersionDao).getExportQuery("testEdge"));
+    assertEquals(2, versions.size());
+    assertEquals(firstId, ((EdgeVersion) versions.get(0)).getId());
+    assertEquals(secondId, ((EdgeVersion) versions.get(1)).getId());
+    assertEquals(tags.size(), ((EdgeVersion) versions.get(1)).getTags().size());
+    for (Object version : versions) {
+      assertEquals(edgeId, ((EdgeVersion) version).getEdgeId());
+      assertEquals(first.getFromNodeVersionStartId(), ((EdgeVersion) version).getFromNodeVersionStartId());
+      assertEquals(first.getToNodeVersionStartId(), ((EdgeVersion) version).getToNodeVersionStartId());
+    }
+    assertEquals(3, export(((PostgresEdgeVersionDao) PostgresTest.edgeVersionDao).getExportQuery(null)).size());
+  }
+
+  private static List<?> export(PostgresExportQuery query) throws GroundException {
+    return PostgresUtils.executeQuery(PostgresTest.dbSource, query.getSql(), query.getMapper(), query.getParameters().toArray());
+  }
+
   @Test(expected = GroundException.class)
   public void testBadEdgeVersion() throws GroundException {
     long id = 1;
@@ -16,12 +16,22 @@ package edu.berkeley.ground.postgres.dao.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.model.core.EdgeVersion;
+import edu.berkeley.ground.common.model.core.Graph;
 import edu.berkeley.ground.common.model.core.GraphVersion;
 import edu.berkeley.ground.common.model.version.Tag;
 import edu.berkeley.ground.postgres.dao.PostgresTest;
+import edu.berkeley.ground.postgres.dao.SqlConstants;
+import edu.berkeley.ground.postgres.util.PostgresCopyStatement;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
+import edu.berkeley.ground.postgres.util.PostgresStatements;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -103,6 +113,157 @@ public class PostgresGraphVersionDaoTest extends PostgresTest {
     assertTrue(retrieved.getEdgeVersionIds().isEmpty());
   }
 
+  @Test
+  public void testCopiedEdgesRoundTrip() throws GroundException {
+    List<Long> edgeVersionIds = createEdgeVersions(3);
+    long graphId = PostgresTest.createGraph("testGraph").getId();
+
+    System.setProperty("ground.db.copy.threshold", "1");
+    long graphVersionId;
+    try {
+      GraphVersion graphVersion = new GraphVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), graphId, edgeVersionIds);
+      graphVersionId = PostgresTest.graphVersionDao.create(graphVersion, new ArrayList<>()).getId();
+    } finally {
+      System.clearProperty("ground.db.copy.threshold");
+    }
+
+    List<Long> retrieved = new ArrayList<>(PostgresTest.graphVersionDao.retrieveFromDatabase(graphVersionId).getEdgeVersionIds());
+    Collections.sort(retrieved);
+    assertEquals(edgeVersionIds, retrieved);
+  }
+
+  @Test
+  public void testFailureAfterCopyRollsBack() throws GroundException {
+    List<Long> edgeVersionIds = createEdgeVersions(3);
+    long graphId = PostgresTest.createGraph("testGraph").getId();
+
+    GraphVersion graphVersion = new GraphVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), graphId, new ArrayList<>());
+    long graphVersionId = PostgresTest.graphVersionDao.create(graphVersion, new ArrayList<>()).getId();
+
+    PostgresStatements statements = new PostgresStatements();
+    statements.append(PostgresCopyStatement.ofMembers("graph_version_edge", "graph_version_id", "edge_version_id", graphVersionId,
+      edgeVersionIds));
+    // there is no such edge version, so the foreign key fails the transaction after the COPY ran
+    statements.append(SqlConstants.INSERT_GRAPH_VERSION_EDGE, graphVersionId, -1L);
+
+    try {
+      PostgresUtils.executeSqlList(PostgresTest.dbSource, statements);
+      fail();
+    } catch (GroundException e) {
+      assertTrue(PostgresTest.graphVersionDao.retrieveFromDatabase(graphVersionId).getEdgeVersionIds().isEmpty());
+    }
+  }
+
+  @Test
+  public void testBulkRetrieveFollowsRequestOrder() throws GroundException {
+    List<Long> edgeVersionIds = createEdgeVersions(2);
+    long graphId = PostgresTest.createGraph("testGraph").getId();
+
+    long firstId = PostgresTest.graphVersionDao.create(new GraphVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), graphId,
+      edgeVersionIds), new ArrayList<>()).getId();
+    long secondId = PostgresTest.graphVersionDao.create(new GraphVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), graphId,
+      edgeVersionIds.subList(0, 1)), new ArrayList<>()).getId();
+
+    List<GraphVersion> retrieved = PostgresTest.graphVersionDao.retrieveFromDatabase(Arrays.asList(secondId, -1L, firstId, secondId));
+
+    assertEquals(3, retrieved.size());
+    assertEquals(secondId, retrieved.get(0).getId());
+    assertEquals(firstId, retrieved.get(1).getId());
+    assertEquals(secondId, retrieved.get(2).getId());
+    assertEquals(edgeVersionIds.subList(0, 1), retrieved.get(0).getEdgeVersionIds());
+
+    List<Long> firstEdgeVersionIds = new ArrayList<>(retrieved.get(1).getEdgeVersionIds());
+    Collections.sort(firstEdgeVersionIds);
+    assertEquals(edgeVersionIds, firstEdgeVersionIds);
+  }
+
+  @Test
+  public void testBatchCreateUpdatesLeavesOnce() throws GroundException {
+    List<Long> edgeVersionIds = createEdgeVersions(2);
+    long graphId = PostgresTest.createGraph("testGraph").getId();
+    long parentId = PostgresTest.graphVersionDao.create(new GraphVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), graphId,
+      new ArrayList<>()), new ArrayList<>()).getId();
+
+    List<GraphVersion> graphVersions = new ArrayList<>();
+    List<List<Long>> parentIds = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      graphVersions.add(new GraphVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), graphId, edgeVersionIds));
+      parentIds.add(new ArrayList<>(Arrays.asList(parentId)));
+    }
+
+    List<GraphVersion> created = PostgresTest.graphVersionDao.create(graphVersions, parentIds);
+    assertEquals(3, created.size());
+
+    List<Long> leaves = PostgresTest.graphDao.getLeaves(graphId);
+    assertEquals(3, leaves.size());
+    for (GraphVersion graphVersion : created) {
+      assertTrue(leaves.contains(graphVersion.getId()));
+
+      GraphVersion retrieved = PostgresTest.graphVersionDao.retrieveFromDatabase(graphVersion.getId());
+      assertEquals(graphId, retrieved.getGraphId());
+
+      List<Long> retrievedEdgeVersionIds = new ArrayList<>(retrieved.getEdgeVersionIds());
+      Collections.sort(retrievedEdgeVersionIds);
+      assertEquals(edgeVersionIds, retrievedEdgeVersionIds);
+    }
+  }
+
+  @Test
+  public void testExportQueriesReadItemsAndVersions() throws GroundException {
+    List<Long> edgeVersionIds = createEdgeVersions(2);
+    long graphId = PostgresTest.createGraph("testGraph").getId();
+    long otherGraphId = PostgresTest.createGraph("otherGraph").getId();
+
+    Map<String, Tag> tags = PostgresTest.createTags();
+    long firstId = PostgresTest.graphVersionDao.create(new GraphVersion(0L, tags, -1, null, new HashMap<>(), graphId, edgeVersionIds),
+      new ArrayList<>()).getId();
+    long secondId = PostgresTest.graphVersionDao.create(new GraphVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), graphId,
+      new ArrayList<>()), Arrays.asList(firstId)).getId();
+    PostgresTest.graphVersionDao.create(new GraphVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), otherGraphId,
+      edgeVersionIds), new ArrayList<>());
+
+    List<?> graphs = export(((PostgresGraphDao) PostgresTest.graphDao).getExportQuery("testGraph"));
+    assertEquals(1, graphs.size());
+    assertEquals(graphId, ((Graph) graphs.get(0)).getId());
+    assertEquals(2, export(((PostgresGraphDao) PostgresTest.graphDao).getExportQuery(null)).size());
+
+    // the edges from the empty version to the first, and from the first to the second
+    assertEquals(2, export(((PostgresGraphDao) PostgresTest.graphDao).getHistoryExportQuery("testGraph")).size());
+
+    List<?> versions = export(((PostgresGraphVersionDao) PostgresTest.graphVersionDao).getExportQuery("testGraph"));
+    assertEquals(2, versions.size());
+
+    GraphVersion first = (GraphVersion) versions.get(0);
+    assertEquals(firstId, first.getId());
+    assertEquals(tags.size(), first.getTags().size());
+    List<Long> firstEdgeVersionIds = new ArrayList<>(first.getEdgeVersionIds());
+    Collections.sort(firstEdgeVersionIds);
+    assertEquals(edgeVersionIds, firstEdgeVersionIds);
+
+    assertEquals(secondId, ((GraphVersion) versions.get(1)).getId());
+    assertTrue(((GraphVersion) versions.get(1)).getEdgeVersionIds().isEmpty());
+    assertEquals(3, export(((PostgresGraphVersionDao) PostgresTest.graphVersionDao).getExportQuery(null)).size());
+  }
+
+  private static List<?> export(PostgresExportQuery query) throws GroundException {
+    return PostgresUtils.executeQuery(PostgresTest.dbSource, query.getSql(), query.getMapper(), query.getParameters().toArray());
+  }
+
+  private static List<Long> createEdgeVersions(int count) throws GroundException {
+    long firstEdgeVersionId = PostgresTest.createTwoNodesAndEdge();
+    EdgeVersion first = PostgresTest.edgeVersionDao.retrieveFromDatabase(firstEdgeVersionId);
+
+    List<Long> edgeVersionIds = new ArrayList<>();
+    edgeVersionIds.add(firstEdgeVersionId);
+    while (edgeVersionIds.size() < count) {
+      edgeVersionIds.add(PostgresTest.createEdgeVersion(first.getEdgeId(), first.getFromNodeVersionStartId(),
+        first.getToNodeVersionStartId()).getId());
+    }
+
+    Collections.sort(edgeVersionIds);
+    return edgeVersionIds;
+  }
+
   @Test(expected = GroundException.class)
   public void testBadGraphVersion() throws GroundException {
     long id = 1;
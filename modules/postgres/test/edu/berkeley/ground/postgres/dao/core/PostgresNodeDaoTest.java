@@ -15,6 +15,7 @@
 package edu.berkeley.ground.postgres.dao.core;
 
 import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -24,15 +25,23 @@ import edu.berkeley.ground.common.model.version.GroundType;
 import edu.berkeley.ground.common.model.version.Tag;
 import edu.berkeley.ground.common.model.version.VersionHistoryDag;
 import edu.berkeley.ground.common.model.version.VersionSuccessor;
+import edu.berkeley.ground.postgres.cache.ItemChange;
+import edu.berkeley.ground.postgres.cache.SourceKeyIndex;
 import edu.berkeley.ground.postgres.dao.PostgresTest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
 
 public class PostgresNodeDaoTest extends PostgresTest {
 
@@ -157,4 +166,107 @@ public class PostgresNodeDaoTest extends PostgresTest {
 
     assertTrue(correctSuccessors.isEmpty());
   }
+
+  @Test(expected = GroundException.class)
+  public void testTruncationDeletesVersions() throws GroundException {
+    String testNode = "testNode";
+    long testNodeId = PostgresTest.createNode(testNode).getId();
+    long firstNodeVersionId = PostgresTest.createNodeVersion(testNodeId).getId();
+
+    List<Long> parents = new ArrayList<>();
+    parents.add(firstNodeVersionId);
+    long secondNodeVersionId = PostgresTest.createNodeVersion(testNodeId, parents).getId();
+
+    parents.clear();
+    parents.add(secondNodeVersionId);
+    PostgresTest.createNodeVersion(testNodeId, parents);
+
+    PostgresTest.nodeDao.truncate(testNodeId, 1);
+
+    PostgresTest.nodeVersionDao.retrieveFromDatabase(firstNodeVersionId);
+  }
+
+  @Test
+  public void testTruncationKeepsReferencedVersions() throws GroundException {
+    long firstNodeId = PostgresTest.createNode("firstNode").getId();
+    long firstNodeVersionId = PostgresTest.createNodeVersion(firstNodeId).getId();
+
+    List<Long> parents = new ArrayList<>();
+    parents.add(firstNodeVersionId);
+    long secondNodeVersionId = PostgresTest.createNodeVersion(firstNodeId, parents).getId();
+
+    long otherNodeVersionId = PostgresTest.createNodeVersion(PostgresTest.createNode("otherNode").getId()).getId();
+    long edgeId = PostgresTest.createEdge("testEdge", "firstNode", "otherNode").getId();
+    long edgeVersionId = PostgresTest.createEdgeVersion(edgeId, firstNodeVersionId, otherNodeVersionId).getId();
+
+    PostgresTest.nodeDao.truncate(firstNodeId, 1);
+
+    VersionHistoryDag dag = PostgresTest.versionHistoryDagDao.retrieveFromDatabase(firstNodeId);
+    assertEquals(1, dag.getEdgeIds().size());
+    VersionSuccessor successor = PostgresTest.versionSuccessorDao.retrieveFromDatabase(dag.getEdgeIds().get(0));
+    assertEquals(0, successor.getFromId());
+    assertEquals(secondNodeVersionId, successor.getToId());
+
+    // the edge version still connects the truncated node version
+    assertEquals(firstNodeVersionId, PostgresTest.edgeVersionDao.retrieveFromDatabase(edgeVersionId).getFromNodeVersionStartId());
+    assertEquals(firstNodeVersionId, PostgresTest.nodeVersionDao.retrieveFromDatabase(firstNodeVersionId).getId());
+  }
+
+  @Test
+  public void testReadsFindItemsTheIndexHasNotSeen() throws GroundException {
+    String sourceKey = "testNode";
+    long nodeId = PostgresTest.createNode(sourceKey).getId();
+    long nodeVersionId = PostgresTest.createNodeVersion(nodeId).getId();
+
+    // as on an instance that was warmed before another instance created the node
+    SourceKeyIndex.resetAll();
+    SourceKeyIndex.of(Node.class).warm(Collections.emptyMap());
+
+    assertEquals(Collections.singletonList(nodeVersionId), PostgresTest.nodeDao.getLeaves(sourceKey));
+    assertEquals(nodeId, ((PostgresNodeDao) PostgresTest.nodeDao).resolveItemId(sourceKey));
+  }
+
+  @Test
+  public void testReadMissRecordsAbsentUntilCreate() throws GroundException {
+    String sourceKey = "testNode";
+
+    try {
+      PostgresTest.nodeDao.retrieveFromDatabase(sourceKey);
+      fail();
+    } catch (GroundException e) {
+      assertTrue(SourceKeyIndex.of(Node.class).isAbsent(sourceKey));
+    }
+
+    long nodeId = PostgresTest.createNode(sourceKey).getId();
+
+    assertFalse(SourceKeyIndex.of(Node.class).isAbsent(sourceKey));
+    assertEquals(nodeId, PostgresTest.nodeDao.retrieveFromDatabase(sourceKey).getId());
+  }
+
+  @Test
+  public void testCreateNotifiesItemCreate() throws GroundException, SQLException {
+    String sourceKey = "testNode";
+
+    try (Connection connection = PostgresTest.dbSource.getConnection();
+         Statement statement = connection.createStatement()) {
+      statement.execute("LISTEN " + ItemChange.CHANNEL);
+
+      System.setProperty("ground.cache.notify", "true");
+      long nodeId;
+      try {
+        nodeId = PostgresTest.createNode(sourceKey).getId();
+      } finally {
+        System.clearProperty("ground.cache.notify");
+      }
+
+      statement.execute("SELECT 1");
+      PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications();
+
+      assertEquals(1, notifications.length);
+      ItemChange change = ItemChange.fromPayload(notifications[0].getParameter());
+      assertEquals(Node.class, change.getItemType());
+      assertEquals(nodeId, change.getItemId());
+      assertEquals(ItemChange.toPayload(Node.class, nodeId), notifications[0].getParameter());
+    }
+  }
 }
@@ -18,14 +18,24 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.model.core.Node;
 import edu.berkeley.ground.common.model.core.NodeVersion;
 import edu.berkeley.ground.common.model.version.Tag;
+import edu.berkeley.ground.postgres.cache.ItemChange;
 import edu.berkeley.ground.postgres.dao.PostgresTest;
+import edu.berkeley.ground.postgres.util.PostgresExportQuery;
+import edu.berkeley.ground.postgres.util.PostgresUtils;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
 
 public class PostgresNodeVersionDaoTest extends PostgresTest {
 
@@ -91,4 +101,129 @@ public class PostgresNodeVersionDaoTest extends PostgresTest {
       throw e;
     }
   }
+
+  @Test
+  public void testBulkRetrieveFollowsRequestOrder() throws GroundException {
+    long nodeId = PostgresTest.createNode("testNode").getId();
+    Map<String, Tag> tags = PostgresTest.createTags();
+
+    long firstId = PostgresTest.nodeVersionDao.create(new NodeVersion(0L, tags, -1, null, new HashMap<>(), nodeId), new ArrayList<>()).getId();
+    long secondId = PostgresTest.createNodeVersion(nodeId).getId();
+
+    List<NodeVersion> retrieved = PostgresTest.nodeVersionDao.retrieveFromDatabase(Arrays.asList(secondId, -1L, firstId));
+
+    assertEquals(2, retrieved.size());
+    assertEquals(secondId, retrieved.get(0).getId());
+    assertEquals(firstId, retrieved.get(1).getId());
+    assertEquals(tags.size(), retrieved.get(1).getTags().size());
+    assertTrue(retrieved.get(0).getTags().isEmpty());
+    assertEquals(nodeId, retrieved.get(1).getNodeId());
+  }
+
+  @Test
+  public void testBatchCreateUpdatesLeavesOnce() throws GroundException {
+    long nodeId = PostgresTest.createNode("testNode").getId();
+    long parentId = PostgresTest.createNodeVersion(nodeId).getId();
+
+    List<NodeVersion> nodeVersions = new ArrayList<>();
+    List<List<Long>> parentIds = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      nodeVersions.add(new NodeVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), nodeId));
+      parentIds.add(new ArrayList<>(Arrays.asList(parentId)));
+    }
+
+    List<NodeVersion> created = PostgresTest.nodeVersionDao.create(nodeVersions, parentIds);
+    assertEquals(3, created.size());
+
+    List<Long> leaves = PostgresTest.nodeDao.getLeaves(nodeId);
+    assertEquals(3, leaves.size());
+    for (NodeVersion nodeVersion : created) {
+      assertTrue(leaves.contains(nodeVersion.getId()));
+      assertEquals(nodeId, PostgresTest.nodeVersionDao.retrieveFromDatabase(nodeVersion.getId()).getNodeId());
+    }
+  }
+
+  @Test
+  public void testExportQueriesReadItemHistoryAndVersions() throws GroundException {
+    String nodeName = "testNode";
+    long nodeId = PostgresTest.createNode(nodeName).getId();
+    PostgresTest.createNode("otherNode");
+
+    Map<String, Tag> tags = PostgresTest.createTags();
+    long firstId = PostgresTest.nodeVersionDao.create(new NodeVersion(0L, tags, -1, null, new HashMap<>(), nodeId), new ArrayList<>()).getId();
+    long secondId = PostgresTest.nodeVersionDao.create(new NodeVersion(0L, new HashMap<>(), -1, null, new HashMap<>(), nodeId),
+      Arrays.asList(firstId)).getId();
+
+    List<?> nodes = export(((PostgresNodeDao) PostgresTest.nodeDao).getExportQuery(nodeName));
+    assertEquals(1, nodes.size());
+    assertEquals(nodeId, ((Node) nodes.get(0)).getId());
+    assertEquals(2, export(((PostgresNodeDao) PostgresTest.nodeDao).getExportQuery(null)).size());
+
+    // the edges from the empty version to the first, and from the first to the second
+    assertEquals(2, export(((PostgresNodeDao) PostgresTest.nodeDao).getHistoryExportQuery(nodeName)).size());
+
+    List<?> versions = export(((PostgresNodeVersionDao) PostgresTest.nodeVersionDao).getExportQuery(nodeName));
+    assertEquals(2, versions.size());
+    assertEquals(firstId, ((NodeVersion) versions.get(0)).getId());
+    assertEquals(tags.size(), ((NodeVersion) versions.get(0)).getTags().size());
+    assertEquals(secondId, ((NodeVersion) versions.get(1)).getId());
+  }
+
+  private static List<?> export(PostgresExportQuery query) throws GroundException {
+    return PostgresUtils.executeQuery(PostgresTest.dbSource, query.getSql(), query.getMapper(), query.getParameters().toArray());
+  }
+
+  @Test
+  public void testCreatePublishesItemChange() throws GroundException {
+    String nodeName = "testNode";
+    long nodeId = PostgresTest.createNode(nodeName).getId();
+
+    List<ItemChange> changes = new ArrayList<>();
+    ((PostgresNodeVersionDao) PostgresTest.nodeVersionDao).addItemChangeListener(changes::add);
+    PostgresTest.createNodeVersion(nodeId);
+
+    assertEquals(1, changes.size());
+    assertEquals(Node.class, changes.get(0).getItemType());
+    assertEquals(nodeId, changes.get(0).getItemId());
+    assertEquals(nodeName, changes.get(0).getSourceKey());
+  }
+
+  @Test
+  public void testFailingListenerDoesNotFailCreate() throws GroundException {
+    long nodeId = PostgresTest.createNode("testNode").getId();
+
+    ((PostgresNodeVersionDao) PostgresTest.nodeVersionDao).addItemChangeListener(change -> {
+      throw new IllegalStateException("listener failed");
+    });
+    long nodeVersionId = PostgresTest.createNodeVersion(nodeId).getId();
+
+    assertEquals(Arrays.asList(nodeVersionId), PostgresTest.nodeDao.getLeaves(nodeId));
+  }
+
+  @Test
+  public void testCreateNotifiesItemChange() throws GroundException, SQLException {
+    String nodeName = "testNode";
+    long nodeId = PostgresTest.createNode(nodeName).getId();
+
+    try (Connection connection = PostgresTest.dbSource.getConnection();
+         Statement statement = connection.createStatement()) {
+      statement.execute("LISTEN " + ItemChange.CHANNEL);
+
+      System.setProperty("ground.cache.notify", "true");
+      try {
+        PostgresTest.createNodeVersion(nodeId);
+      } finally {
+        System.clearProperty("ground.cache.notify");
+      }
+
+      statement.execute("SELECT 1");
+      PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications();
+
+      assertEquals(1, notifications.length);
+      ItemChange change = ItemChange.fromPayload(notifications[0].getParameter());
+      assertEquals(Node.class, change.getItemType());
+      assertEquals(nodeId, change.getItemId());
+      assertEquals(ItemChange.toPayload(Node.class, nodeId), notifications[0].getParameter());
+    }
+  }
 }
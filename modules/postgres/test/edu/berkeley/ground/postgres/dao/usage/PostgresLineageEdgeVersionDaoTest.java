@@ -5,9 +5,12 @@ import static org.junit.Assert.assertEquals;
 import edu.berkeley.ground.common.exception.GroundException;
 import edu.berkeley.ground.common.model.usage.LineageEdgeVersion;
 import edu.berkeley.ground.common.model.version.Tag;
+import edu.berkeley.ground.postgres.cache.ItemChange;
 import edu.berkeley.ground.postgres.dao.PostgresTest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.Test;
 
@@ -73,6 +76,24 @@ public class PostgresLineageEdgeVersionDaoTest extends PostgresTest {
     }
   }
 
+  @Test
+  public void testCreatePublishesConnectedVersions() throws GroundException {
+    long firstNodeVersionId = PostgresTest.createNodeVersion(PostgresTest.createNode("firstTestNode").getId()).getId();
+    long secondNodeVersionId = PostgresTest.createNodeVersion(PostgresTest.createNode("secondTestNode").getId()).getId();
+    long lineageEdgeId = PostgresTest.createLineageEdge("testLineageEdge").getId();
+
+    List<ItemChange> changes = new ArrayList<>();
+    ((PostgresLineageEdgeVersionDao) PostgresTest.lineageEdgeVersionDao).addItemChangeListener(changes::add);
+
+    LineageEdgeVersion lineageEdgeVersion = new LineageEdgeVersion(0L, new HashMap<>(), -1L, null, new HashMap<>(),
+                                                                    firstNodeVersionId, secondNodeVersionId, lineageEdgeId);
+    PostgresTest.lineageEdgeVersionDao.create(lineageEdgeVersion, new ArrayList<>());
+
+    assertEquals(1, changes.size());
+    assertEquals("testLineageEdge", changes.get(0).getSourceKey());
+    assertEquals(Arrays.asList(firstNodeVersionId, secondNodeVersionId), changes.get(0).getLinkedVersionIds());
+  }
+
   @Test(expected = GroundException.class)
   public void testBadLineageEdgeVersion() throws GroundException {
     long id = 1;
@@ -28,6 +28,7 @@ import edu.berkeley.ground.postgres.dao.PostgresTest;
 import edu.berkeley.ground.postgres.util.PostgresStatements;
 import edu.berkeley.ground.postgres.util.PostgresUtils;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +64,7 @@ public class PostgresItemDaoTest extends PostgresTest {
 
     assertEquals(2, dag.getEdgeIds().size());
     assertEquals(toId, (long) dag.getLeaves().get(0));
+    assertEquals(Collections.singletonList(toId), PostgresTest.postgresItemDao.getLeaves(testId));
 
     VersionSuccessor successor = null;
     for (long id : dag.getEdgeIds()) {
@@ -101,6 +103,7 @@ public class PostgresItemDaoTest extends PostgresTest {
 
     assertEquals(1, dag.getEdgeIds().size());
     assertEquals(toId, (long) dag.getLeaves().get(0));
+    assertEquals(Collections.singletonList(toId), PostgresTest.postgresItemDao.getLeaves(testId));
 
     VersionSuccessor successor = PostgresTest.versionSuccessorDao.retrieveFromDatabase(
       dag.getEdgeIds().get(0));
@@ -134,6 +137,7 @@ public class PostgresItemDaoTest extends PostgresTest {
 
     assertEquals(2, dag.getEdgeIds().size());
     assertEquals(toId, (long) dag.getLeaves().get(0));
+    assertEquals(Collections.singletonList(toId), PostgresTest.postgresItemDao.getLeaves(testId));
 
     VersionSuccessor fromSuccessor = PostgresTest.versionSuccessorDao.retrieveFromDatabase(
       dag.getEdgeIds().get(0));
@@ -204,6 +208,7 @@ public class PostgresItemDaoTest extends PostgresTest {
 
     assertEquals(4, dag.getEdgeIds().size());
     assertEquals(child, (long) dag.getLeaves().get(0));
+    assertEquals(Collections.singletonList(child), PostgresTest.postgresItemDao.getLeaves(testId));
 
     // Retrieve all the version successors and check that they have the correct data.
     VersionSuccessor parentOneSuccessor = PostgresTest.versionSuccessorDao
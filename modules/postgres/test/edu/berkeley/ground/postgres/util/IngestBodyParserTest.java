@@ -0,0 +1,94 @@
+package edu.berkeley.ground.postgres.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import akka.actor.ActorSystem;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import play.http.HttpEntity;
+import play.libs.F;
+import play.libs.Json;
+import play.mvc.Http;
+import play.mvc.Result;
+
+public class IngestBodyParserTest {
+
+  private static ActorSystem actorSystem;
+  private static Materializer materializer;
+
+  @BeforeClass
+  public static void setupClass() {
+    actorSystem = ActorSystem.create("IngestBodyParserTest");
+    materializer = ActorMaterializer.create(actorSystem);
+  }
+
+  @AfterClass
+  public static void teardownClass() {
+    actorSystem.terminate();
+  }
+
+  @Test
+  public void testLinesAreWrittenInChunks() throws Exception {
+    List<List<String>> chunks = new ArrayList<>();
+    IngestBodyParser parser = new IngestBodyParser((records, summary) -> chunks.add(writeTypes(records, summary)), Runnable::run, 2, 1024);
+
+    // the second record is split across two body parts, and the last has no newline
+    F.Either<Result, IngestSummary> result = run(parser,
+      "{\"type\":\"node\",\"sourceKey\":\"a\"}\n{\"type\":\"node_",
+      "version\",\"sourceKey\":\"a\"}\n\n{\"type\":\"node_version\",\"sourceKey\":\"a\"}");
+
+    assertTrue(result.right.isPresent());
+    assertEquals(Arrays.asList(Arrays.asList("node", "node_version"), Arrays.asList("node_version")), chunks);
+
+    IngestSummary summary = result.right.get();
+    assertEquals(3, summary.getRecords());
+    assertEquals(2, summary.getChunks());
+    assertEquals(2L, (long) summary.getCreated().get("node_version"));
+  }
+
+  @Test
+  public void testInvalidLineReportsCommittedRecords() throws Exception {
+    IngestBodyParser parser = new IngestBodyParser((records, summary) -> writeTypes(records, summary), Runnable::run, 1, 1024);
+
+    F.Either<Result, IngestSummary> result = run(parser, "{\"type\":\"node\"}\n{\"type\":\"node\"}\nnot json\n{\"type\":\"node\"}\n");
+
+    assertTrue(result.left.isPresent());
+    assertEquals(Http.Status.BAD_REQUEST, result.left.get().status());
+
+    JsonNode body = Json.parse(((HttpEntity.Strict) result.left.get().body()).data().utf8String());
+    assertEquals(2, body.get("Committed").get("records").asInt());
+  }
+
+  private static List<String> writeTypes(List<ObjectNode> records, IngestSummary summary) {
+    List<String> types = new ArrayList<>();
+    for (ObjectNode record : records) {
+      types.add(record.get("type").asText());
+      summary.add(record.get("type").asText(), 1);
+    }
+    return types;
+  }
+
+  private static F.Either<Result, IngestSummary> run(IngestBodyParser parser, String... parts) throws Exception {
+    List<ByteString> body = new ArrayList<>();
+    for (String part : parts) {
+      body.add(ByteString.fromString(part));
+    }
+
+    return parser.apply(new Http.RequestBuilder().build())
+             .run(Source.from(body), materializer)
+             .toCompletableFuture()
+             .get(10, TimeUnit.SECONDS);
+  }
+}
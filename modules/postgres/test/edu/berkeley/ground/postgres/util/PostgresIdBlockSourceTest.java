@@ -0,0 +1,38 @@
+package edu.berkeley.ground.postgres.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import edu.berkeley.ground.common.exception.GroundException;
+import edu.berkeley.ground.common.util.IdGenerator;
+import edu.berkeley.ground.postgres.dao.PostgresTest;
+import org.junit.Test;
+
+public class PostgresIdBlockSourceTest extends PostgresTest {
+
+  public PostgresIdBlockSourceTest() throws GroundException {
+    super();
+  }
+
+  @Test
+  public void testFirstLeaseSkipsIdsWrittenBeforeIdBlock() throws GroundException {
+    // written by the in-memory generator, as before id_block existed
+    long nodeId = PostgresTest.createNode("testNode").getId();
+    long nodeVersionId = PostgresTest.createNodeVersion(nodeId).getId();
+
+    IdGenerator generator = new IdGenerator(0, 1, false, new PostgresIdBlockSource(PostgresTest.dbSource), 10);
+
+    assertTrue(generator.generateVersionId() > nodeVersionId);
+    assertTrue(generator.generateItemId() > nodeId);
+  }
+
+  @Test
+  public void testSeedNeverMovesACounterBack() throws GroundException {
+    PostgresIdBlockSource blockSource = new PostgresIdBlockSource(PostgresTest.dbSource);
+    long first = blockSource.leaseBlock("version", 100);
+
+    blockSource.seed("version", 0, Long.MAX_VALUE);
+
+    assertEquals(first + 100, blockSource.leaseBlock("version", 10));
+  }
+}